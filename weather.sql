@@ -113,6 +113,39 @@ INSERT INTO `locations` (`id`, `city_name`, `district_name`, `location_code`, `l
 INSERT INTO `locations` (`id`, `city_name`, `district_name`, `location_code`, `latitude`, `longitude`, `location_id`, `status`) VALUES (10, '临高县', '临城镇', 'LINGAO', 19.908300, 109.687700, 101310203, 1);
 COMMIT;
 
+-- ----------------------------
+-- Table structure for sync_checkpoint
+-- ----------------------------
+DROP TABLE IF EXISTS `sync_checkpoint`;
+CREATE TABLE `sync_checkpoint` (
+  `run_id` bigint NOT NULL,
+  `location_code` varchar(20) CHARACTER SET utf8mb4 COLLATE utf8mb4_0900_ai_ci NOT NULL,
+  `status` enum('PENDING','DONE','FAILED') CHARACTER SET utf8mb4 COLLATE utf8mb4_0900_ai_ci DEFAULT 'PENDING',
+  `attempts` int NOT NULL DEFAULT '0',
+  `message` varchar(500) CHARACTER SET utf8mb4 COLLATE utf8mb4_0900_ai_ci DEFAULT NULL,
+  `update_time` datetime DEFAULT CURRENT_TIMESTAMP,
+  PRIMARY KEY (`run_id`,`location_code`) USING BTREE,
+  KEY `idx_run_status` (`run_id`,`status`) USING BTREE
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_0900_ai_ci ROW_FORMAT=DYNAMIC;
+
+-- ----------------------------
+-- Table structure for sync_run
+-- ----------------------------
+DROP TABLE IF EXISTS `sync_run`;
+CREATE TABLE `sync_run` (
+  `id` bigint NOT NULL AUTO_INCREMENT,
+  `source` varchar(20) CHARACTER SET utf8mb4 COLLATE utf8mb4_0900_ai_ci DEFAULT NULL,
+  `force_all` tinyint DEFAULT '0',
+  `status` enum('RUNNING','COMPLETED','ABANDONED') CHARACTER SET utf8mb4 COLLATE utf8mb4_0900_ai_ci DEFAULT 'RUNNING',
+  `total_locations` int DEFAULT '0',
+  `completed_locations` int DEFAULT '0',
+  `start_time` datetime DEFAULT CURRENT_TIMESTAMP,
+  `end_time` datetime DEFAULT NULL,
+  `message` varchar(500) CHARACTER SET utf8mb4 COLLATE utf8mb4_0900_ai_ci DEFAULT NULL,
+  PRIMARY KEY (`id`) USING BTREE,
+  KEY `idx_status` (`status`) USING BTREE
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_0900_ai_ci ROW_FORMAT=DYNAMIC;
+
 -- ----------------------------
 -- Table structure for system_logs
 -- ----------------------------
@@ -234,12 +267,16 @@ CREATE TABLE `weather_data` (
   `weather_condition` varchar(50) CHARACTER SET utf8mb4 COLLATE utf8mb4_0900_ai_ci DEFAULT NULL,
   `pressure` decimal(7,2) DEFAULT NULL,
   `visibility` decimal(6,2) DEFAULT NULL,
-  `update_time` datetime DEFAULT NULL,
+  `update_time` datetime NOT NULL,
   `data_date` date NOT NULL,
-  PRIMARY KEY (`id`) USING BTREE,
-  KEY `location_code` (`location_code`) USING BTREE,
-  CONSTRAINT `weather_data_ibfk_1` FOREIGN KEY (`location_code`) REFERENCES `locations` (`location_code`) ON DELETE RESTRICT ON UPDATE RESTRICT
-) ENGINE=InnoDB AUTO_INCREMENT=26 DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_0900_ai_ci ROW_FORMAT=DYNAMIC;
+  PRIMARY KEY (`id`,`update_time`) USING BTREE,
+  UNIQUE KEY `uk_location_update_time` (`location_code`,`update_time`) USING BTREE,
+  KEY `location_code` (`location_code`) USING BTREE
+) ENGINE=InnoDB AUTO_INCREMENT=26 DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_0900_ai_ci ROW_FORMAT=DYNAMIC
+PARTITION BY RANGE (TO_DAYS(`update_time`))
+(PARTITION p_min VALUES LESS THAN (TO_DAYS('2025-12-01')),
+ PARTITION p202512 VALUES LESS THAN (TO_DAYS('2026-01-01')),
+ PARTITION p_future VALUES LESS THAN MAXVALUE);
 
 -- ----------------------------
 -- Records of weather_data
@@ -289,6 +326,7 @@ CREATE TABLE `weather_forecast` (
   `precipitation_prob` decimal(5,2) DEFAULT NULL,
   `created_time` datetime DEFAULT CURRENT_TIMESTAMP,
   PRIMARY KEY (`id`) USING BTREE,
+  UNIQUE KEY `uk_location_forecast_date` (`location_code`,`forecast_date`) USING BTREE,
   KEY `location_code` (`location_code`) USING BTREE,
   CONSTRAINT `weather_forecast_ibfk_1` FOREIGN KEY (`location_code`) REFERENCES `locations` (`location_code`) ON DELETE RESTRICT ON UPDATE RESTRICT
 ) ENGINE=InnoDB AUTO_INCREMENT=10 DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_0900_ai_ci ROW_FORMAT=DYNAMIC;
@@ -308,6 +346,100 @@ INSERT INTO `weather_forecast` (`id`, `location_code`, `forecast_date`, `high_te
 INSERT INTO `weather_forecast` (`id`, `location_code`, `forecast_date`, `high_temp`, `low_temp`, `day_condition`, `night_condition`, `wind_speed`, `humidity`, `precipitation_prob`, `created_time`) VALUES (9, 'DANZHOU', '2025-12-10', 25.00, 21.00, '暴雨转大雨', '中雨', 20.00, 90.00, 80.00, '2025-12-07 17:54:00');
 COMMIT;
 
+-- ----------------------------
+-- Table structure for weather_forecast_hourly
+-- ----------------------------
+DROP TABLE IF EXISTS `weather_forecast_hourly`;
+CREATE TABLE `weather_forecast_hourly` (
+  `id` bigint NOT NULL AUTO_INCREMENT,
+  `location_code` varchar(20) CHARACTER SET utf8mb4 COLLATE utf8mb4_0900_ai_ci NOT NULL,
+  `forecast_time` datetime NOT NULL,
+  `temperature` decimal(5,2) DEFAULT NULL,
+  `weather_condition` varchar(50) CHARACTER SET utf8mb4 COLLATE utf8mb4_0900_ai_ci DEFAULT NULL,
+  `wind_direction` varchar(20) CHARACTER SET utf8mb4 COLLATE utf8mb4_0900_ai_ci DEFAULT NULL,
+  `wind_speed` decimal(5,2) DEFAULT NULL,
+  `humidity` decimal(5,2) DEFAULT NULL,
+  `precipitation` decimal(5,2) DEFAULT NULL,
+  `precipitation_prob` decimal(5,2) DEFAULT NULL,
+  `pressure` decimal(7,2) DEFAULT NULL,
+  `created_time` datetime DEFAULT CURRENT_TIMESTAMP,
+  PRIMARY KEY (`id`) USING BTREE,
+  UNIQUE KEY `uk_location_forecast_time` (`location_code`,`forecast_time`) USING BTREE,
+  CONSTRAINT `weather_forecast_hourly_ibfk_1` FOREIGN KEY (`location_code`) REFERENCES `locations` (`location_code`) ON DELETE RESTRICT ON UPDATE RESTRICT
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_0900_ai_ci ROW_FORMAT=DYNAMIC;
+
+-- ----------------------------
+-- Table structure for weather_latest
+-- ----------------------------
+DROP TABLE IF EXISTS `weather_latest`;
+CREATE TABLE `weather_latest` (
+  `location_code` varchar(20) CHARACTER SET utf8mb4 COLLATE utf8mb4_0900_ai_ci NOT NULL,
+  `weather_data_id` bigint NOT NULL,
+  `temperature` decimal(5,2) DEFAULT NULL,
+  `humidity` decimal(5,2) DEFAULT NULL,
+  `wind_speed` decimal(5,2) DEFAULT NULL,
+  `wind_direction` varchar(20) CHARACTER SET utf8mb4 COLLATE utf8mb4_0900_ai_ci DEFAULT NULL,
+  `precipitation` decimal(5,2) DEFAULT NULL,
+  `weather_condition` varchar(50) CHARACTER SET utf8mb4 COLLATE utf8mb4_0900_ai_ci DEFAULT NULL,
+  `pressure` decimal(7,2) DEFAULT NULL,
+  `visibility` decimal(6,2) DEFAULT NULL,
+  `update_time` datetime NOT NULL,
+  `data_date` date NOT NULL,
+  PRIMARY KEY (`location_code`) USING BTREE,
+  CONSTRAINT `weather_latest_ibfk_1` FOREIGN KEY (`location_code`) REFERENCES `locations` (`location_code`) ON DELETE RESTRICT ON UPDATE RESTRICT
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_0900_ai_ci ROW_FORMAT=DYNAMIC;
+
+-- ----------------------------
+-- Records of weather_latest
+-- ----------------------------
+BEGIN;
+INSERT INTO `weather_latest` (`location_code`, `weather_data_id`, `temperature`, `humidity`, `wind_speed`, `wind_direction`, `precipitation`, `weather_condition`, `pressure`, `visibility`, `update_time`, `data_date`)
+SELECT w.`location_code`, w.`id`, w.`temperature`, w.`humidity`, w.`wind_speed`, w.`wind_direction`, w.`precipitation`, w.`weather_condition`, w.`pressure`, w.`visibility`, w.`update_time`, w.`data_date`
+FROM `weather_data` w
+JOIN (SELECT `location_code`, MAX(`update_time`) AS max_time FROM `weather_data` GROUP BY `location_code`) m
+  ON w.`location_code` = m.`location_code` AND w.`update_time` = m.max_time;
+COMMIT;
+
+-- ----------------------------
+-- Table structure for weather_rollup_daily
+-- ----------------------------
+DROP TABLE IF EXISTS `weather_rollup_daily`;
+CREATE TABLE `weather_rollup_daily` (
+  `location_code` varchar(20) CHARACTER SET utf8mb4 COLLATE utf8mb4_0900_ai_ci NOT NULL,
+  `bucket_start` datetime NOT NULL,
+  `sample_count` int NOT NULL DEFAULT '0',
+  `min_temperature` decimal(5,2) DEFAULT NULL,
+  `max_temperature` decimal(5,2) DEFAULT NULL,
+  `avg_temperature` decimal(5,2) DEFAULT NULL,
+  `total_precipitation` decimal(7,2) DEFAULT NULL,
+  `max_wind_speed` decimal(5,2) DEFAULT NULL,
+  `avg_humidity` decimal(5,2) DEFAULT NULL,
+  `weather_condition` varchar(50) CHARACTER SET utf8mb4 COLLATE utf8mb4_0900_ai_ci DEFAULT NULL,
+  `updated_time` datetime DEFAULT CURRENT_TIMESTAMP,
+  PRIMARY KEY (`location_code`,`bucket_start`) USING BTREE,
+  CONSTRAINT `weather_rollup_daily_ibfk_1` FOREIGN KEY (`location_code`) REFERENCES `locations` (`location_code`) ON DELETE RESTRICT ON UPDATE RESTRICT
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_0900_ai_ci ROW_FORMAT=DYNAMIC;
+
+-- ----------------------------
+-- Table structure for weather_rollup_hourly
+-- ----------------------------
+DROP TABLE IF EXISTS `weather_rollup_hourly`;
+CREATE TABLE `weather_rollup_hourly` (
+  `location_code` varchar(20) CHARACTER SET utf8mb4 COLLATE utf8mb4_0900_ai_ci NOT NULL,
+  `bucket_start` datetime NOT NULL,
+  `sample_count` int NOT NULL DEFAULT '0',
+  `min_temperature` decimal(5,2) DEFAULT NULL,
+  `max_temperature` decimal(5,2) DEFAULT NULL,
+  `avg_temperature` decimal(5,2) DEFAULT NULL,
+  `total_precipitation` decimal(7,2) DEFAULT NULL,
+  `max_wind_speed` decimal(5,2) DEFAULT NULL,
+  `avg_humidity` decimal(5,2) DEFAULT NULL,
+  `weather_condition` varchar(50) CHARACTER SET utf8mb4 COLLATE utf8mb4_0900_ai_ci DEFAULT NULL,
+  `updated_time` datetime DEFAULT CURRENT_TIMESTAMP,
+  PRIMARY KEY (`location_code`,`bucket_start`) USING BTREE,
+  CONSTRAINT `weather_rollup_hourly_ibfk_1` FOREIGN KEY (`location_code`) REFERENCES `locations` (`location_code`) ON DELETE RESTRICT ON UPDATE RESTRICT
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_0900_ai_ci ROW_FORMAT=DYNAMIC;
+
 -- ----------------------------
 -- Table structure for weather_warnings
 -- ----------------------------
@@ -321,12 +453,17 @@ CREATE TABLE `weather_warnings` (
   `content` text CHARACTER SET utf8mb4 COLLATE utf8mb4_0900_ai_ci,
   `issue_time` datetime DEFAULT NULL,
   `effective_time` datetime DEFAULT NULL,
-  `expire_time` datetime DEFAULT NULL,
+  `expire_time` datetime NOT NULL,
   `status` enum('ACTIVE','EXPIRED') CHARACTER SET utf8mb4 COLLATE utf8mb4_0900_ai_ci DEFAULT 'ACTIVE',
-  PRIMARY KEY (`id`) USING BTREE,
+  PRIMARY KEY (`id`,`expire_time`) USING BTREE,
   KEY `location_code` (`location_code`) USING BTREE,
-  CONSTRAINT `weather_warnings_ibfk_1` FOREIGN KEY (`location_code`) REFERENCES `locations` (`location_code`) ON DELETE RESTRICT ON UPDATE RESTRICT
-) ENGINE=InnoDB AUTO_INCREMENT=6 DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_0900_ai_ci ROW_FORMAT=DYNAMIC;
+  KEY `idx_expire_time` (`expire_time`) USING BTREE,
+  KEY `idx_status_expire_time` (`status`,`expire_time`) USING BTREE
+) ENGINE=InnoDB AUTO_INCREMENT=6 DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_0900_ai_ci ROW_FORMAT=DYNAMIC
+PARTITION BY RANGE (TO_DAYS(`expire_time`))
+(PARTITION p_min VALUES LESS THAN (TO_DAYS('2025-12-01')),
+ PARTITION p202512 VALUES LESS THAN (TO_DAYS('2026-01-01')),
+ PARTITION p_future VALUES LESS THAN MAXVALUE);
 
 -- ----------------------------
 -- Records of weather_warnings
@@ -0,0 +1,12 @@
+package com.hainan.weather.config;
+
+import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * 启用Spring缓存，CacheManager由Spring Boot按 spring.cache 配置创建（Caffeine）
+ */
+@Configuration
+@EnableCaching
+public class CacheConfig {
+}
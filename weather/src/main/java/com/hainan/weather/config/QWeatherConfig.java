@@ -0,0 +1,149 @@
+package com.hainan.weather.config;
+
+import lombok.extern.slf4j.Slf4j;
+import org.apache.hc.client5.http.config.ConnectionConfig;
+import org.apache.hc.client5.http.config.RequestConfig;
+import org.apache.hc.client5.http.impl.classic.CloseableHttpClient;
+import org.apache.hc.client5.http.impl.classic.HttpClients;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManager;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManagerBuilder;
+import org.apache.hc.core5.util.TimeValue;
+import org.apache.hc.core5.util.Timeout;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
+import org.springframework.web.client.RestTemplate;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+@Configuration
+@Slf4j
+public class QWeatherConfig {
+
+    /**
+     * 同步时的最大并发请求数
+     */
+    @Value("${qweather.sync.concurrency:8}")
+    private int syncConcurrency;
+
+    /**
+     * 同步流水线解析阶段的线程数
+     */
+    @Value("${qweather.sync.decode-threads:2}")
+    private int decodeThreads;
+
+    /**
+     * 连接池中空闲连接的保活时间（秒）
+     */
+    @Value("${qweather.http.idle-timeout-seconds:60}")
+    private long idleTimeoutSeconds;
+
+    /**
+     * 建立连接超时（毫秒）
+     */
+    @Value("${qweather.http.connect-timeout-ms:3000}")
+    private long connectTimeoutMs;
+
+    /**
+     * 读取响应超时（毫秒），同时作为等待响应头的超时
+     */
+    @Value("${qweather.http.read-timeout-ms:5000}")
+    private long readTimeoutMs;
+
+    /**
+     * 和风天气同步专用线程池，线程数即并发上限
+     */
+    @Bean(name = "qweatherSyncExecutor", destroyMethod = "shutdownNow")
+    public ExecutorService qweatherSyncExecutor() {
+        int poolSize = Math.max(1, syncConcurrency);
+        AtomicInteger counter = new AtomicInteger();
+        ThreadFactory threadFactory = runnable -> {
+            Thread thread = new Thread(runnable, "qweather-sync-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+        log.info("和风天气同步线程池已创建，并发上限：{}", poolSize);
+        return Executors.newFixedThreadPool(poolSize, threadFactory);
+    }
+
+    /**
+     * 同步流水线解析阶段的线程池，与拉取线程分开，避免解析占用网络请求的并发名额
+     */
+    @Bean(name = "qweatherDecodeExecutor", destroyMethod = "shutdownNow")
+    public ExecutorService qweatherDecodeExecutor() {
+        int poolSize = Math.max(1, decodeThreads);
+        AtomicInteger counter = new AtomicInteger();
+        ThreadFactory threadFactory = runnable -> {
+            Thread thread = new Thread(runnable, "qweather-decode-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+        return Executors.newFixedThreadPool(poolSize, threadFactory);
+    }
+
+    /**
+     * 同步流水线入库阶段的单线程执行器，按批顺序写库和检查点
+     */
+    @Bean(name = "qweatherPersistExecutor", destroyMethod = "shutdownNow")
+    public ExecutorService qweatherPersistExecutor() {
+        return Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "qweather-persist");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * 同步协调器的单线程执行器，保证同一时刻只有一个同步任务在运行
+     */
+    @Bean(name = "qweatherSyncCoordinatorExecutor", destroyMethod = "shutdownNow")
+    public ExecutorService qweatherSyncCoordinatorExecutor() {
+        return Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "qweather-sync-coordinator");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * 和风天气专用HTTP客户端：连接池复用keep-alive连接，避免每次请求重新握手TLS；
+     * 默认发送 Accept-Encoding: gzip, deflate，并在读取响应时以流的方式解压；
+     * 连接、读取和从连接池取连接都有超时，上游变慢时请求会尽快失败而不是阻塞同步线程
+     */
+    @Bean(name = "qweatherHttpClient", destroyMethod = "close")
+    public CloseableHttpClient qweatherHttpClient() {
+        int maxConnections = Math.max(1, syncConcurrency);
+        PoolingHttpClientConnectionManager connectionManager = PoolingHttpClientConnectionManagerBuilder.create()
+                .setMaxConnTotal(maxConnections * 2)
+                .setMaxConnPerRoute(maxConnections)
+                .setDefaultConnectionConfig(ConnectionConfig.custom()
+                        .setValidateAfterInactivity(TimeValue.ofSeconds(10))
+                        .setConnectTimeout(Timeout.ofMilliseconds(connectTimeoutMs))
+                        .setSocketTimeout(Timeout.ofMilliseconds(readTimeoutMs))
+                        .build())
+                .build();
+        log.info("和风天气HTTP连接池已创建，单路由最大连接数：{}", maxConnections);
+        return HttpClients.custom()
+                .setConnectionManager(connectionManager)
+                .setDefaultRequestConfig(RequestConfig.custom()
+                        .setConnectionRequestTimeout(Timeout.ofMilliseconds(connectTimeoutMs))
+                        .setResponseTimeout(Timeout.ofMilliseconds(readTimeoutMs))
+                        .build())
+                .evictExpiredConnections()
+                .evictIdleConnections(TimeValue.ofSeconds(idleTimeoutSeconds))
+                .build();
+    }
+
+    /**
+     * 基于连接池的RestTemplate，供QWeatherApiService使用
+     */
+    @Bean(name = "qweatherRestTemplate")
+    public RestTemplate qweatherRestTemplate(@Qualifier("qweatherHttpClient") CloseableHttpClient httpClient) {
+        return new RestTemplate(new HttpComponentsClientHttpRequestFactory(httpClient));
+    }
+}
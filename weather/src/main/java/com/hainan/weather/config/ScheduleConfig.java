@@ -1,6 +1,7 @@
 package com.hainan.weather.config;
 
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.scheduling.annotation.EnableScheduling;
 import org.springframework.scheduling.annotation.SchedulingConfigurer;
@@ -13,9 +14,16 @@ import java.util.concurrent.Executors;
 @Slf4j
 public class ScheduleConfig implements SchedulingConfigurer {
 
+    /**
+     * 定时任务线程数，不少于 @Scheduled 任务数：两个同步任务会在整个同步期间等待，
+     * 线程不足时预警过期、计数校验、汇总和分区维护会被饿死
+     */
+    @Value("${qweather.scheduler.pool-size:10}")
+    private int poolSize;
+
     @Override
     public void configureTasks(ScheduledTaskRegistrar taskRegistrar) {
-        taskRegistrar.setScheduler(Executors.newScheduledThreadPool(5));
-        log.info("定时任务配置已启用，线程池大小：5");
+        taskRegistrar.setScheduler(Executors.newScheduledThreadPool(poolSize));
+        log.info("定时任务配置已启用，线程池大小：{}", poolSize);
     }
 }
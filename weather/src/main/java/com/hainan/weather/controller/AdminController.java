@@ -1,5 +1,6 @@
 package com.hainan.weather.controller;
 
+import com.hainan.weather.dto.SyncJob;
 import com.hainan.weather.dto.UserLoginDTO;
 import com.hainan.weather.dto.WarningPublishDTO;
 import com.hainan.weather.entity.*;
@@ -44,7 +45,22 @@ public class AdminController {
     private SystemService systemService;
 
     @Autowired
-    private com.hainan.weather.service.QWeatherApiService qWeatherApiService;
+    private SyncCoordinator syncCoordinator;
+
+    @Autowired
+    private QWeatherRateLimiter qWeatherRateLimiter;
+
+    @Autowired
+    private QWeatherCircuitBreaker qWeatherCircuitBreaker;
+
+    @Autowired
+    private LocationRefreshScheduler locationRefreshScheduler;
+
+    @Autowired
+    private SyncRunService syncRunService;
+
+    @Autowired
+    private WeatherCacheService weatherCacheService;
 
     /**
      * 管理员登录接口
@@ -127,12 +143,8 @@ public class AdminController {
         }
 
         try {
-            HttpSession session = request.getSession();
-            Long userId = (Long) session.getAttribute("userId");
-
-            // 获取用户信息以确定角色
-            User user = userService.getUserById(userId);
-            String userRole = user != null ? user.getRole() : "ADMIN";
+            // 角色在登录时写入Session，checkAdminLogin 已校验过
+            String userRole = (String) request.getSession().getAttribute("userRole");
 
             // 获取系统统计数据
             int activeWarningCount = warningService.getActiveWarningCount();
@@ -826,7 +838,7 @@ public class AdminController {
      * 手动同步天气和预警数据接口
      */
     @PostMapping("/weather/sync")
-    @ApiOperation(value = "手动同步天气和预警数据", notes = "手动触发从和风天气API同步天气和预警数据")
+    @ApiOperation(value = "手动同步天气和预警数据", notes = "提交同步任务后立即返回任务ID，已有同步在运行时返回正在运行的任务")
     public ResponseEntity<Map<String, Object>> syncWeatherData(HttpServletRequest request) {
         Map<String, Object> response = new HashMap<>();
 
@@ -841,13 +853,15 @@ public class AdminController {
 
         try {
             log.info("管理员手动触发同步天气和预警数据, userId: {}", userId);
-            qWeatherApiService.syncAllLocations();
+            SyncJob job = syncCoordinator.trigger("ADMIN", true);
 
             systemService.logOperation(userId, "SYNC", "WEATHER",
-                    "手动同步天气和预警数据", request.getRemoteAddr());
+                    "手动同步天气和预警数据, 任务ID: " + job.getJobId(), request.getRemoteAddr());
 
             response.put("success", true);
-            response.put("message", "同步成功");
+            response.put("data", job);
+            response.put("message", job.isQueued()
+                    ? "已有同步任务在运行，本次全量同步已排队，将在其结束后执行" : "同步任务已提交");
             return ResponseEntity.ok(response);
         } catch (Exception e) {
             log.error("手动同步天气和预警数据失败", e);
@@ -857,6 +871,139 @@ public class AdminController {
         }
     }
 
+    /**
+     * 查询同步任务状态接口
+     */
+    @GetMapping("/weather/sync/{jobId}")
+    @ApiOperation(value = "查询同步任务状态", notes = "返回同步任务的状态、进度、耗时和数据条数")
+    public ResponseEntity<Map<String, Object>> getSyncJobStatus(
+            @ApiParam(value = "任务ID", required = true)
+            @PathVariable String jobId,
+            HttpServletRequest request) {
+        Map<String, Object> response = new HashMap<>();
+
+        if (!checkAdminLogin(request)) {
+            response.put("success", false);
+            response.put("message", "未授权访问");
+            return ResponseEntity.status(401).body(response);
+        }
+
+        SyncJob job = syncCoordinator.getJob(jobId);
+        if (job == null) {
+            response.put("success", false);
+            response.put("message", "同步任务不存在");
+            return ResponseEntity.status(404).body(response);
+        }
+
+        response.put("success", true);
+        response.put("data", job);
+        return ResponseEntity.ok(response);
+    }
+
+    /**
+     * 最近同步任务列表接口
+     */
+    @GetMapping("/weather/sync/jobs")
+    @ApiOperation(value = "最近同步任务列表", notes = "返回最近的同步任务，按提交时间倒序")
+    public ResponseEntity<Map<String, Object>> getRecentSyncJobs(HttpServletRequest request) {
+        Map<String, Object> response = new HashMap<>();
+
+        if (!checkAdminLogin(request)) {
+            response.put("success", false);
+            response.put("message", "未授权访问");
+            return ResponseEntity.status(401).body(response);
+        }
+
+        response.put("success", true);
+        response.put("data", syncCoordinator.getRecentJobs());
+        return ResponseEntity.ok(response);
+    }
+
+    /**
+     * 同步运行记录接口
+     */
+    @GetMapping("/weather/sync-runs")
+    @ApiOperation(value = "同步运行记录", notes = "返回最近的同步运行；指定runId时返回该运行各地点的检查点")
+    public ResponseEntity<Map<String, Object>> getSyncRuns(
+            @ApiParam(value = "运行ID")
+            @RequestParam(required = false) Long runId,
+            HttpServletRequest request) {
+        Map<String, Object> response = new HashMap<>();
+
+        if (!checkAdminLogin(request)) {
+            response.put("success", false);
+            response.put("message", "未授权访问");
+            return ResponseEntity.status(401).body(response);
+        }
+
+        response.put("success", true);
+        if (runId != null) {
+            response.put("data", syncRunService.getCheckpoints(runId));
+        } else {
+            response.put("data", syncRunService.getRecentRuns(20));
+        }
+        return ResponseEntity.ok(response);
+    }
+
+    /**
+     * 地点刷新计划接口
+     */
+    @GetMapping("/weather/refresh-schedule")
+    @ApiOperation(value = "地点刷新计划", notes = "返回每个地点的刷新间隔、调整原因和下次到期时间")
+    public ResponseEntity<Map<String, Object>> getRefreshSchedule(HttpServletRequest request) {
+        Map<String, Object> response = new HashMap<>();
+
+        if (!checkAdminLogin(request)) {
+            response.put("success", false);
+            response.put("message", "未授权访问");
+            return ResponseEntity.status(401).body(response);
+        }
+
+        response.put("success", true);
+        response.put("data", locationRefreshScheduler.getSchedules());
+        return ResponseEntity.ok(response);
+    }
+
+    /**
+     * 和风天气调用配额接口
+     */
+    @GetMapping("/qweather/quota")
+    @ApiOperation(value = "和风天气调用配额", notes = "返回限流器当前速率、剩余令牌、当日剩余配额、429/5xx次数及熔断器状态")
+    public ResponseEntity<Map<String, Object>> getQWeatherQuota(HttpServletRequest request) {
+        Map<String, Object> response = new HashMap<>();
+
+        if (!checkAdminLogin(request)) {
+            response.put("success", false);
+            response.put("message", "未授权访问");
+            return ResponseEntity.status(401).body(response);
+        }
+
+        response.put("success", true);
+        Map<String, Object> data = new HashMap<>(qWeatherRateLimiter.getStatus());
+        data.put("circuitBreaker", qWeatherCircuitBreaker.getStatus());
+        response.put("data", data);
+        return ResponseEntity.ok(response);
+    }
+
+    /**
+     * 天气缓存统计接口
+     */
+    @GetMapping("/weather/cache-stats")
+    @ApiOperation(value = "天气缓存统计", notes = "返回实时天气和预报缓存的条目数、命中率、淘汰次数及同步写入触发的失效次数")
+    public ResponseEntity<Map<String, Object>> getWeatherCacheStats(HttpServletRequest request) {
+        Map<String, Object> response = new HashMap<>();
+
+        if (!checkAdminLogin(request)) {
+            response.put("success", false);
+            response.put("message", "未授权访问");
+            return ResponseEntity.status(401).body(response);
+        }
+
+        response.put("success", true);
+        response.put("data", weatherCacheService.getStats());
+        return ResponseEntity.ok(response);
+    }
+
     /**
      * 模拟发布天气预警接口
      */
@@ -1,25 +1,17 @@
 package com.hainan.weather.controller;
 
-import com.hainan.weather.entity.WeatherData;
-import com.hainan.weather.entity.WeatherWarning;
-import com.hainan.weather.entity.TrafficStatus;
-import com.hainan.weather.entity.AttractionStatus;
-import com.hainan.weather.entity.ComprehensiveWarning;
-import com.hainan.weather.service.WeatherService;
-import com.hainan.weather.service.WarningService;
-import com.hainan.weather.service.TrafficService;
-import com.hainan.weather.service.AttractionService;
+import com.hainan.weather.service.HomeSnapshotService;
 import io.swagger.annotations.Api;
 import io.swagger.annotations.ApiOperation;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
 
 import java.util.HashMap;
-import java.util.List;
 import java.util.Map;
 
 @RestController
@@ -29,59 +21,21 @@ import java.util.Map;
 public class HomeController {
 
     @Autowired
-    private WeatherService weatherService;
-
-    @Autowired
-    private WarningService warningService;
-
-    @Autowired
-    private TrafficService trafficService;
-
-    @Autowired
-    private AttractionService attractionService;
+    private HomeSnapshotService homeSnapshotService;
 
     /**
-     * 系统首页数据接口
+     * 系统首页数据接口，直接返回预先序列化的首页快照
      */
     @GetMapping("/index")
     @ApiOperation(value = "获取首页数据", notes = "获取系统首页展示的所有数据")
-    public ResponseEntity<Map<String, Object>> index() {
-        Map<String, Object> response = new HashMap<>();
+    public ResponseEntity<?> index() {
         try {
-            // 获取四个城市的最新天气
-            WeatherData sanyaWeather = weatherService.getLatestWeather("SANYA");
-            WeatherData haikouWeather = weatherService.getLatestWeather("HAIKOU");
-            WeatherData dongfangWeather = weatherService.getLatestWeather("DONGFANG");
-            WeatherData qionghaiWeather = weatherService.getLatestWeather("QIONGHAI");
-
-            // 获取活跃的天气预警
-            List<WeatherWarning> activeWarnings = warningService.getActiveWeatherWarnings();
-
-            // 获取已发布的综合预警
-            List<ComprehensiveWarning> publishedWarnings = warningService.getPublishedComprehensiveWarnings();
-
-            // 获取异常交通状态
-            List<TrafficStatus> abnormalTraffic = trafficService.getAbnormalTrafficStatus();
-
-            // 获取关闭的景点
-            List<AttractionStatus> closedAttractions = attractionService.getClosedOrLimitedAttractions();
-
-            Map<String, Object> data = new HashMap<>();
-            data.put("sanyaWeather", sanyaWeather);
-            data.put("haikouWeather", haikouWeather);
-            data.put("dongfangWeather", dongfangWeather);
-            data.put("qionghaiWeather", qionghaiWeather);
-            data.put("activeWarnings", activeWarnings);
-            data.put("publishedWarnings", publishedWarnings);
-            data.put("abnormalTraffic", abnormalTraffic);
-            data.put("closedAttractions", closedAttractions);
-
-            response.put("success", true);
-            response.put("data", data);
-
-            return ResponseEntity.ok(response);
+            return ResponseEntity.ok()
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .body(homeSnapshotService.getSnapshot());
         } catch (Exception e) {
             log.error("获取首页数据失败", e);
+            Map<String, Object> response = new HashMap<>();
             response.put("success", false);
             response.put("message", "获取首页数据失败: " + e.getMessage());
             return ResponseEntity.status(500).body(response);
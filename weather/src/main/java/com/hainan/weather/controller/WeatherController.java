@@ -2,6 +2,10 @@ package com.hainan.weather.controller;
 
 import com.hainan.weather.entity.WeatherData;
 import com.hainan.weather.entity.WeatherForecast;
+import com.hainan.weather.entity.WeatherForecastHourly;
+import com.hainan.weather.entity.WeatherRollup;
+import com.hainan.weather.service.RecentObservationStore;
+import com.hainan.weather.service.WeatherRollupService;
 import com.hainan.weather.service.WeatherService;
 import com.hainan.weather.service.WarningService;
 import com.hainan.weather.entity.WeatherWarning;
@@ -31,6 +35,12 @@ public class WeatherController {
     @Autowired
     private WarningService warningService;
 
+    @Autowired
+    private WeatherRollupService weatherRollupService;
+
+    @Autowired
+    private RecentObservationStore recentObservationStore;
+
     /**
      * 实时天气查询接口
      */
@@ -89,16 +99,48 @@ public class WeatherController {
         }
     }
 
+    /**
+     * 逐小时天气预报接口
+     */
+    @GetMapping("/forecast/hourly")
+    @ApiOperation(value = "获取逐小时天气预报", notes = "根据地点获取未来24小时逐小时天气预报")
+    public ResponseEntity<Map<String, Object>> hourlyForecast(
+            @ApiParam(value = "地点代码，默认为三亚(SANYA)", defaultValue = "SANYA")
+            @RequestParam(defaultValue = "SANYA") String location) {
+
+        Map<String, Object> response = new HashMap<>();
+        try {
+            List<WeatherForecastHourly> forecasts = weatherService.getHourlyForecast(location, 24);
+
+            response.put("success", true);
+            response.put("data", Map.of(
+                "forecasts", forecasts != null ? forecasts : List.of(),
+                "location", location
+            ));
+
+            return ResponseEntity.ok(response);
+        } catch (Exception e) {
+            log.error("获取逐小时天气预报失败, location: {}", location, e);
+            response.put("success", false);
+            response.put("message", "获取逐小时天气预报失败: " + e.getMessage());
+            return ResponseEntity.status(500).body(response);
+        }
+    }
+
     /**
      * 历史天气查询接口
      */
     @GetMapping("/history")
-    @ApiOperation(value = "获取历史天气", notes = "根据地点和日期获取历史天气信息")
+    @ApiOperation(value = "获取历史天气", notes = "根据地点和日期获取历史天气汇总，跨度不超过2天时为逐小时汇总，否则为逐日汇总")
     public ResponseEntity<Map<String, Object>> weatherHistory(
             @ApiParam(value = "地点代码，默认为三亚(SANYA)", defaultValue = "SANYA")
             @RequestParam(defaultValue = "SANYA") String location,
             @ApiParam(value = "查询日期，格式为 yyyy-MM-dd")
-            @RequestParam(required = false) String date) {
+            @RequestParam(required = false) String date,
+            @ApiParam(value = "最近天数（含今天），默认7天", defaultValue = "7")
+            @RequestParam(defaultValue = "7") int days,
+            @ApiParam(value = "近期观测趋势的小时数，最多48小时，默认24小时", defaultValue = "24")
+            @RequestParam(defaultValue = "24") int hours) {
 
         Map<String, Object> response = new HashMap<>();
         try {
@@ -108,13 +150,18 @@ public class WeatherController {
 
             if (date != null && !date.isEmpty()) {
                 LocalDate queryDate = LocalDate.parse(date);
-                WeatherData historicalWeather = weatherService.getWeatherByDate(location, queryDate);
+                WeatherRollup historicalWeather = weatherRollupService.getDaily(location, queryDate);
                 data.put("historicalWeather", historicalWeather);
+                // 当天的原始观测，超过保留期的部分来自归档文件
+                data.put("observations", weatherService.getObservationsByDate(location, queryDate));
             }
 
-            // 获取最近7天的历史数据
-            List<WeatherData> recentWeather = weatherService.getHistoricalWeather(location, 7);
+            // 最近若干天的历史汇总，分辨率由跨度决定
+            List<WeatherRollup> recentWeather = weatherService.getHistoricalWeather(location, days);
             data.put("recentWeather", recentWeather);
+            data.put("days", days);
+            // 近期逐条观测来自内存缓冲区
+            data.put("recentSeries", recentObservationStore.getWindow(location, hours));
 
             response.put("success", true);
             response.put("data", data);
@@ -240,12 +287,14 @@ public class WeatherController {
      * 天气对比接口
      */
     @GetMapping("/compare")
-    @ApiOperation(value = "天气对比", notes = "比较两个地点的实时天气信息")
+    @ApiOperation(value = "天气对比", notes = "比较两个地点的实时天气和近期观测趋势")
     public ResponseEntity<Map<String, Object>> weatherCompare(
             @ApiParam(value = "地点1代码")
             @RequestParam(required = false) String location1,
             @ApiParam(value = "地点2代码")
-            @RequestParam(required = false) String location2) {
+            @RequestParam(required = false) String location2,
+            @ApiParam(value = "对比趋势的小时数，最多48小时，默认24小时", defaultValue = "24")
+            @RequestParam(defaultValue = "24") int hours) {
 
         Map<String, Object> response = new HashMap<>();
         try {
@@ -255,12 +304,14 @@ public class WeatherController {
                 WeatherData weather1 = weatherService.getLatestWeather(location1);
                 data.put("weather1", weather1);
                 data.put("location1", location1);
+                data.put("trend1", recentObservationStore.getWindow(location1, hours));
             }
 
             if (location2 != null && !location2.isEmpty()) {
                 WeatherData weather2 = weatherService.getLatestWeather(location2);
                 data.put("weather2", weather2);
                 data.put("location2", location2);
+                data.put("trend2", recentObservationStore.getWindow(location2, hours));
             }
 
             response.put("success", true);
@@ -0,0 +1,24 @@
+// src/main/java/com/hainan/weather/dto/RecentSeries.java
+package com.hainan.weather.dto;
+
+import lombok.Data;
+import java.time.LocalDateTime;
+
+/**
+ * 一个地点最近一段时间的观测序列，按列输出，数值缺失时为 NaN
+ */
+@Data
+public class RecentSeries {
+    private String locationCode;         // 地点编码
+    private LocalDateTime startTime;     // 第一条观测的更新时间
+    private int size;                    // 观测条数
+    private int[] offsetSeconds;         // 各条观测相对 startTime 的秒数
+    private float[] temperature;         // 温度
+    private float[] humidity;            // 湿度
+    private float[] windSpeed;           // 风速
+    private float[] precipitation;       // 降水量
+    private float[] pressure;            // 气压
+    private float[] visibility;          // 能见度
+    private String[] windDirection;      // 风向
+    private String[] weatherCondition;   // 天气状况
+}
@@ -0,0 +1,84 @@
+// src/main/java/com/hainan/weather/dto/StageMetrics.java
+package com.hainan.weather.dto;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import lombok.Data;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+@Data
+public class StageMetrics {
+    private String stage;                            // 阶段名称
+    private int workers;                             // 工作线程数
+    private int queueCapacity;                       // 输入队列容量
+    private AtomicLong processed = new AtomicLong(); // 已处理条数
+    private AtomicInteger maxQueueDepth = new AtomicInteger(); // 输入队列最大深度
+
+    @JsonIgnore
+    private AtomicLong busyNanos = new AtomicLong(); // 各线程实际工作时间之和
+    @JsonIgnore
+    private volatile long startNanos = System.nanoTime();
+    @JsonIgnore
+    private volatile long endNanos;
+    @JsonIgnore
+    private volatile BlockingQueue<?> inputQueue;
+
+    public StageMetrics(String stage, int workers, BlockingQueue<?> inputQueue) {
+        this.stage = stage;
+        this.workers = workers;
+        this.inputQueue = inputQueue;
+        this.queueCapacity = inputQueue != null ? inputQueue.size() + inputQueue.remainingCapacity() : 0;
+    }
+
+    /**
+     * 记录一次处理耗时
+     */
+    public void recordWork(long nanos) {
+        processed.incrementAndGet();
+        busyNanos.addAndGet(nanos);
+    }
+
+    /**
+     * 向输入队列放入元素后采样队列深度
+     */
+    public void sampleQueueDepth() {
+        if (inputQueue != null) {
+            maxQueueDepth.accumulateAndGet(inputQueue.size(), Math::max);
+        }
+    }
+
+    public void finish() {
+        endNanos = System.nanoTime();
+    }
+
+    public int getQueueDepth() {
+        return inputQueue != null ? inputQueue.size() : 0;
+    }
+
+    public long getBusyMs() {
+        return TimeUnit.NANOSECONDS.toMillis(busyNanos.get());
+    }
+
+    public long getElapsedMs() {
+        long end = endNanos > 0 ? endNanos : System.nanoTime();
+        return TimeUnit.NANOSECONDS.toMillis(end - startNanos);
+    }
+
+    /**
+     * 每秒处理条数
+     */
+    public double getThroughputPerSecond() {
+        long elapsedMs = getElapsedMs();
+        return elapsedMs > 0 ? Math.round(processed.get() * 10000.0 / elapsedMs) / 10.0 : 0;
+    }
+
+    /**
+     * 线程利用率（百分比），接近100的阶段即为瓶颈
+     */
+    public int getUtilization() {
+        long capacityNanos = TimeUnit.MILLISECONDS.toNanos(getElapsedMs()) * Math.max(1, workers);
+        return capacityNanos > 0 ? (int) Math.min(100, busyNanos.get() * 100 / capacityNanos) : 0;
+    }
+}
@@ -0,0 +1,56 @@
+// src/main/java/com/hainan/weather/dto/SyncJob.java
+package com.hainan.weather.dto;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import lombok.Data;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+
+@Data
+public class SyncJob {
+    public static final String STATUS_PENDING = "PENDING";
+    public static final String STATUS_RUNNING = "RUNNING";
+    public static final String STATUS_SUCCESS = "SUCCESS";
+    public static final String STATUS_FAILED = "FAILED";
+
+    private String jobId;                            // 任务ID
+    private String source;                           // 首次触发来源（ADMIN、SCHEDULE等）
+    private boolean force;                           // 是否强制同步全部地点
+    private volatile String status = STATUS_PENDING; // 任务状态
+    private LocalDateTime submitTime;                // 提交时间
+    private volatile boolean queued;                 // 是否排队等待运行中的非强制任务结束
+    private AtomicInteger triggerCount = new AtomicInteger(1); // 合并到本任务的触发次数
+    private String errorMessage;                     // 整体失败原因
+    private SyncReport report = new SyncReport();    // 同步报告，运行中实时更新
+
+    @JsonIgnore
+    private CompletableFuture<SyncReport> future = new CompletableFuture<>();
+
+    public boolean isFinished() {
+        return STATUS_SUCCESS.equals(status) || STATUS_FAILED.equals(status);
+    }
+
+    /**
+     * 完成进度百分比
+     */
+    public int getProgress() {
+        if (isFinished()) {
+            return 100;
+        }
+        int total = report.getTotalLocations();
+        return total > 0 ? report.getProcessedLocations().get() * 100 / total : 0;
+    }
+
+    /**
+     * 已耗时（毫秒），运行中按当前时间计算
+     */
+    public long getElapsedMs() {
+        if (isFinished()) {
+            return report.getDurationMs();
+        }
+        LocalDateTime start = report.getStartTime();
+        return start != null ? Duration.between(start, LocalDateTime.now()).toMillis() : 0;
+    }
+}
@@ -0,0 +1,33 @@
+// src/main/java/com/hainan/weather/dto/SyncReport.java
+package com.hainan.weather.dto;
+
+import lombok.Data;
+import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+@Data
+public class SyncReport {
+    private Long runId;                              // 同步运行记录ID
+    private boolean resumed;                         // 是否为续跑的中断运行
+    private LocalDateTime startTime;                 // 开始时间
+    private LocalDateTime endTime;                   // 结束时间
+    private long durationMs;                         // 耗时（毫秒）
+    private int totalLocations;                      // 需要同步的地点数
+    private AtomicInteger processedLocations = new AtomicInteger(); // 已处理地点数
+    private AtomicInteger weatherCount = new AtomicInteger();       // 新增天气数据条数
+    private AtomicInteger warningCount = new AtomicInteger();       // 新增预警条数
+    private AtomicInteger alertRequests = new AtomicInteger();      // 实际发出的预警请求数（按地理网格合并后）
+    private AtomicInteger forecastCount = new AtomicInteger();      // 写入的逐日和逐小时预报条数
+    private Map<String, String> failures = new ConcurrentHashMap<>(); // 失败地点 locationCode -> 原因
+    private volatile Map<String, StageMetrics> stages = new LinkedHashMap<>(); // 流水线各阶段指标 fetch/decode/persist
+
+    /**
+     * 记录单个地点的失败原因（同一地点多次失败时合并）
+     */
+    public void addFailure(String locationCode, String reason) {
+        failures.merge(locationCode, reason, (a, b) -> a + "; " + b);
+    }
+}
@@ -0,0 +1,28 @@
+// src/main/java/com/hainan/weather/dto/TablePartition.java
+package com.hainan.weather.dto;
+
+import lombok.Data;
+
+import java.time.LocalDate;
+
+@Data
+public class TablePartition {
+    /**
+     * MySQL中 TO_DAYS('1970-01-01') 的值，用于把分区上界换算为日期
+     */
+    private static final long EPOCH_TO_DAYS = 719528;
+
+    private String partitionName;        // 分区名称，逐月分区为 pyyyyMM
+    private String partitionDescription; // 分区上界，TO_DAYS 的值或 MAXVALUE
+    private Long tableRows;              // 估算行数
+
+    /**
+     * 分区上界（不含），MAXVALUE 分区返回null
+     */
+    public LocalDate getUpperBound() {
+        if (partitionDescription == null || "MAXVALUE".equalsIgnoreCase(partitionDescription)) {
+            return null;
+        }
+        return LocalDate.ofEpochDay(Long.parseLong(partitionDescription.trim()) - EPOCH_TO_DAYS);
+    }
+}
@@ -0,0 +1,15 @@
+// src/main/java/com/hainan/weather/entity/SyncCheckpoint.java
+package com.hainan.weather.entity;
+
+import lombok.Data;
+import java.time.LocalDateTime;
+
+@Data
+public class SyncCheckpoint {
+    private Long runId;
+    private String locationCode;
+    private String status;               // PENDING, DONE, FAILED
+    private Integer attempts;            // 尝试次数
+    private String message;              // 失败原因
+    private LocalDateTime updateTime;    // 更新时间
+}
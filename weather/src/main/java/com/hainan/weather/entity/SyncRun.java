@@ -0,0 +1,18 @@
+// src/main/java/com/hainan/weather/entity/SyncRun.java
+package com.hainan.weather.entity;
+
+import lombok.Data;
+import java.time.LocalDateTime;
+
+@Data
+public class SyncRun {
+    private Long id;
+    private String source;               // 触发来源
+    private Boolean forceAll;            // 是否同步全部地点
+    private String status;               // RUNNING, COMPLETED, ABANDONED
+    private Integer totalLocations;      // 本次需要同步的地点数
+    private Integer completedLocations;  // 已完成的地点数
+    private LocalDateTime startTime;     // 开始时间
+    private LocalDateTime endTime;       // 结束时间
+    private String message;              // 结束说明
+}
@@ -20,4 +20,5 @@ public class WeatherData {
     private BigDecimal visibility;       // 能见度
     private LocalDateTime updateTime;    // 更新时间
     private LocalDate dataDate;          // 数据日期
+    private Boolean stale;               // 数据是否过期（非数据库字段，上游不可用或数据过旧时为true）
 }
\ No newline at end of file
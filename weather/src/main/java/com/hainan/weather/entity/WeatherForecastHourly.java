@@ -0,0 +1,22 @@
+// src/main/java/com/hainan/weather/entity/WeatherForecastHourly.java
+package com.hainan.weather.entity;
+
+import lombok.Data;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+@Data
+public class WeatherForecastHourly {
+    private Long id;
+    private String locationCode;
+    private LocalDateTime forecastTime;  // 预报时间（整点）
+    private BigDecimal temperature;      // 温度
+    private String weatherCondition;     // 天气状况
+    private String windDirection;        // 风向
+    private BigDecimal windSpeed;        // 风速
+    private BigDecimal humidity;         // 湿度
+    private BigDecimal precipitation;    // 降水量
+    private BigDecimal precipitationProb; // 降水概率
+    private BigDecimal pressure;         // 气压
+    private LocalDateTime createdTime;   // 创建时间
+}
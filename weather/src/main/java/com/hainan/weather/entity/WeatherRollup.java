@@ -0,0 +1,25 @@
+// src/main/java/com/hainan/weather/entity/WeatherRollup.java
+package com.hainan.weather.entity;
+
+import lombok.Data;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+@Data
+public class WeatherRollup {
+    public static final String HOURLY = "HOURLY";
+    public static final String DAILY = "DAILY";
+
+    private String locationCode;
+    private String resolution;              // HOURLY 或 DAILY，不入库，由查询方设置
+    private LocalDateTime bucketStart;      // 时段起点（整点或当日0点）
+    private Integer sampleCount;            // 时段内的观测条数
+    private BigDecimal minTemperature;      // 最低温度
+    private BigDecimal maxTemperature;      // 最高温度
+    private BigDecimal avgTemperature;      // 平均温度
+    private BigDecimal totalPrecipitation;  // 降水量合计
+    private BigDecimal maxWindSpeed;        // 最大风速
+    private BigDecimal avgHumidity;         // 平均湿度
+    private String weatherCondition;        // 时段内最后一次观测的天气状况
+    private LocalDateTime updatedTime;      // 最近一次重算时间
+}
@@ -0,0 +1,47 @@
+package com.hainan.weather.event;
+
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * 业务数据变更事件，由各服务在写入成功后发布；
+ * 监听者使用 @TransactionalEventListener，在事务提交后才刷新派生的缓存和快照，回滚的写入不会触发
+ */
+public class DataChangeEvent {
+
+    public enum Type {
+        WEATHER,                // 实时天气观测
+        WEATHER_WARNING,        // 天气预警
+        COMPREHENSIVE_WARNING,  // 综合预警
+        TRAFFIC,                // 交通状态
+        ATTRACTION              // 景点状态
+    }
+
+    private final Type type;
+    private final Collection<String> locationCodes;
+
+    public DataChangeEvent(Type type) {
+        this(type, List.of());
+    }
+
+    /**
+     * @param locationCodes 涉及的地点编码，为空表示不区分地点
+     */
+    public DataChangeEvent(Type type, Collection<String> locationCodes) {
+        this.type = type;
+        this.locationCodes = locationCodes;
+    }
+
+    public Type getType() {
+        return type;
+    }
+
+    public Collection<String> getLocationCodes() {
+        return locationCodes;
+    }
+
+    @Override
+    public String toString() {
+        return "DataChangeEvent{type=" + type + ", locations=" + locationCodes.size() + "}";
+    }
+}
@@ -0,0 +1,30 @@
+package com.hainan.weather.event;
+
+import java.util.Collection;
+
+/**
+ * 天气预警到期事件，由 WarningExpiryService 在时间轮到期时发布；
+ * 作为 WEATHER_WARNING 类型的 DataChangeEvent，监听数据变更的缓存和快照同样会收到
+ */
+public class WarningExpiredEvent extends DataChangeEvent {
+
+    private final Collection<Long> warningIds;
+
+    /**
+     * @param warningIds    到期的预警ID
+     * @param locationCodes 到期预警所在的地点编码
+     */
+    public WarningExpiredEvent(Collection<Long> warningIds, Collection<String> locationCodes) {
+        super(Type.WEATHER_WARNING, locationCodes);
+        this.warningIds = warningIds;
+    }
+
+    public Collection<Long> getWarningIds() {
+        return warningIds;
+    }
+
+    @Override
+    public String toString() {
+        return "WarningExpiredEvent{warnings=" + warningIds.size() + ", locations=" + getLocationCodes().size() + "}";
+    }
+}
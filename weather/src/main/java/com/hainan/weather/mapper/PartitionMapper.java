@@ -0,0 +1,31 @@
+package com.hainan.weather.mapper;
+
+import com.hainan.weather.dto.TablePartition;
+import org.apache.ibatis.annotations.*;
+
+import java.util.List;
+
+/**
+ * 按日期范围分区的表的分区维护，表名和分区名由 PartitionMaintenanceService 生成，不接受外部输入
+ */
+@Mapper
+public interface PartitionMapper {
+
+    @Select("SELECT PARTITION_NAME, PARTITION_DESCRIPTION, TABLE_ROWS FROM information_schema.PARTITIONS " +
+            "WHERE TABLE_SCHEMA = DATABASE() AND TABLE_NAME = #{table} AND PARTITION_NAME IS NOT NULL " +
+            "ORDER BY PARTITION_ORDINAL_POSITION")
+    List<TablePartition> findPartitions(@Param("table") String table);
+
+    /**
+     * 从 p_future 中拆出新的分区，p_future 通常为空，拆分只修改元数据
+     */
+    @Update("ALTER TABLE ${table} REORGANIZE PARTITION p_future INTO " +
+            "(${definitions}, PARTITION p_future VALUES LESS THAN MAXVALUE)")
+    int splitFuturePartition(@Param("table") String table, @Param("definitions") String definitions);
+
+    @Update("ALTER TABLE ${table} DROP PARTITION ${partitions}")
+    int dropPartitions(@Param("table") String table, @Param("partitions") String partitions);
+
+    @Update("ALTER TABLE ${table} TRUNCATE PARTITION ${partition}")
+    int truncatePartition(@Param("table") String table, @Param("partition") String partition);
+}
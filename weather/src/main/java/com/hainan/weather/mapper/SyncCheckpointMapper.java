@@ -0,0 +1,39 @@
+package com.hainan.weather.mapper;
+
+import com.hainan.weather.entity.SyncCheckpoint;
+import org.apache.ibatis.annotations.*;
+
+import java.util.List;
+
+@Mapper
+public interface SyncCheckpointMapper {
+
+    @Select("SELECT location_code FROM sync_checkpoint WHERE run_id = #{runId} AND status = 'PENDING'")
+    List<String> findPendingLocationCodes(@Param("runId") Long runId);
+
+    @Select("SELECT * FROM sync_checkpoint WHERE run_id = #{runId} ORDER BY location_code")
+    List<SyncCheckpoint> findByRunId(@Param("runId") Long runId);
+
+    @Insert("<script>" +
+            "INSERT INTO sync_checkpoint(run_id, location_code, status, attempts, update_time) VALUES " +
+            "<foreach collection='locationCodes' item='code' separator=','>" +
+            "(#{runId}, #{code}, 'PENDING', 0, NOW())" +
+            "</foreach>" +
+            "</script>")
+    int batchInsertPending(@Param("runId") Long runId, @Param("locationCodes") List<String> locationCodes);
+
+    /**
+     * 批量更新一组地点的检查点状态
+     */
+    @Update("<script>" +
+            "UPDATE sync_checkpoint SET status = #{status}, attempts = attempts + 1, update_time = NOW() " +
+            "WHERE run_id = #{runId} AND location_code IN " +
+            "<foreach collection='locationCodes' item='code' open='(' separator=',' close=')'>#{code}</foreach>" +
+            "</script>")
+    int updateStatus(@Param("runId") Long runId, @Param("locationCodes") List<String> locationCodes,
+                     @Param("status") String status);
+
+    @Update("UPDATE sync_checkpoint SET message = #{message} WHERE run_id = #{runId} AND location_code = #{locationCode}")
+    int updateMessage(@Param("runId") Long runId, @Param("locationCode") String locationCode,
+                      @Param("message") String message);
+}
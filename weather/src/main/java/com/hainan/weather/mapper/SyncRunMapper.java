@@ -0,0 +1,32 @@
+package com.hainan.weather.mapper;
+
+import com.hainan.weather.entity.SyncRun;
+import org.apache.ibatis.annotations.*;
+
+import java.util.List;
+
+@Mapper
+public interface SyncRunMapper {
+
+    @Select("SELECT * FROM sync_run WHERE id = #{id}")
+    SyncRun findById(@Param("id") Long id);
+
+    @Select("SELECT * FROM sync_run WHERE status = 'RUNNING' ORDER BY id DESC LIMIT 1")
+    SyncRun findLatestRunning();
+
+    @Select("SELECT * FROM sync_run ORDER BY id DESC LIMIT #{limit}")
+    List<SyncRun> findRecent(@Param("limit") int limit);
+
+    @Insert("INSERT INTO sync_run(source, force_all, status, total_locations, completed_locations, start_time) " +
+            "VALUES(#{source}, #{forceAll}, 'RUNNING', #{totalLocations}, 0, NOW())")
+    @Options(useGeneratedKeys = true, keyProperty = "id")
+    int insert(SyncRun syncRun);
+
+    @Update("UPDATE sync_run SET completed_locations = " +
+            "(SELECT COUNT(*) FROM sync_checkpoint WHERE run_id = #{id} AND status <> 'PENDING') " +
+            "WHERE id = #{id}")
+    int refreshProgress(@Param("id") Long id);
+
+    @Update("UPDATE sync_run SET status = #{status}, end_time = NOW(), message = #{message} WHERE id = #{id}")
+    int finish(@Param("id") Long id, @Param("status") String status, @Param("message") String message);
+}
@@ -4,44 +4,95 @@ import com.hainan.weather.entity.WeatherData;
 import org.apache.ibatis.annotations.*;
 
 import java.time.LocalDate;
+import java.time.LocalDateTime;
 import java.util.List;
 
 @Mapper
 public interface WeatherDataMapper {
 
+    String UPSERT_COLUMNS = "ON DUPLICATE KEY UPDATE " +
+            "temperature = new.temperature, humidity = new.humidity, wind_speed = new.wind_speed, " +
+            "wind_direction = new.wind_direction, precipitation = new.precipitation, " +
+            "weather_condition = new.weather_condition, pressure = new.pressure, " +
+            "visibility = new.visibility, data_date = new.data_date";
+
     @Select("SELECT * FROM weather_data WHERE id = #{id}")
     WeatherData findById(@Param("id") Long id);
 
     @Select("SELECT * FROM weather_data WHERE location_code = #{locationCode} ORDER BY update_time DESC LIMIT 1")
     WeatherData findLatestByLocationCode(@Param("locationCode") String locationCode);
 
-    @Select("SELECT * FROM weather_data WHERE location_code = #{locationCode} AND data_date = #{date}")
-    WeatherData findByLocationAndDate(@Param("locationCode") String locationCode,
-                                      @Param("date") LocalDate date);
+    /**
+     * 取某一天最后一条观测；weather_data 按 update_time 分区，日期条件换算为 update_time 区间才能裁剪分区
+     */
+    @Select("SELECT * FROM weather_data WHERE location_code = #{locationCode} " +
+            "AND update_time >= #{from} AND update_time < #{to} ORDER BY update_time DESC LIMIT 1")
+    WeatherData findLatestBetween(@Param("locationCode") String locationCode,
+                                  @Param("from") LocalDateTime from,
+                                  @Param("to") LocalDateTime to);
 
     @Select("SELECT * FROM weather_data WHERE location_code = #{locationCode} ORDER BY data_date DESC LIMIT #{limit}")
     List<WeatherData> findRecentByLocation(@Param("locationCode") String locationCode,
                                            @Param("limit") int limit);
 
+    /**
+     * 查询 [startDate, endDate] 的观测，按 update_time 区间过滤以裁剪分区
+     */
     @Select("SELECT * FROM weather_data WHERE location_code = #{locationCode} " +
-            "AND data_date BETWEEN #{startDate} AND #{endDate} ORDER BY data_date DESC")
+            "AND update_time >= #{startDate} AND update_time < DATE_ADD(#{endDate}, INTERVAL 1 DAY) " +
+            "ORDER BY update_time DESC")
     List<WeatherData> findByDateRange(@Param("locationCode") String locationCode,
                                       @Param("startDate") LocalDate startDate,
                                       @Param("endDate") LocalDate endDate);
 
-    @Select("SELECT * FROM weather_data WHERE data_date = #{date}")
+    @Select("SELECT * FROM weather_data WHERE update_time >= #{date} AND update_time < DATE_ADD(#{date}, INTERVAL 1 DAY)")
     List<WeatherData> findByDate(@Param("date") LocalDate date);
 
     @Select("SELECT * FROM weather_data ORDER BY update_time DESC")
     List<WeatherData> findAll();
 
+    /**
+     * 按 (location_code, update_time) 索引查询 [from, to) 内的观测，按时间升序
+     */
+    @Select("SELECT * FROM weather_data WHERE location_code = #{locationCode} " +
+            "AND update_time >= #{from} AND update_time < #{to} ORDER BY update_time ASC")
+    List<WeatherData> findByLocationBetween(@Param("locationCode") String locationCode,
+                                            @Param("from") LocalDateTime from,
+                                            @Param("to") LocalDateTime to);
+
+    @Select("SELECT MIN(update_time) FROM weather_data WHERE location_code = #{locationCode}")
+    LocalDateTime findEarliestUpdateTime(@Param("locationCode") String locationCode);
+
+    @Delete("<script>" +
+            "DELETE FROM weather_data WHERE id IN " +
+            "<foreach collection='ids' item='id' open='(' separator=',' close=')'>#{id}</foreach>" +
+            "</script>")
+    int deleteByIds(@Param("ids") List<Long> ids);
+
+    /**
+     * 按 (location_code, update_time) 幂等写入，同一条上游观测重复同步时只覆盖原行；
+     * LAST_INSERT_ID(id) 使走更新路径时回填的也是原行的主键
+     */
     @Insert("INSERT INTO weather_data(location_code, temperature, humidity, wind_speed, wind_direction, " +
             "precipitation, weather_condition, pressure, visibility, update_time, data_date) " +
             "VALUES(#{locationCode}, #{temperature}, #{humidity}, #{windSpeed}, #{windDirection}, " +
-            "#{precipitation}, #{weatherCondition}, #{pressure}, #{visibility}, NOW(), #{dataDate})")
+            "#{precipitation}, #{weatherCondition}, #{pressure}, #{visibility}, COALESCE(#{updateTime}, NOW()), #{dataDate}) " +
+            "AS new " + UPSERT_COLUMNS + ", id = LAST_INSERT_ID(id)")
     @Options(useGeneratedKeys = true, keyProperty = "id")
     int insert(WeatherData weatherData);
 
+    @Insert("<script>" +
+            "INSERT INTO weather_data(location_code, temperature, humidity, wind_speed, wind_direction, " +
+            "precipitation, weather_condition, pressure, visibility, update_time, data_date) VALUES " +
+            "<foreach collection='list' item='item' separator=','>" +
+            "(#{item.locationCode}, #{item.temperature}, #{item.humidity}, #{item.windSpeed}, #{item.windDirection}, " +
+            "#{item.precipitation}, #{item.weatherCondition}, #{item.pressure}, #{item.visibility}, " +
+            "COALESCE(#{item.updateTime}, NOW()), #{item.dataDate})" +
+            "</foreach> " +
+            "AS new " + UPSERT_COLUMNS +
+            "</script>")
+    int batchInsert(List<WeatherData> weatherDataList);
+
     @Update("UPDATE weather_data SET " +
             "temperature = #{temperature}, " +
             "humidity = #{humidity}, " +
@@ -50,8 +101,7 @@ public interface WeatherDataMapper {
             "precipitation = #{precipitation}, " +
             "weather_condition = #{weatherCondition}, " +
             "pressure = #{pressure}, " +
-            "visibility = #{visibility}, " +
-            "update_time = NOW() " +
+            "visibility = #{visibility} " +
             "WHERE id = #{id}")
     int update(WeatherData weatherData);
 
@@ -0,0 +1,39 @@
+package com.hainan.weather.mapper;
+
+import com.hainan.weather.entity.WeatherForecastHourly;
+import org.apache.ibatis.annotations.*;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Mapper
+public interface WeatherForecastHourlyMapper {
+
+    @Select("SELECT * FROM weather_forecast_hourly WHERE location_code = #{locationCode} " +
+            "AND forecast_time >= #{from} ORDER BY forecast_time ASC LIMIT #{limit}")
+    List<WeatherForecastHourly> findUpcoming(@Param("locationCode") String locationCode,
+                                             @Param("from") LocalDateTime from,
+                                             @Param("limit") int limit);
+
+    /**
+     * 按 (location_code, forecast_time) 批量写入，已有的整点预报被新一轮预报覆盖
+     */
+    @Insert("<script>" +
+            "INSERT INTO weather_forecast_hourly(location_code, forecast_time, temperature, weather_condition, " +
+            "wind_direction, wind_speed, humidity, precipitation, precipitation_prob, pressure, created_time) VALUES " +
+            "<foreach collection='list' item='item' separator=','>" +
+            "(#{item.locationCode}, #{item.forecastTime}, #{item.temperature}, #{item.weatherCondition}, " +
+            "#{item.windDirection}, #{item.windSpeed}, #{item.humidity}, #{item.precipitation}, " +
+            "#{item.precipitationProb}, #{item.pressure}, NOW())" +
+            "</foreach> " +
+            "AS new ON DUPLICATE KEY UPDATE " +
+            "temperature = new.temperature, weather_condition = new.weather_condition, " +
+            "wind_direction = new.wind_direction, wind_speed = new.wind_speed, humidity = new.humidity, " +
+            "precipitation = new.precipitation, precipitation_prob = new.precipitation_prob, " +
+            "pressure = new.pressure, created_time = new.created_time" +
+            "</script>")
+    int batchUpsert(List<WeatherForecastHourly> forecasts);
+
+    @Delete("DELETE FROM weather_forecast_hourly WHERE forecast_time < #{time}")
+    int deleteBefore(@Param("time") LocalDateTime time);
+}
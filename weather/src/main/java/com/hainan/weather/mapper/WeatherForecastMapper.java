@@ -13,7 +13,7 @@ public interface WeatherForecastMapper {
     WeatherForecast findById(@Param("id") Long id);
 
     @Select("SELECT * FROM weather_forecast WHERE location_code = #{locationCode} " +
-            "ORDER BY forecast_date ASC LIMIT 7")
+            "AND forecast_date >= CURDATE() ORDER BY forecast_date ASC LIMIT 7")
     List<WeatherForecast> findWeekForecast(@Param("locationCode") String locationCode);
 
     @Select("SELECT * FROM weather_forecast WHERE location_code = #{locationCode} " +
@@ -41,6 +41,24 @@ public interface WeatherForecastMapper {
     @Options(useGeneratedKeys = true, keyProperty = "id")
     int insert(WeatherForecast forecast);
 
+    /**
+     * 按 (location_code, forecast_date) 批量写入，同一天的旧预报被新一轮预报覆盖
+     */
+    @Insert("<script>" +
+            "INSERT INTO weather_forecast(location_code, forecast_date, high_temp, low_temp, " +
+            "day_condition, night_condition, wind_speed, humidity, precipitation_prob, created_time) VALUES " +
+            "<foreach collection='list' item='item' separator=','>" +
+            "(#{item.locationCode}, #{item.forecastDate}, #{item.highTemp}, #{item.lowTemp}, " +
+            "#{item.dayCondition}, #{item.nightCondition}, #{item.windSpeed}, #{item.humidity}, " +
+            "#{item.precipitationProb}, NOW())" +
+            "</foreach> " +
+            "AS new ON DUPLICATE KEY UPDATE " +
+            "high_temp = new.high_temp, low_temp = new.low_temp, day_condition = new.day_condition, " +
+            "night_condition = new.night_condition, wind_speed = new.wind_speed, humidity = new.humidity, " +
+            "precipitation_prob = new.precipitation_prob, created_time = new.created_time" +
+            "</script>")
+    int batchUpsert(List<WeatherForecast> forecasts);
+
     @Update("UPDATE weather_forecast SET " +
             "high_temp = #{highTemp}, " +
             "low_temp = #{lowTemp}, " +
@@ -0,0 +1,56 @@
+package com.hainan.weather.mapper;
+
+import com.hainan.weather.entity.WeatherData;
+import org.apache.ibatis.annotations.*;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * weather_latest 每个地点一行，保存 weather_data 中最新的一条观测，
+ * 实时天气查询只读本表，开销不随历史数据增长
+ */
+@Mapper
+public interface WeatherLatestMapper {
+
+    String COLUMNS = "location_code, weather_data_id, temperature, humidity, wind_speed, wind_direction, " +
+            "precipitation, weather_condition, pressure, visibility, update_time, data_date";
+
+    @Select("SELECT weather_data_id AS id, " + COLUMNS + " FROM weather_latest WHERE location_code = #{locationCode}")
+    WeatherData findByLocationCode(@Param("locationCode") String locationCode);
+
+    @Select("SELECT weather_data_id AS id, " + COLUMNS + " FROM weather_latest ORDER BY location_code")
+    List<WeatherData> findAll();
+
+    /**
+     * 从 weather_data 取各地点最新一条观测写入本表，只有更新时间不早于当前行时才覆盖；
+     * 各字段按顺序赋值，update_time 必须放在最后，前面的判断才能读到旧值；
+     * since 传入本批观测中最早的更新时间，weather_data 按更新时间分区，取最大值时只扫描 since 之后的分区
+     */
+    @Insert("<script>" +
+            "INSERT INTO weather_latest(" + COLUMNS + ") " +
+            "SELECT * FROM (" +
+            "SELECT w.location_code, w.id AS weather_data_id, w.temperature, w.humidity, w.wind_speed, " +
+            "w.wind_direction, w.precipitation, w.weather_condition, w.pressure, w.visibility, w.update_time, w.data_date " +
+            "FROM weather_data w JOIN (" +
+            "SELECT location_code, MAX(update_time) AS max_time FROM weather_data WHERE location_code IN " +
+            "<foreach collection='locationCodes' item='code' open='(' separator=',' close=')'>#{code}</foreach> " +
+            "<if test='since != null'>AND update_time &gt;= #{since} </if>" +
+            "GROUP BY location_code) m ON w.location_code = m.location_code AND w.update_time = m.max_time" +
+            ") AS dt " +
+            "ON DUPLICATE KEY UPDATE " +
+            "weather_data_id = IF(dt.update_time >= weather_latest.update_time, dt.weather_data_id, weather_latest.weather_data_id), " +
+            "temperature = IF(dt.update_time >= weather_latest.update_time, dt.temperature, weather_latest.temperature), " +
+            "humidity = IF(dt.update_time >= weather_latest.update_time, dt.humidity, weather_latest.humidity), " +
+            "wind_speed = IF(dt.update_time >= weather_latest.update_time, dt.wind_speed, weather_latest.wind_speed), " +
+            "wind_direction = IF(dt.update_time >= weather_latest.update_time, dt.wind_direction, weather_latest.wind_direction), " +
+            "precipitation = IF(dt.update_time >= weather_latest.update_time, dt.precipitation, weather_latest.precipitation), " +
+            "weather_condition = IF(dt.update_time >= weather_latest.update_time, dt.weather_condition, weather_latest.weather_condition), " +
+            "pressure = IF(dt.update_time >= weather_latest.update_time, dt.pressure, weather_latest.pressure), " +
+            "visibility = IF(dt.update_time >= weather_latest.update_time, dt.visibility, weather_latest.visibility), " +
+            "data_date = IF(dt.update_time >= weather_latest.update_time, dt.data_date, weather_latest.data_date), " +
+            "update_time = GREATEST(dt.update_time, weather_latest.update_time)" +
+            "</script>")
+    int refreshFromHistory(@Param("locationCodes") List<String> locationCodes,
+                           @Param("since") LocalDateTime since);
+}
@@ -0,0 +1,79 @@
+package com.hainan.weather.mapper;
+
+import com.hainan.weather.entity.WeatherRollup;
+import org.apache.ibatis.annotations.*;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * 逐小时和逐日汇总，按时段整段重算：先删除时段内的汇总再从下层数据重新聚合，重复执行结果不变
+ * 逐小时汇总来自 weather_data，降水取小时内最大值（实时接口的降水为过去1小时累计）；
+ * 逐日汇总来自逐小时汇总，降水为各小时之和，平均值按观测条数加权
+ */
+@Mapper
+public interface WeatherRollupMapper {
+
+    String LOCATION_IN = "<foreach collection='locationCodes' item='code' open='(' separator=',' close=')'>#{code}</foreach>";
+
+    @Select("SELECT * FROM weather_rollup_hourly WHERE location_code = #{locationCode} " +
+            "AND bucket_start >= #{from} AND bucket_start < #{to} ORDER BY bucket_start DESC")
+    List<WeatherRollup> findHourly(@Param("locationCode") String locationCode,
+                                   @Param("from") LocalDateTime from,
+                                   @Param("to") LocalDateTime to);
+
+    @Select("SELECT * FROM weather_rollup_daily WHERE location_code = #{locationCode} " +
+            "AND bucket_start >= #{from} AND bucket_start < #{to} ORDER BY bucket_start DESC")
+    List<WeatherRollup> findDaily(@Param("locationCode") String locationCode,
+                                  @Param("from") LocalDateTime from,
+                                  @Param("to") LocalDateTime to);
+
+    @Delete("<script>" +
+            "DELETE FROM weather_rollup_hourly WHERE location_code IN " + LOCATION_IN +
+            " AND bucket_start >= #{from} AND bucket_start &lt; #{to}" +
+            "</script>")
+    int deleteHourly(@Param("locationCodes") List<String> locationCodes,
+                     @Param("from") LocalDateTime from,
+                     @Param("to") LocalDateTime to);
+
+    @Insert("<script>" +
+            "INSERT INTO weather_rollup_hourly(location_code, bucket_start, sample_count, min_temperature, " +
+            "max_temperature, avg_temperature, total_precipitation, max_wind_speed, avg_humidity, " +
+            "weather_condition, updated_time) " +
+            "SELECT location_code, TIMESTAMP(DATE_FORMAT(update_time, '%Y-%m-%d %H:00:00')) AS bucket, COUNT(*), " +
+            "MIN(temperature), MAX(temperature), ROUND(AVG(temperature), 2), MAX(precipitation), MAX(wind_speed), " +
+            "ROUND(AVG(humidity), 2), " +
+            "SUBSTRING_INDEX(GROUP_CONCAT(weather_condition ORDER BY update_time DESC SEPARATOR '|'), '|', 1), NOW() " +
+            "FROM weather_data WHERE location_code IN " + LOCATION_IN +
+            " AND update_time >= #{from} AND update_time &lt; #{to} " +
+            "GROUP BY location_code, bucket" +
+            "</script>")
+    int insertHourly(@Param("locationCodes") List<String> locationCodes,
+                     @Param("from") LocalDateTime from,
+                     @Param("to") LocalDateTime to);
+
+    @Delete("<script>" +
+            "DELETE FROM weather_rollup_daily WHERE location_code IN " + LOCATION_IN +
+            " AND bucket_start >= #{from} AND bucket_start &lt; #{to}" +
+            "</script>")
+    int deleteDaily(@Param("locationCodes") List<String> locationCodes,
+                    @Param("from") LocalDateTime from,
+                    @Param("to") LocalDateTime to);
+
+    @Insert("<script>" +
+            "INSERT INTO weather_rollup_daily(location_code, bucket_start, sample_count, min_temperature, " +
+            "max_temperature, avg_temperature, total_precipitation, max_wind_speed, avg_humidity, " +
+            "weather_condition, updated_time) " +
+            "SELECT location_code, TIMESTAMP(DATE(bucket_start)) AS bucket, SUM(sample_count), " +
+            "MIN(min_temperature), MAX(max_temperature), " +
+            "ROUND(SUM(avg_temperature * sample_count) / SUM(sample_count), 2), SUM(total_precipitation), " +
+            "MAX(max_wind_speed), ROUND(SUM(avg_humidity * sample_count) / SUM(sample_count), 2), " +
+            "SUBSTRING_INDEX(GROUP_CONCAT(weather_condition ORDER BY bucket_start DESC SEPARATOR '|'), '|', 1), NOW() " +
+            "FROM weather_rollup_hourly WHERE location_code IN " + LOCATION_IN +
+            " AND bucket_start >= #{from} AND bucket_start &lt; #{to} " +
+            "GROUP BY location_code, bucket" +
+            "</script>")
+    int insertDaily(@Param("locationCodes") List<String> locationCodes,
+                    @Param("from") LocalDateTime from,
+                    @Param("to") LocalDateTime to);
+}
@@ -6,6 +6,11 @@ import org.apache.ibatis.annotations.*;
 import java.time.LocalDateTime;
 import java.util.List;
 
+/**
+ * 预警到期时由 WarningExpiryService 及时置为 EXPIRED，活跃预警的查询只按 status 过滤，走 (status, expire_time) 索引；
+ * weather_warnings 按失效时间逐月分区，过期相关的更新带 expire_time 条件，当前时间由调用方传入而不用 NOW()，
+ * 查询条件是常量时MySQL才能在执行前裁剪分区
+ */
 @Mapper
 public interface WeatherWarningMapper {
 
@@ -13,10 +18,10 @@ public interface WeatherWarningMapper {
     WeatherWarning findById(@Param("id") Long id);
 
     @Select("SELECT * FROM weather_warnings WHERE location_code = #{locationCode} " +
-            "AND status = 'ACTIVE' AND expire_time > NOW() ORDER BY issue_time DESC")
+            "AND status = 'ACTIVE' ORDER BY issue_time DESC")
     List<WeatherWarning> findActiveByLocation(@Param("locationCode") String locationCode);
 
-    @Select("SELECT * FROM weather_warnings WHERE status = 'ACTIVE' AND expire_time > NOW() " +
+    @Select("SELECT * FROM weather_warnings WHERE status = 'ACTIVE' " +
             "ORDER BY warning_level DESC, issue_time DESC")
     List<WeatherWarning> findAllActive();
 
@@ -25,11 +30,11 @@ public interface WeatherWarningMapper {
     List<WeatherWarning> findByLocationCode(@Param("locationCode") String locationCode);
 
     @Select("SELECT * FROM weather_warnings WHERE warning_type = #{warningType} " +
-            "AND status = 'ACTIVE' AND expire_time > NOW() ORDER BY issue_time DESC")
+            "AND status = 'ACTIVE' ORDER BY issue_time DESC")
     List<WeatherWarning> findActiveByType(@Param("warningType") String warningType);
 
     @Select("SELECT * FROM weather_warnings WHERE warning_level = #{warningLevel} " +
-            "AND status = 'ACTIVE' AND expire_time > NOW() ORDER BY issue_time DESC")
+            "AND status = 'ACTIVE' ORDER BY issue_time DESC")
     List<WeatherWarning> findActiveByLevel(@Param("warningLevel") String warningLevel);
 
     @Select("SELECT * FROM weather_warnings WHERE status = #{status} ORDER BY issue_time DESC")
@@ -41,17 +46,28 @@ public interface WeatherWarningMapper {
     @Insert("INSERT INTO weather_warnings(location_code, warning_type, warning_level, title, content, " +
             "issue_time, effective_time, expire_time, status) " +
             "VALUES(#{locationCode}, #{warningType}, #{warningLevel}, #{title}, #{content}, " +
-            "#{issueTime}, #{effectiveTime}, #{expireTime}, #{status})")
+            "#{issueTime}, #{effectiveTime}, COALESCE(#{expireTime}, NOW()), #{status})")
     @Options(useGeneratedKeys = true, keyProperty = "id")
     int insert(WeatherWarning warning);
 
+    @Insert("<script>" +
+            "INSERT INTO weather_warnings(location_code, warning_type, warning_level, title, content, " +
+            "issue_time, effective_time, expire_time, status) VALUES " +
+            "<foreach collection='list' item='item' separator=','>" +
+            "(#{item.locationCode}, #{item.warningType}, #{item.warningLevel}, #{item.title}, #{item.content}, " +
+            "#{item.issueTime}, #{item.effectiveTime}, COALESCE(#{item.expireTime}, NOW()), #{item.status})" +
+            "</foreach>" +
+            "</script>")
+    @Options(useGeneratedKeys = true, keyProperty = "id")
+    int batchInsert(List<WeatherWarning> warnings);
+
     @Update("UPDATE weather_warnings SET " +
             "warning_type = #{warningType}, " +
             "warning_level = #{warningLevel}, " +
             "title = #{title}, " +
             "content = #{content}, " +
             "effective_time = #{effectiveTime}, " +
-            "expire_time = #{expireTime}, " +
+            "expire_time = COALESCE(#{expireTime}, expire_time), " +
             "status = #{status} " +
             "WHERE id = #{id}")
     int update(WeatherWarning warning);
@@ -59,12 +75,21 @@ public interface WeatherWarningMapper {
     @Update("UPDATE weather_warnings SET status = #{status} WHERE id = #{id}")
     int updateStatus(@Param("id") Long id, @Param("status") String status);
 
-    @Update("UPDATE weather_warnings SET status = 'EXPIRED' WHERE expire_time < NOW() AND status = 'ACTIVE'")
-    int updateExpiredWarnings();
+    @Update("UPDATE weather_warnings SET status = 'EXPIRED' WHERE expire_time < #{now} AND status = 'ACTIVE'")
+    int updateExpiredWarnings(@Param("now") LocalDateTime now);
+
+    /**
+     * 将时间轮中到期的预警置为过期，expire_time 条件防止覆盖期间被延期的预警
+     */
+    @Update("<script>" +
+            "UPDATE weather_warnings SET status = 'EXPIRED' WHERE status = 'ACTIVE' AND expire_time &lt;= #{now} " +
+            "AND id IN <foreach collection='ids' item='id' open='(' separator=',' close=')'>#{id}</foreach>" +
+            "</script>")
+    int expireByIds(@Param("ids") List<Long> ids, @Param("now") LocalDateTime now);
 
     @Delete("DELETE FROM weather_warnings WHERE id = #{id}")
     int delete(@Param("id") Long id);
 
-    @Select("SELECT COUNT(*) FROM weather_warnings WHERE status = 'ACTIVE' AND expire_time > NOW()")
+    @Select("SELECT COUNT(*) FROM weather_warnings WHERE status = 'ACTIVE'")
     int countActive();
 }
\ No newline at end of file
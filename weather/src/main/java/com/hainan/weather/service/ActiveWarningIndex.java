@@ -0,0 +1,301 @@
+package com.hainan.weather.service;
+
+import com.hainan.weather.entity.WeatherWarning;
+import com.hainan.weather.mapper.WeatherWarningMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * 生效天气预警的内存索引，按地点、类型、等级建二级索引，活跃预警的查询都从这里读取
+ * 首次读取时从数据库加载，之后由 WarningService 在写入提交后增量维护；
+ * 预警的失效时间登记在哈希时间轮中，由 WarningExpiryService 按刻度推进，到期即从索引中移除，读取时不再按时间过滤
+ */
+@Service
+@Slf4j
+public class ActiveWarningIndex {
+
+    /**
+     * 预警等级从高到低，未知等级排在最后
+     */
+    private static final List<String> LEVEL_ORDER = List.of("红色", "橙色", "黄色", "蓝色");
+
+    private static final Comparator<WeatherWarning> BY_ISSUE_TIME_DESC =
+            Comparator.comparing(WeatherWarning::getIssueTime, Comparator.nullsLast(Comparator.reverseOrder()));
+
+    private static final Comparator<WeatherWarning> BY_LEVEL_THEN_ISSUE_TIME =
+            Comparator.comparingInt(ActiveWarningIndex::levelRank).thenComparing(BY_ISSUE_TIME_DESC);
+
+    /**
+     * 时间轮刻度1秒，1024个槽约17分钟一圈
+     */
+    private static final long TICK_MILLIS = 1000;
+    private static final int WHEEL_SIZE = 1024;
+
+    @Autowired
+    private WeatherWarningMapper weatherWarningMapper;
+
+    /**
+     * 当前索引，每次变更整体替换，读取无需加锁；为null时表示尚未加载或已失效
+     */
+    private volatile Snapshot snapshot;
+
+    /**
+     * 登记在时间轮中的预警，包括加载时已过期但数据库中仍为 ACTIVE、等待置为过期的预警；与时间轮一起由 this 加锁
+     */
+    private final Map<Long, WeatherWarning> tracked = new HashMap<>();
+
+    private final HashedTimerWheel<Long> expiryWheel =
+            new HashedTimerWheel<>(TICK_MILLIS, WHEEL_SIZE, System.currentTimeMillis());
+
+    /**
+     * 所有生效预警，按等级从高到低、发布时间倒序
+     */
+    public List<WeatherWarning> findAll() {
+        return copy(loaded().all);
+    }
+
+    public List<WeatherWarning> findByLocation(String locationCode) {
+        return copy(loaded().byLocation.get(locationCode));
+    }
+
+    public List<WeatherWarning> findByType(String warningType) {
+        return copy(loaded().byType.get(warningType));
+    }
+
+    public List<WeatherWarning> findByLevel(String warningLevel) {
+        return copy(loaded().byLevel.get(warningLevel));
+    }
+
+    public int count() {
+        return loaded().all.size();
+    }
+
+    /**
+     * 新增或覆盖预警并重新登记失效时间，非生效状态或已过期的预警会从索引中移除；有预警缺少ID时改为下次读取时整体重新加载
+     */
+    public synchronized void put(Collection<WeatherWarning> warnings) {
+        Snapshot current = snapshot;
+        if (current == null) {
+            return;
+        }
+        Map<Long, WeatherWarning> byId = new LinkedHashMap<>(current.byId);
+        LocalDateTime now = LocalDateTime.now();
+        for (WeatherWarning warning : warnings) {
+            if (warning.getId() == null) {
+                snapshot = null;
+                return;
+            }
+            track(warning);
+            if (isActive(warning, now)) {
+                byId.put(warning.getId(), warning);
+            } else {
+                byId.remove(warning.getId());
+            }
+        }
+        snapshot = new Snapshot(byId);
+    }
+
+    public synchronized void remove(Collection<Long> ids) {
+        Snapshot current = snapshot;
+        if (current == null) {
+            return;
+        }
+        Map<Long, WeatherWarning> byId = new LinkedHashMap<>(current.byId);
+        for (Long id : ids) {
+            untrack(id);
+            byId.remove(id);
+        }
+        snapshot = new Snapshot(byId);
+    }
+
+    /**
+     * 推进时间轮，返回到期的预警并从索引中移除；索引未加载时不推进，加载时会重新登记
+     */
+    public synchronized List<WeatherWarning> expireDue(LocalDateTime now) {
+        Snapshot current = snapshot;
+        if (current == null) {
+            return List.of();
+        }
+        List<Long> ids = expiryWheel.advance(toMillis(now));
+        if (ids.isEmpty()) {
+            return List.of();
+        }
+        List<WeatherWarning> expired = new ArrayList<>(ids.size());
+        Map<Long, WeatherWarning> byId = new LinkedHashMap<>(current.byId);
+        for (Long id : ids) {
+            WeatherWarning warning = tracked.remove(id);
+            if (warning != null) {
+                expired.add(warning);
+            }
+            byId.remove(id);
+        }
+        snapshot = new Snapshot(byId);
+        return expired;
+    }
+
+    /**
+     * 数据库中已批量置为过期后调用，移除已过期的预警及其时间轮登记，返回移除的条数
+     */
+    public synchronized int removeExpired() {
+        Snapshot current = snapshot;
+        if (current == null) {
+            return 0;
+        }
+        LocalDateTime now = LocalDateTime.now();
+        List<Long> expiredIds = new ArrayList<>();
+        for (WeatherWarning warning : tracked.values()) {
+            if (!isActive(warning, now)) {
+                expiredIds.add(warning.getId());
+            }
+        }
+        for (Long id : expiredIds) {
+            untrack(id);
+        }
+        Snapshot pruned = Snapshot.of(current.byId.values(), now);
+        snapshot = pruned;
+        return current.byId.size() - pruned.byId.size();
+    }
+
+    /**
+     * 丢弃索引，下次读取时从数据库重新加载
+     */
+    public void invalidate() {
+        snapshot = null;
+    }
+
+    /**
+     * 立即从数据库重新加载索引和时间轮
+     */
+    public synchronized void reload() {
+        snapshot = null;
+        loaded();
+    }
+
+    /**
+     * 时间轮中等待到期的预警数
+     */
+    public synchronized int scheduledCount() {
+        return expiryWheel.size();
+    }
+
+    private Snapshot loaded() {
+        Snapshot current = snapshot;
+        if (current != null) {
+            return current;
+        }
+        synchronized (this) {
+            if (snapshot == null) {
+                LocalDateTime now = LocalDateTime.now();
+                List<WeatherWarning> warnings = weatherWarningMapper.findAllActive();
+                expiryWheel.clear();
+                tracked.clear();
+                for (WeatherWarning warning : warnings) {
+                    if (warning.getId() != null) {
+                        track(warning);
+                    }
+                }
+                snapshot = Snapshot.of(warnings, now);
+                log.info("已加载生效天气预警 {} 条，待置为过期 {} 条", snapshot.byId.size(),
+                        tracked.size() - snapshot.byId.size());
+            }
+            return snapshot;
+        }
+    }
+
+    /**
+     * 生效状态的预警按失效时间登记到时间轮，已过期的在下一个刻度到期；其余状态取消登记
+     */
+    private void track(WeatherWarning warning) {
+        if ("ACTIVE".equals(warning.getStatus()) && warning.getExpireTime() != null) {
+            tracked.put(warning.getId(), warning);
+            // 库中的 DATETIME 精确到秒，按整秒登记，到期时 expire_time <= now 的更新条件一定成立
+            expiryWheel.schedule(warning.getId(), toMillis(warning.getExpireTime().truncatedTo(ChronoUnit.SECONDS)));
+        } else {
+            untrack(warning.getId());
+        }
+    }
+
+    private void untrack(Long id) {
+        tracked.remove(id);
+        expiryWheel.cancel(id);
+    }
+
+    private static long toMillis(LocalDateTime time) {
+        return time.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+
+    private static List<WeatherWarning> copy(List<WeatherWarning> warnings) {
+        return warnings == null ? new ArrayList<>() : new ArrayList<>(warnings);
+    }
+
+    private static boolean isActive(WeatherWarning warning, LocalDateTime now) {
+        return "ACTIVE".equals(warning.getStatus()) && warning.getExpireTime() != null
+                && warning.getExpireTime().isAfter(now);
+    }
+
+    private static int levelRank(WeatherWarning warning) {
+        int rank = LEVEL_ORDER.indexOf(warning.getWarningLevel());
+        return rank >= 0 ? rank : LEVEL_ORDER.size();
+    }
+
+    private static final class Snapshot {
+        private final Map<Long, WeatherWarning> byId;
+        private final List<WeatherWarning> all;
+        private final Map<String, List<WeatherWarning>> byLocation;
+        private final Map<String, List<WeatherWarning>> byType;
+        private final Map<String, List<WeatherWarning>> byLevel;
+
+        private Snapshot(Map<Long, WeatherWarning> byId) {
+            this.byId = byId;
+            List<WeatherWarning> warnings = new ArrayList<>(byId.values());
+            warnings.sort(BY_ISSUE_TIME_DESC);
+            this.byLocation = group(warnings, WeatherWarning::getLocationCode);
+            this.byType = group(warnings, WeatherWarning::getWarningType);
+            this.byLevel = group(warnings, WeatherWarning::getWarningLevel);
+            warnings.sort(BY_LEVEL_THEN_ISSUE_TIME);
+            this.all = List.copyOf(warnings);
+        }
+
+        /**
+         * 用生效的预警构建索引，已过期的丢弃
+         */
+        private static Snapshot of(Collection<WeatherWarning> warnings, LocalDateTime now) {
+            Map<Long, WeatherWarning> byId = new LinkedHashMap<>();
+            for (WeatherWarning warning : warnings) {
+                if (warning.getId() != null && isActive(warning, now)) {
+                    byId.put(warning.getId(), warning);
+                }
+            }
+            return new Snapshot(byId);
+        }
+
+        /**
+         * 按键分组，组内保持传入的顺序（发布时间倒序）
+         */
+        private static Map<String, List<WeatherWarning>> group(List<WeatherWarning> warnings,
+                                                               Function<WeatherWarning, String> key) {
+            Map<String, List<WeatherWarning>> groups = new HashMap<>();
+            for (WeatherWarning warning : warnings) {
+                String value = key.apply(warning);
+                if (value != null) {
+                    groups.computeIfAbsent(value, k -> new ArrayList<>()).add(warning);
+                }
+            }
+            groups.replaceAll((k, list) -> List.copyOf(list));
+            return groups;
+        }
+    }
+}
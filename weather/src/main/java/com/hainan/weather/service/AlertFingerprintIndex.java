@@ -0,0 +1,44 @@
+package com.hainan.weather.service;
+
+import com.hainan.weather.entity.WeatherWarning;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 预警指纹索引，按 (locationCode, title, issueTime) 判断预警是否已入库
+ * 每次同步开始时用当前生效预警构建一次，同步线程并发查询和登记
+ */
+public class AlertFingerprintIndex {
+
+    private final Set<Fingerprint> fingerprints = ConcurrentHashMap.newKeySet();
+
+    public static AlertFingerprintIndex of(Collection<WeatherWarning> warnings) {
+        AlertFingerprintIndex index = new AlertFingerprintIndex();
+        if (warnings != null) {
+            for (WeatherWarning warning : warnings) {
+                index.fingerprints.add(Fingerprint.of(warning));
+            }
+        }
+        return index;
+    }
+
+    /**
+     * 登记一条预警，之前未出现过时返回true
+     */
+    public boolean register(WeatherWarning warning) {
+        return fingerprints.add(Fingerprint.of(warning));
+    }
+
+    public int size() {
+        return fingerprints.size();
+    }
+
+    private record Fingerprint(String locationCode, String title, LocalDateTime issueTime) {
+        static Fingerprint of(WeatherWarning warning) {
+            return new Fingerprint(warning.getLocationCode(), warning.getTitle(), warning.getIssueTime());
+        }
+    }
+}
@@ -3,8 +3,10 @@ package com.hainan.weather.service;
 import com.hainan.weather.entity.AttractionStatus;
 import com.hainan.weather.mapper.AttractionStatusMapper;
 import com.hainan.weather.dto.AttractionUpdateDTO;
+import com.hainan.weather.event.DataChangeEvent;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -20,6 +22,12 @@ public class AttractionService {
     @Autowired
     private SystemService systemService;
 
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Autowired
+    private DashboardCounters dashboardCounters;
+
     /**
      * 获取所有景点状态
      */
@@ -101,6 +109,9 @@ public class AttractionService {
             if (result > 0) {
                 systemService.logOperation(operatorId, "CREATE", "ATTRACTION",
                         "添加景点: " + dto.getName(), null);
+                TransactionCallbacks.afterCommit(() ->
+                        dashboardCounters.onAttractionChange(null, attraction.getOpenStatus()));
+                eventPublisher.publishEvent(new DataChangeEvent(DataChangeEvent.Type.ATTRACTION));
                 return true;
             }
             return false;
@@ -121,6 +132,7 @@ public class AttractionService {
                 return false;
             }
 
+            String previousStatus = attraction.getOpenStatus();
             attraction.setName(dto.getName());
             attraction.setLocationCode(dto.getLocationCode());
             attraction.setAddress(dto.getAddress());
@@ -135,6 +147,9 @@ public class AttractionService {
             if (result > 0) {
                 systemService.logOperation(operatorId, "UPDATE", "ATTRACTION",
                         "更新景点: " + dto.getName(), null);
+                TransactionCallbacks.afterCommit(() ->
+                        dashboardCounters.onAttractionChange(previousStatus, attraction.getOpenStatus()));
+                eventPublisher.publishEvent(new DataChangeEvent(DataChangeEvent.Type.ATTRACTION));
                 return true;
             }
             return false;
@@ -154,14 +169,19 @@ public class AttractionService {
                                                Long operatorId) {
         try {
             for (Long id : attractionIds) {
+                AttractionStatus existing = attractionStatusMapper.findById(id);
                 int result = attractionStatusMapper.updateStatus(id, openStatus, closeReason, operatorId);
                 if (result <= 0) {
                     log.warn("更新景点状态失败，ID: {}", id);
+                } else if (existing != null) {
+                    TransactionCallbacks.afterCommit(() ->
+                            dashboardCounters.onAttractionChange(existing.getOpenStatus(), openStatus));
                 }
             }
 
             systemService.logOperation(operatorId, "BATCH_UPDATE", "ATTRACTION",
                     "批量更新景点状态，数量: " + attractionIds.size(), null);
+            eventPublisher.publishEvent(new DataChangeEvent(DataChangeEvent.Type.ATTRACTION));
             return true;
         } catch (Exception e) {
             log.error("批量更新景点状态失败", e);
@@ -185,6 +205,9 @@ public class AttractionService {
             if (result > 0) {
                 systemService.logOperation(operatorId, "DELETE", "ATTRACTION",
                         "删除景点: " + attraction.getName(), null);
+                TransactionCallbacks.afterCommit(() ->
+                        dashboardCounters.onAttractionChange(attraction.getOpenStatus(), null));
+                eventPublisher.publishEvent(new DataChangeEvent(DataChangeEvent.Type.ATTRACTION));
                 return true;
             }
             return false;
@@ -198,7 +221,7 @@ public class AttractionService {
      * 获取关闭景点数量
      */
     public int getClosedAttractionCount() {
-        return attractionStatusMapper.countClosedAttractions();
+        return dashboardCounters.getClosedAttractionCount();
     }
 
     /**
@@ -0,0 +1,28 @@
+package com.hainan.weather.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+@Component
+@Slf4j
+public class DashboardCounterTask {
+
+    @Autowired
+    private DashboardCounters dashboardCounters;
+
+    /**
+     * 定期将仪表盘计数与数据库核对
+     */
+    @Scheduled(initialDelay = 60000, fixedDelayString = "${qweather.dashboard.verify-interval-ms:300000}")
+    public void verifyCounters() {
+        log.info("========== 开始执行定时任务：核对仪表盘计数 ==========");
+        try {
+            int corrected = dashboardCounters.verify();
+            log.info("========== 定时任务执行完成：核对仪表盘计数，纠正 {} 项 ==========", corrected);
+        } catch (Exception e) {
+            log.error("========== 定时任务执行失败：核对仪表盘计数 ==========", e);
+        }
+    }
+}
@@ -0,0 +1,145 @@
+package com.hainan.weather.service;
+
+import com.hainan.weather.mapper.AttractionStatusMapper;
+import com.hainan.weather.mapper.ComprehensiveWarningMapper;
+import com.hainan.weather.mapper.TrafficStatusMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.IntSupplier;
+
+/**
+ * 仪表盘计数器：已发布综合预警、异常航班、异常火车、关闭景点的数量保存在内存中，读取不访问数据库
+ * 首次读取时从数据库加载，之后由各服务在写入提交后按变更前后的状态增减；
+ * 并发写入同一条记录时增量可能重复，DashboardCounterTask 定期与数据库核对并纠正
+ */
+@Service
+@Slf4j
+public class DashboardCounters {
+
+    @Autowired
+    private ComprehensiveWarningMapper comprehensiveWarningMapper;
+
+    @Autowired
+    private TrafficStatusMapper trafficStatusMapper;
+
+    @Autowired
+    private AttractionStatusMapper attractionStatusMapper;
+
+    private final AtomicInteger publishedWarnings = new AtomicInteger();
+    private final AtomicInteger abnormalFlights = new AtomicInteger();
+    private final AtomicInteger abnormalTrains = new AtomicInteger();
+    private final AtomicInteger closedAttractions = new AtomicInteger();
+
+    /**
+     * 加载前的增量直接忽略，加载时的查询已包含这些写入
+     */
+    private volatile boolean loaded;
+
+    public int getPublishedWarningCount() {
+        ensureLoaded();
+        return publishedWarnings.get();
+    }
+
+    public int getAbnormalFlightCount() {
+        ensureLoaded();
+        return abnormalFlights.get();
+    }
+
+    public int getAbnormalTrainCount() {
+        ensureLoaded();
+        return abnormalTrains.get();
+    }
+
+    public int getClosedAttractionCount() {
+        ensureLoaded();
+        return closedAttractions.get();
+    }
+
+    /**
+     * 综合预警状态变更，新增时 before 为null，删除时 after 为null
+     */
+    public void onComprehensiveWarningChange(String beforeStatus, String afterStatus) {
+        adjust(publishedWarnings, "PUBLISHED".equals(beforeStatus), "PUBLISHED".equals(afterStatus));
+    }
+
+    /**
+     * 交通状态变更，与 countAbnormalByType 一致：状态不为 NORMAL 即为异常
+     */
+    public void onTrafficChange(String type, String beforeStatus, String afterStatus) {
+        AtomicInteger counter;
+        if ("FLIGHT".equals(type)) {
+            counter = abnormalFlights;
+        } else if ("TRAIN".equals(type)) {
+            counter = abnormalTrains;
+        } else {
+            return;
+        }
+        adjust(counter, isAbnormal(beforeStatus), isAbnormal(afterStatus));
+    }
+
+    /**
+     * 景点开放状态变更，与 countClosedAttractions 一致：状态不为 OPEN 即为关闭
+     */
+    public void onAttractionChange(String beforeStatus, String afterStatus) {
+        adjust(closedAttractions, beforeStatus != null && !"OPEN".equals(beforeStatus),
+                afterStatus != null && !"OPEN".equals(afterStatus));
+    }
+
+    /**
+     * 与数据库核对，纠正漂移的计数，返回纠正的计数器个数
+     */
+    public int verify() {
+        if (!loaded) {
+            ensureLoaded();
+            return 0;
+        }
+        int corrected = 0;
+        corrected += reconcile("已发布综合预警", publishedWarnings, comprehensiveWarningMapper::countPublished);
+        corrected += reconcile("异常航班", abnormalFlights, () -> trafficStatusMapper.countAbnormalByType("FLIGHT"));
+        corrected += reconcile("异常火车", abnormalTrains, () -> trafficStatusMapper.countAbnormalByType("TRAIN"));
+        corrected += reconcile("关闭景点", closedAttractions, attractionStatusMapper::countClosedAttractions);
+        return corrected;
+    }
+
+    private void ensureLoaded() {
+        if (loaded) {
+            return;
+        }
+        synchronized (this) {
+            if (!loaded) {
+                publishedWarnings.set(comprehensiveWarningMapper.countPublished());
+                abnormalFlights.set(trafficStatusMapper.countAbnormalByType("FLIGHT"));
+                abnormalTrains.set(trafficStatusMapper.countAbnormalByType("TRAIN"));
+                closedAttractions.set(attractionStatusMapper.countClosedAttractions());
+                loaded = true;
+            }
+        }
+    }
+
+    private void adjust(AtomicInteger counter, boolean before, boolean after) {
+        if (!loaded || before == after) {
+            return;
+        }
+        counter.addAndGet(after ? 1 : -1);
+    }
+
+    /**
+     * 查询期间计数有变化说明有写入在途，本次不覆盖，留到下一次核对
+     */
+    private int reconcile(String name, AtomicInteger counter, IntSupplier query) {
+        int expected = counter.get();
+        int actual = query.getAsInt();
+        if (actual != expected && counter.compareAndSet(expected, actual)) {
+            log.warn("仪表盘计数与数据库不一致，已纠正: {} 内存 {}，数据库 {}", name, expected, actual);
+            return 1;
+        }
+        return 0;
+    }
+
+    private static boolean isAbnormal(String status) {
+        return status != null && !"NORMAL".equals(status);
+    }
+}
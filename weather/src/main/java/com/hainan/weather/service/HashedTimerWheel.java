@@ -0,0 +1,88 @@
+package com.hainan.weather.service;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 哈希时间轮：按到期时间把键散列到 wheelSize 个槽中，每个刻度只检查当前槽，
+ * 登记和取消都是 O(1)，推进的开销与到期条数和单槽条数成正比，与总条数无关；
+ * 到期时间超过一圈的条目留在槽中，转到下一圈时再判断。非线程安全，由调用方加锁
+ */
+final class HashedTimerWheel<K> {
+
+    private final long tickMillis;
+    private final List<Map<K, Long>> slots;
+    private final Map<K, Integer> slotOfKey = new HashMap<>();
+
+    /**
+     * 已推进到的刻度（含），初始为创建时的刻度
+     */
+    private long currentTick;
+
+    HashedTimerWheel(long tickMillis, int wheelSize, long nowMillis) {
+        this.tickMillis = tickMillis;
+        this.slots = new ArrayList<>(wheelSize);
+        for (int i = 0; i < wheelSize; i++) {
+            slots.add(new HashMap<>());
+        }
+        this.currentTick = nowMillis / tickMillis;
+    }
+
+    /**
+     * 登记或改期：放入到期时间向上取整的刻度，推进到该刻度时当前时间一定不早于到期时间；
+     * 已经过期的条目放到下一个刻度的槽中
+     */
+    void schedule(K key, long deadlineMillis) {
+        cancel(key);
+        long tick = Math.max(Math.floorDiv(deadlineMillis + tickMillis - 1, tickMillis), currentTick + 1);
+        int slot = (int) (tick % slots.size());
+        slots.get(slot).put(key, deadlineMillis);
+        slotOfKey.put(key, slot);
+    }
+
+    void cancel(K key) {
+        Integer slot = slotOfKey.remove(key);
+        if (slot != null) {
+            slots.get(slot).remove(key);
+        }
+    }
+
+    void clear() {
+        for (Map<K, Long> slot : slots) {
+            slot.clear();
+        }
+        slotOfKey.clear();
+    }
+
+    int size() {
+        return slotOfKey.size();
+    }
+
+    /**
+     * 推进到当前时间，返回到期的键并从时间轮中移除；槽中到期时间仍晚于当前时间的是后面几圈的条目，留待下一圈；
+     * 落后超过一圈时每个槽只检查一次
+     */
+    List<K> advance(long nowMillis) {
+        long targetTick = nowMillis / tickMillis;
+        List<K> expired = new ArrayList<>();
+        if (targetTick <= currentTick) {
+            return expired;
+        }
+        long ticks = Math.min(targetTick - currentTick, slots.size());
+        for (long tick = targetTick - ticks + 1; tick <= targetTick; tick++) {
+            Map<K, Long> slot = slots.get((int) (tick % slots.size()));
+            slot.entrySet().removeIf(entry -> {
+                if (entry.getValue() > nowMillis) {
+                    return false;
+                }
+                expired.add(entry.getKey());
+                slotOfKey.remove(entry.getKey());
+                return true;
+            });
+        }
+        currentTick = targetTick;
+        return expired;
+    }
+}
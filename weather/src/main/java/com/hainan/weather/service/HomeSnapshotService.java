@@ -0,0 +1,162 @@
+package com.hainan.weather.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.hainan.weather.entity.AttractionStatus;
+import com.hainan.weather.entity.ComprehensiveWarning;
+import com.hainan.weather.entity.TrafficStatus;
+import com.hainan.weather.entity.WeatherData;
+import com.hainan.weather.entity.WeatherWarning;
+import com.hainan.weather.event.DataChangeEvent;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.LocalDateTime;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 首页数据快照：首页所需的天气、预警、交通和景点数据合并为一个预先序列化好的JSON，
+ * 请求只读内存；任一输入数据变更（DataChangeEvent，含预警到期的 WarningExpiredEvent）后标记失效，下一次请求时重建。
+ * 天气变为过期状态不伴随写入，快照的有效期因此截止到其中最早的时刻
+ */
+@Service
+@Slf4j
+public class HomeSnapshotService {
+
+    /**
+     * 首页展示天气的地点，与 response 中的键一一对应
+     */
+    private static final Map<String, String> HOME_LOCATIONS = Map.of(
+            "SANYA", "sanyaWeather",
+            "HAIKOU", "haikouWeather",
+            "DONGFANG", "dongfangWeather",
+            "QIONGHAI", "qionghaiWeather"
+    );
+
+    /**
+     * 构建快照时有列表读取失败，快照只保留该秒数，尽快重试
+     */
+    private static final int FAILED_SNAPSHOT_SECONDS = 5;
+
+    @Autowired
+    private WeatherService weatherService;
+
+    @Autowired
+    private WarningService warningService;
+
+    @Autowired
+    private TrafficService trafficService;
+
+    @Autowired
+    private AttractionService attractionService;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    /**
+     * 快照最长有效秒数，兜底熔断器状态变化等不发布事件的变更
+     */
+    @Value("${qweather.home.snapshot-max-age-seconds:60}")
+    private int maxAgeSeconds;
+
+    @Value("${qweather.stale-after-minutes:120}")
+    private long staleAfterMinutes;
+
+    /**
+     * 每次输入数据变更加一，快照记录构建开始时的值，不一致即失效
+     */
+    private final AtomicLong changeVersion = new AtomicLong();
+
+    private volatile Snapshot snapshot;
+
+    /**
+     * 返回首页接口的完整响应体（UTF-8 JSON），快照有效时不访问数据库
+     */
+    public byte[] getSnapshot() throws Exception {
+        Snapshot current = snapshot;
+        if (isValid(current)) {
+            return current.body;
+        }
+        synchronized (this) {
+            current = snapshot;
+            if (!isValid(current)) {
+                current = build();
+                snapshot = current;
+            }
+            return current.body;
+        }
+    }
+
+    /**
+     * 输入数据提交后使快照失效；只有涉及首页地点的天气变更才需要重建
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onDataChange(DataChangeEvent event) {
+        if (event.getType() == DataChangeEvent.Type.WEATHER && !event.getLocationCodes().isEmpty()
+                && Collections.disjoint(event.getLocationCodes(), HOME_LOCATIONS.keySet())) {
+            return;
+        }
+        changeVersion.incrementAndGet();
+    }
+
+    private boolean isValid(Snapshot current) {
+        return current != null && current.version == changeVersion.get()
+                && LocalDateTime.now().isBefore(current.validUntil);
+    }
+
+    private Snapshot build() throws Exception {
+        long version = changeVersion.get();
+        LocalDateTime now = LocalDateTime.now();
+        LocalDateTime validUntil = now.plusSeconds(maxAgeSeconds);
+
+        Map<String, Object> data = new HashMap<>();
+        for (Map.Entry<String, String> location : HOME_LOCATIONS.entrySet()) {
+            WeatherData weather = weatherService.getLatestWeather(location.getKey());
+            data.put(location.getValue(), weather);
+            // 观测超过 stale-after-minutes 后 stale 标记会变化
+            if (weather != null && weather.getUpdateTime() != null && !Boolean.TRUE.equals(weather.getStale())) {
+                validUntil = earlier(validUntil, weather.getUpdateTime().plusMinutes(staleAfterMinutes));
+            }
+        }
+
+        List<WeatherWarning> activeWarnings = warningService.getActiveWeatherWarnings();
+        List<ComprehensiveWarning> publishedWarnings = warningService.getPublishedComprehensiveWarnings();
+        List<TrafficStatus> abnormalTraffic = trafficService.getAbnormalTrafficStatus();
+        List<AttractionStatus> closedAttractions = attractionService.getClosedOrLimitedAttractions();
+        data.put("activeWarnings", activeWarnings);
+        data.put("publishedWarnings", publishedWarnings);
+        data.put("abnormalTraffic", abnormalTraffic);
+        data.put("closedAttractions", closedAttractions);
+
+        if (activeWarnings == null || publishedWarnings == null || abnormalTraffic == null || closedAttractions == null) {
+            validUntil = earlier(validUntil, now.plusSeconds(FAILED_SNAPSHOT_SECONDS));
+        }
+
+        Map<String, Object> response = new HashMap<>();
+        response.put("success", true);
+        response.put("data", data);
+        return new Snapshot(objectMapper.writeValueAsBytes(response), version, validUntil);
+    }
+
+    private static LocalDateTime earlier(LocalDateTime a, LocalDateTime b) {
+        return b.isBefore(a) ? b : a;
+    }
+
+    private static final class Snapshot {
+        private final byte[] body;
+        private final long version;
+        private final LocalDateTime validUntil;
+
+        private Snapshot(byte[] body, long version, LocalDateTime validUntil) {
+            this.body = body;
+            this.version = version;
+            this.validUntil = validUntil;
+        }
+    }
+}
@@ -0,0 +1,245 @@
+package com.hainan.weather.service;
+
+import com.hainan.weather.entity.Location;
+import com.hainan.weather.entity.WeatherData;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.PriorityQueue;
+import java.util.Set;
+
+/**
+ * 按地点的刷新调度器
+ * 每个地点维护下次到期时间，用优先队列按到期时间取出需要刷新的地点；
+ * 有生效预警或读数变化快的地点缩短间隔，持续平稳的地点逐步拉长间隔，
+ * 并按每日调用配额整体放大间隔，保证预计调用量不超出预算
+ */
+@Component
+@Slf4j
+public class LocationRefreshScheduler {
+
+    /**
+     * 每个地点每次刷新调用接口数的初始估计（实时天气 + 预警），之后按实际同步中发放的许可数修正
+     */
+    private static final double DEFAULT_CALLS_PER_REFRESH = 2;
+
+    /**
+     * 实测调用数的平滑系数，每次同步按该比例向实测值靠拢
+     */
+    private static final double USAGE_SMOOTHING = 0.3;
+
+    /**
+     * 温度变化超过该值视为读数变化快
+     */
+    private static final BigDecimal TEMPERATURE_DELTA = new BigDecimal("2");
+
+    @Value("${qweather.refresh.min-interval-minutes:15}")
+    private long minIntervalMinutes;
+
+    @Value("${qweather.refresh.base-interval-minutes:60}")
+    private long baseIntervalMinutes;
+
+    @Value("${qweather.refresh.max-interval-minutes:240}")
+    private long maxIntervalMinutes;
+
+    /**
+     * 每日配额中留给定时刷新的比例，其余留给手动同步和重试
+     */
+    @Value("${qweather.refresh.budget-ratio:0.8}")
+    private double budgetRatio;
+
+    @Autowired
+    private QWeatherRateLimiter rateLimiter;
+
+    /**
+     * 平均每个地点每次刷新实际消耗的调用数，预警按网格共用、预报按间隔刷新，均摊后不是固定值
+     */
+    private double callsPerRefresh = DEFAULT_CALLS_PER_REFRESH;
+
+    private final Map<String, Schedule> schedules = new HashMap<>();
+    private final PriorityQueue<Schedule> dueQueue = new PriorityQueue<>(Comparator.comparing(Schedule::getNextDue));
+
+    /**
+     * 取出当前已到期的地点；新出现的地点立即到期，已停用的地点移出调度
+     */
+    public synchronized List<Location> pollDue(List<Location> enabledLocations, LocalDateTime now) {
+        Set<String> enabledCodes = new HashSet<>();
+        Map<String, Location> locationsByCode = new HashMap<>();
+        for (Location location : enabledLocations) {
+            enabledCodes.add(location.getLocationCode());
+            locationsByCode.put(location.getLocationCode(), location);
+            if (!schedules.containsKey(location.getLocationCode())) {
+                Schedule schedule = new Schedule(location.getLocationCode());
+                schedule.intervalMinutes = baseIntervalMinutes;
+                schedule.nextDue = now;
+                schedule.reason = "新地点";
+                schedules.put(schedule.locationCode, schedule);
+                dueQueue.add(schedule);
+            }
+        }
+        if (schedules.keySet().retainAll(enabledCodes)) {
+            dueQueue.removeIf(schedule -> !enabledCodes.contains(schedule.locationCode));
+        }
+
+        List<Location> due = new ArrayList<>();
+        while (!dueQueue.isEmpty() && !dueQueue.peek().nextDue.isAfter(now)) {
+            Schedule schedule = dueQueue.poll();
+            schedule.inFlight = true;
+            due.add(locationsByCode.get(schedule.locationCode));
+        }
+        return due;
+    }
+
+    /**
+     * 地点刷新完成后按本次结果计算下次到期时间
+     *
+     * @param weatherData       本次获取到的实时天气，失败时为null
+     * @param hasActiveWarning  该地点当前是否有生效预警
+     */
+    public synchronized void reschedule(Location location, WeatherData weatherData,
+                                        boolean hasActiveWarning, LocalDateTime now) {
+        Schedule schedule = schedules.get(location.getLocationCode());
+        if (schedule == null) {
+            return;
+        }
+        if (hasActiveWarning) {
+            schedule.intervalMinutes = minIntervalMinutes;
+            schedule.reason = "有生效预警";
+        } else if (weatherData == null) {
+            schedule.intervalMinutes = minIntervalMinutes;
+            schedule.reason = "上次刷新失败";
+        } else if (schedule.lastData == null) {
+            schedule.intervalMinutes = baseIntervalMinutes;
+            schedule.reason = "首次刷新";
+        } else if (changedFast(schedule.lastData, weatherData)) {
+            schedule.intervalMinutes = Math.max(minIntervalMinutes, baseIntervalMinutes / 2);
+            schedule.reason = "读数变化快";
+        } else {
+            // 读数平稳，每次拉长一半，直到上限
+            long stretched = Math.max(schedule.intervalMinutes, baseIntervalMinutes) * 3 / 2;
+            schedule.intervalMinutes = Math.min(maxIntervalMinutes, stretched);
+            schedule.reason = "读数平稳";
+        }
+        if (weatherData != null) {
+            schedule.lastData = weatherData;
+        }
+        // 仍在队列中的地点（强制刷新时）要先移出，再修改到期时间，否则会破坏堆序
+        if (!schedule.inFlight) {
+            dueQueue.remove(schedule);
+        }
+        schedule.inFlight = false;
+        schedule.lastRefreshTime = now;
+        schedule.nextDue = now.plusMinutes(effectiveInterval(schedule));
+        dueQueue.add(schedule);
+    }
+
+    /**
+     * 已取出但本次未处理的地点放回队列，保持原到期时间，下次同步时仍会到期
+     */
+    public synchronized void requeue(List<Location> locations) {
+        for (Location location : locations) {
+            Schedule schedule = schedules.get(location.getLocationCode());
+            if (schedule != null && schedule.inFlight) {
+                schedule.inFlight = false;
+                dueQueue.add(schedule);
+            }
+        }
+    }
+
+    /**
+     * 记录一次同步实际消耗的调用数（含429重试）和刷新的地点数，用于估算每日调用量
+     */
+    public synchronized void recordUsage(long calls, int refreshedLocations) {
+        if (refreshedLocations <= 0 || calls < 0) {
+            return;
+        }
+        double observed = (double) calls / refreshedLocations;
+        callsPerRefresh += USAGE_SMOOTHING * (observed - callsPerRefresh);
+        log.debug("本次同步每地点调用 {} 次，平滑后 {}", observed, callsPerRefresh);
+    }
+
+    public synchronized double getCallsPerRefresh() {
+        return callsPerRefresh;
+    }
+
+    /**
+     * 各地点的当前间隔和下次到期时间，供管理接口展示
+     */
+    public synchronized List<Map<String, Object>> getSchedules() {
+        double scale = budgetScale();
+        List<Schedule> sorted = new ArrayList<>(schedules.values());
+        sorted.sort(Comparator.comparing(Schedule::getNextDue));
+        List<Map<String, Object>> result = new ArrayList<>();
+        for (Schedule schedule : sorted) {
+            Map<String, Object> item = new LinkedHashMap<>();
+            item.put("locationCode", schedule.locationCode);
+            item.put("intervalMinutes", schedule.intervalMinutes);
+            item.put("effectiveIntervalMinutes", Math.round(schedule.intervalMinutes * scale));
+            item.put("reason", schedule.reason);
+            item.put("lastRefreshTime", schedule.lastRefreshTime);
+            item.put("nextDue", schedule.nextDue);
+            result.add(item);
+        }
+        return result;
+    }
+
+    private long effectiveInterval(Schedule schedule) {
+        return Math.round(schedule.intervalMinutes * budgetScale());
+    }
+
+    /**
+     * 按当前各地点间隔估算每日调用量，超出预算时返回大于1的放大系数
+     */
+    private double budgetScale() {
+        double dailyCalls = 0;
+        for (Schedule schedule : schedules.values()) {
+            dailyCalls += 24.0 * 60 / Math.max(1, schedule.intervalMinutes) * callsPerRefresh;
+        }
+        double budget = rateLimiter.getPerDay() * budgetRatio;
+        if (budget <= 0 || dailyCalls <= budget) {
+            return 1.0;
+        }
+        return dailyCalls / budget;
+    }
+
+    private boolean changedFast(WeatherData previous, WeatherData current) {
+        if (!Objects.equals(previous.getWeatherCondition(), current.getWeatherCondition())) {
+            return true;
+        }
+        if (previous.getTemperature() != null && current.getTemperature() != null
+                && previous.getTemperature().subtract(current.getTemperature()).abs().compareTo(TEMPERATURE_DELTA) >= 0) {
+            return true;
+        }
+        return current.getPrecipitation() != null && current.getPrecipitation().signum() > 0;
+    }
+
+    private static class Schedule {
+        private final String locationCode;
+        private long intervalMinutes;
+        private LocalDateTime nextDue;
+        private LocalDateTime lastRefreshTime;
+        private WeatherData lastData;
+        private String reason;
+        private boolean inFlight;
+
+        Schedule(String locationCode) {
+            this.locationCode = locationCode;
+        }
+
+        LocalDateTime getNextDue() {
+            return nextDue;
+        }
+    }
+}
@@ -0,0 +1,167 @@
+package com.hainan.weather.service;
+
+import com.hainan.weather.entity.WeatherData;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * 归档文件编解码：一个地点一个月的原始观测按列存储后整体gzip压缩
+ * 时间列按差值编码，数值列按两位小数放大为整数，风向和天气状况用字典编码，
+ * 相邻行同一列的值相近，列式排列后压缩率远高于按行存储
+ */
+final class ObservationArchiveCodec {
+
+    private static final int MAGIC = 0x57444131; // "WDA1"
+    private static final int NULL_DECIMAL = Integer.MIN_VALUE;
+
+    private static final List<DecimalColumn> DECIMAL_COLUMNS = List.of(
+            new DecimalColumn(WeatherData::getTemperature, WeatherData::setTemperature),
+            new DecimalColumn(WeatherData::getHumidity, WeatherData::setHumidity),
+            new DecimalColumn(WeatherData::getWindSpeed, WeatherData::setWindSpeed),
+            new DecimalColumn(WeatherData::getPrecipitation, WeatherData::setPrecipitation),
+            new DecimalColumn(WeatherData::getPressure, WeatherData::setPressure),
+            new DecimalColumn(WeatherData::getVisibility, WeatherData::setVisibility)
+    );
+
+    private ObservationArchiveCodec() {
+    }
+
+    /**
+     * 写入按更新时间升序排列的观测
+     */
+    static void write(List<WeatherData> rows, OutputStream target) throws IOException {
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new GZIPOutputStream(target)))) {
+            out.writeInt(MAGIC);
+            out.writeInt(rows.size());
+
+            long previousId = 0;
+            for (WeatherData row : rows) {
+                long id = row.getId() != null ? row.getId() : 0;
+                out.writeLong(id - previousId);
+                previousId = id;
+            }
+            long previousSecond = 0;
+            for (WeatherData row : rows) {
+                long second = row.getUpdateTime().toEpochSecond(ZoneOffset.UTC);
+                out.writeLong(second - previousSecond);
+                previousSecond = second;
+            }
+            for (WeatherData row : rows) {
+                LocalDate dataDate = row.getDataDate() != null ? row.getDataDate() : row.getUpdateTime().toLocalDate();
+                out.writeInt((int) dataDate.toEpochDay());
+            }
+            for (DecimalColumn column : DECIMAL_COLUMNS) {
+                for (WeatherData row : rows) {
+                    BigDecimal value = column.getter.apply(row);
+                    out.writeInt(value != null ? value.setScale(2, RoundingMode.HALF_UP).unscaledValue().intValue() : NULL_DECIMAL);
+                }
+            }
+            writeDictionaryColumn(out, rows, WeatherData::getWindDirection);
+            writeDictionaryColumn(out, rows, WeatherData::getWeatherCondition);
+        }
+    }
+
+    static List<WeatherData> read(InputStream source, String locationCode) throws IOException {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new GZIPInputStream(source)))) {
+            if (in.readInt() != MAGIC) {
+                throw new IOException("不是天气观测归档文件");
+            }
+            int count = in.readInt();
+            List<WeatherData> rows = new ArrayList<>(count);
+            long id = 0;
+            for (int i = 0; i < count; i++) {
+                WeatherData row = new WeatherData();
+                row.setLocationCode(locationCode);
+                id += in.readLong();
+                row.setId(id);
+                rows.add(row);
+            }
+            long second = 0;
+            for (WeatherData row : rows) {
+                second += in.readLong();
+                row.setUpdateTime(LocalDateTime.ofEpochSecond(second, 0, ZoneOffset.UTC));
+            }
+            for (WeatherData row : rows) {
+                row.setDataDate(LocalDate.ofEpochDay(in.readInt()));
+            }
+            for (DecimalColumn column : DECIMAL_COLUMNS) {
+                for (WeatherData row : rows) {
+                    int value = in.readInt();
+                    column.setter.accept(row, value != NULL_DECIMAL ? BigDecimal.valueOf(value, 2) : null);
+                }
+            }
+            readDictionaryColumn(in, rows, WeatherData::setWindDirection);
+            readDictionaryColumn(in, rows, WeatherData::setWeatherCondition);
+            return rows;
+        }
+    }
+
+    private static void writeDictionaryColumn(DataOutputStream out, List<WeatherData> rows,
+                                              Function<WeatherData, String> getter) throws IOException {
+        Map<String, Integer> dictionary = new HashMap<>();
+        List<String> values = new ArrayList<>();
+        int[] indexes = new int[rows.size()];
+        for (int i = 0; i < rows.size(); i++) {
+            String value = getter.apply(rows.get(i));
+            if (value == null) {
+                indexes[i] = -1;
+                continue;
+            }
+            Integer index = dictionary.get(value);
+            if (index == null) {
+                index = values.size();
+                dictionary.put(value, index);
+                values.add(value);
+            }
+            indexes[i] = index;
+        }
+        out.writeInt(values.size());
+        for (String value : values) {
+            out.writeUTF(value);
+        }
+        for (int index : indexes) {
+            out.writeShort(index);
+        }
+    }
+
+    private static void readDictionaryColumn(DataInputStream in, List<WeatherData> rows,
+                                             BiConsumer<WeatherData, String> setter) throws IOException {
+        String[] values = new String[in.readInt()];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = in.readUTF();
+        }
+        for (WeatherData row : rows) {
+            short index = in.readShort();
+            setter.accept(row, index >= 0 ? values[index] : null);
+        }
+    }
+
+    private static final class DecimalColumn {
+        private final Function<WeatherData, BigDecimal> getter;
+        private final BiConsumer<WeatherData, BigDecimal> setter;
+
+        private DecimalColumn(Function<WeatherData, BigDecimal> getter, BiConsumer<WeatherData, BigDecimal> setter) {
+            this.getter = getter;
+            this.setter = setter;
+        }
+    }
+}
@@ -0,0 +1,200 @@
+package com.hainan.weather.service;
+
+import com.hainan.weather.entity.Location;
+import com.hainan.weather.entity.WeatherData;
+import com.hainan.weather.mapper.LocationMapper;
+import com.hainan.weather.mapper.WeatherDataMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.regex.Pattern;
+
+/**
+ * 原始观测的保留与归档
+ * weather_data 只保留最近 hot-days 天（按整月对齐，最多多保留一个月），更早的观测按地点、按月写入本地压缩列式文件后从MySQL删除，
+ * 表已分区时直接删除整个月的分区；
+ * 逐小时和逐日汇总不受影响，按时间段读取原始观测时透明合并归档文件和MySQL中的数据
+ */
+@Service
+@Slf4j
+public class ObservationArchiveService {
+
+    /**
+     * 热数据至少保留的天数，需大于汇总任务的补算窗口，否则补算会因原始数据已归档而清空汇总
+     */
+    private static final int MIN_HOT_DAYS = 7;
+
+    private static final String FILE_SUFFIX = ".wda.gz";
+
+    /**
+     * 地点编码会拼进文件路径，只接受字母、数字和下划线
+     */
+    private static final Pattern LOCATION_CODE = Pattern.compile("[A-Za-z0-9_]+");
+
+    @Autowired
+    private WeatherDataMapper weatherDataMapper;
+
+    @Autowired
+    private LocationMapper locationMapper;
+
+    @Autowired
+    private WeatherRollupService weatherRollupService;
+
+    @Autowired
+    private PartitionMaintenanceService partitionMaintenanceService;
+
+    /**
+     * weather_data 中保留的天数
+     */
+    @Value("${qweather.retention.hot-days:30}")
+    private int hotDays;
+
+    /**
+     * 归档文件根目录，目录结构为 {地点编码}/{yyyy-MM}.wda.gz
+     */
+    @Value("${qweather.archive.dir:./data/archive}")
+    private String archiveDir;
+
+    /**
+     * 归档早于保留期的观测，返回归档的行数
+     * 先写文件再删除MySQL中的行，中途失败时重新执行只会按更新时间去重合并，不会丢数据；
+     * 表已分区时所有地点都归档成功后才删除分区，有地点失败则保留分区等下次重试
+     */
+    public int archiveExpired() {
+        LocalDate cutoffDate = YearMonth.from(LocalDate.now().minusDays(Math.max(MIN_HOT_DAYS, hotDays))).atDay(1);
+        LocalDateTime cutoff = cutoffDate.atStartOfDay();
+        boolean partitioned = partitionMaintenanceService.isPartitioned(PartitionMaintenanceService.WEATHER_DATA);
+        int archived = 0;
+        int failed = 0;
+        for (Location location : locationMapper.findAll()) {
+            try {
+                archived += archiveLocation(location.getLocationCode(), cutoff, !partitioned);
+            } catch (Exception e) {
+                failed++;
+                log.error("归档天气观测失败, locationCode: {}", location.getLocationCode(), e);
+            }
+        }
+        if (archived > 0) {
+            log.info("已归档 {} 之前的天气观测 {} 条", cutoff, archived);
+        }
+        if (partitioned) {
+            if (failed > 0) {
+                log.warn("{} 个地点归档失败，暂不删除 {} 之前的 weather_data 分区", failed, cutoffDate);
+            } else {
+                partitionMaintenanceService.purgeBefore(PartitionMaintenanceService.WEATHER_DATA, cutoffDate);
+            }
+        }
+        return archived;
+    }
+
+    private int archiveLocation(String locationCode, LocalDateTime cutoff, boolean deleteRows) throws IOException {
+        LocalDateTime earliest = weatherDataMapper.findEarliestUpdateTime(locationCode);
+        if (earliest == null || !earliest.isBefore(cutoff)) {
+            return 0;
+        }
+        int archived = 0;
+        for (YearMonth month = YearMonth.from(earliest); !month.atDay(1).atStartOfDay().isAfter(cutoff);
+             month = month.plusMonths(1)) {
+            LocalDateTime from = month.atDay(1).atStartOfDay();
+            LocalDateTime monthEnd = month.plusMonths(1).atDay(1).atStartOfDay();
+            LocalDateTime to = monthEnd.isBefore(cutoff) ? monthEnd : cutoff;
+            List<WeatherData> rows = weatherDataMapper.findByLocationBetween(locationCode, from, to);
+            if (rows.isEmpty()) {
+                continue;
+            }
+            // 删除前确认汇总已覆盖这些时段，之后原始观测只在归档文件中
+            if (!weatherRollupService.recompute(List.of(locationCode), from, to)) {
+                throw new IllegalStateException("重算汇总失败，暂不归档 " + month);
+            }
+            merge(locationCode, month, rows);
+            archived += rows.size();
+            if (!deleteRows) {
+                continue;
+            }
+            List<Long> ids = new ArrayList<>(rows.size());
+            for (WeatherData row : rows) {
+                ids.add(row.getId());
+            }
+            for (int start = 0; start < ids.size(); start += WeatherService.BATCH_SIZE) {
+                weatherDataMapper.deleteByIds(ids.subList(start, Math.min(start + WeatherService.BATCH_SIZE, ids.size())));
+            }
+        }
+        return archived;
+    }
+
+    /**
+     * 将新归档的行并入该月的归档文件，按更新时间去重，写临时文件后原子替换
+     */
+    private void merge(String locationCode, YearMonth month, List<WeatherData> rows) throws IOException {
+        Path file = archiveFile(locationCode, month);
+        Map<LocalDateTime, WeatherData> merged = new TreeMap<>();
+        for (WeatherData row : readFile(file, locationCode)) {
+            merged.put(row.getUpdateTime(), row);
+        }
+        for (WeatherData row : rows) {
+            merged.put(row.getUpdateTime(), row);
+        }
+        Files.createDirectories(file.getParent());
+        Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+        try (OutputStream out = Files.newOutputStream(temp)) {
+            ObservationArchiveCodec.write(new ArrayList<>(merged.values()), out);
+        }
+        Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * 读取 [from, to) 内的原始观测，合并归档文件和MySQL中的数据，按更新时间升序
+     */
+    public List<WeatherData> findObservations(String locationCode, LocalDateTime from, LocalDateTime to) {
+        if (locationCode == null || !LOCATION_CODE.matcher(locationCode).matches()) {
+            return List.of();
+        }
+        try {
+            Map<LocalDateTime, WeatherData> merged = new TreeMap<>();
+            for (YearMonth month = YearMonth.from(from); month.atDay(1).atStartOfDay().isBefore(to);
+                 month = month.plusMonths(1)) {
+                for (WeatherData row : readFile(archiveFile(locationCode, month), locationCode)) {
+                    if (!row.getUpdateTime().isBefore(from) && row.getUpdateTime().isBefore(to)) {
+                        merged.put(row.getUpdateTime(), row);
+                    }
+                }
+            }
+            for (WeatherData row : weatherDataMapper.findByLocationBetween(locationCode, from, to)) {
+                merged.put(row.getUpdateTime(), row);
+            }
+            return new ArrayList<>(merged.values());
+        } catch (Exception e) {
+            log.error("读取天气观测失败, locationCode: {}", locationCode, e);
+            return null;
+        }
+    }
+
+    private List<WeatherData> readFile(Path file, String locationCode) throws IOException {
+        if (!Files.exists(file)) {
+            return List.of();
+        }
+        try (InputStream in = Files.newInputStream(file)) {
+            return ObservationArchiveCodec.read(in, locationCode);
+        }
+    }
+
+    private Path archiveFile(String locationCode, YearMonth month) {
+        return Paths.get(archiveDir, locationCode, month + FILE_SUFFIX);
+    }
+}
@@ -0,0 +1,28 @@
+package com.hainan.weather.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+@Component
+@Slf4j
+public class ObservationRetentionTask {
+
+    @Autowired
+    private ObservationArchiveService observationArchiveService;
+
+    /**
+     * 每天凌晨归档超过保留期的原始观测
+     */
+    @Scheduled(cron = "${qweather.retention.cron:0 30 3 * * ?}")
+    public void archiveExpiredObservations() {
+        log.info("========== 开始执行定时任务：归档过期天气观测 ==========");
+        try {
+            int archived = observationArchiveService.archiveExpired();
+            log.info("========== 定时任务执行完成：归档过期天气观测 {} 条 ==========", archived);
+        } catch (Exception e) {
+            log.error("========== 定时任务执行失败：归档过期天气观测 ==========", e);
+        }
+    }
+}
@@ -0,0 +1,146 @@
+package com.hainan.weather.service;
+
+import com.hainan.weather.dto.TablePartition;
+import com.hainan.weather.mapper.PartitionMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Pattern;
+
+/**
+ * weather_data 按 update_time、weather_warnings 按 expire_time 逐月分区，分区方案见 weather.sql：
+ * p_min 存放最早的数据，pyyyyMM 为逐月分区，p_future 兜底存放尚未建分区的月份。
+ * 定期从 p_future 拆出未来几个月的分区；过期数据通过删除整个分区清理，不再逐行DELETE
+ */
+@Service
+@Slf4j
+public class PartitionMaintenanceService {
+
+    public static final String WEATHER_DATA = "weather_data";
+    public static final String WEATHER_WARNINGS = "weather_warnings";
+
+    private static final String MIN_PARTITION = "p_min";
+    private static final String FUTURE_PARTITION = "p_future";
+    private static final Pattern MONTHLY_PARTITION = Pattern.compile("p\\d{6}");
+    private static final DateTimeFormatter MONTH_FORMAT = DateTimeFormatter.ofPattern("yyyyMM");
+
+    @Autowired
+    private PartitionMapper partitionMapper;
+
+    /**
+     * 提前创建的月份数
+     */
+    @Value("${qweather.partition.months-ahead:3}")
+    private int monthsAhead;
+
+    /**
+     * 失效超过该天数的预警所在分区会被删除
+     */
+    @Value("${qweather.partition.warning-retention-days:180}")
+    private int warningRetentionDays;
+
+    /**
+     * 为两张表补齐未来的分区，并删除过期预警所在的分区；weather_data 的分区在归档完成后由 ObservationArchiveService 删除
+     */
+    public void maintain() {
+        for (String table : List.of(WEATHER_DATA, WEATHER_WARNINGS)) {
+            try {
+                ensureFuturePartitions(table);
+            } catch (Exception e) {
+                log.error("创建分区失败, table: {}", table, e);
+            }
+        }
+        try {
+            purgeBefore(WEATHER_WARNINGS, LocalDate.now().minusDays(Math.max(1, warningRetentionDays)));
+        } catch (Exception e) {
+            log.error("删除过期预警分区失败", e);
+        }
+    }
+
+    /**
+     * 表是否已按本服务的方案分区（存在 p_future 分区）
+     */
+    public boolean isPartitioned(String table) {
+        for (TablePartition partition : partitionMapper.findPartitions(table)) {
+            if (FUTURE_PARTITION.equals(partition.getPartitionName())) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 从 p_future 拆出截至 months-ahead 个月之后的逐月分区，返回新建的分区数
+     */
+    public int ensureFuturePartitions(String table) {
+        List<TablePartition> partitions = partitionMapper.findPartitions(table);
+        YearMonth last = null;
+        boolean hasFuture = false;
+        for (TablePartition partition : partitions) {
+            String name = partition.getPartitionName();
+            if (FUTURE_PARTITION.equals(name)) {
+                hasFuture = true;
+            } else if (MONTHLY_PARTITION.matcher(name).matches()) {
+                YearMonth month = YearMonth.parse(name.substring(1), MONTH_FORMAT);
+                if (last == null || month.isAfter(last)) {
+                    last = month;
+                }
+            }
+        }
+        if (!hasFuture) {
+            return 0;
+        }
+        YearMonth target = YearMonth.now().plusMonths(Math.max(1, monthsAhead));
+        YearMonth month = last != null ? last.plusMonths(1) : YearMonth.now();
+        List<String> definitions = new ArrayList<>();
+        for (; !month.isAfter(target); month = month.plusMonths(1)) {
+            definitions.add("PARTITION " + partitionName(month) + " VALUES LESS THAN (TO_DAYS('"
+                    + month.plusMonths(1).atDay(1) + "'))");
+        }
+        if (definitions.isEmpty()) {
+            return 0;
+        }
+        partitionMapper.splitFuturePartition(table, String.join(", ", definitions));
+        log.info("{} 新建分区 {} 个，截至 {}", table, definitions.size(), target);
+        return definitions.size();
+    }
+
+    /**
+     * 删除上界不晚于 cutoff 的逐月分区，p_min 只清空不删除，返回清理的分区数
+     */
+    public int purgeBefore(String table, LocalDate cutoff) {
+        List<String> drop = new ArrayList<>();
+        boolean truncateMin = false;
+        for (TablePartition partition : partitionMapper.findPartitions(table)) {
+            LocalDate upperBound = partition.getUpperBound();
+            if (upperBound == null || upperBound.isAfter(cutoff)) {
+                continue;
+            }
+            String name = partition.getPartitionName();
+            if (MIN_PARTITION.equals(name)) {
+                truncateMin = partition.getTableRows() == null || partition.getTableRows() > 0;
+            } else if (MONTHLY_PARTITION.matcher(name).matches()) {
+                drop.add(name);
+            }
+        }
+        if (truncateMin) {
+            partitionMapper.truncatePartition(table, MIN_PARTITION);
+        }
+        if (!drop.isEmpty()) {
+            partitionMapper.dropPartitions(table, String.join(", ", drop));
+            log.info("{} 已删除 {} 之前的分区: {}", table, cutoff, drop);
+        }
+        return drop.size() + (truncateMin ? 1 : 0);
+    }
+
+    private static String partitionName(YearMonth month) {
+        return "p" + month.format(MONTH_FORMAT);
+    }
+}
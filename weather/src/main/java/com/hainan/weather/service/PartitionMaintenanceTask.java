@@ -0,0 +1,28 @@
+package com.hainan.weather.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+@Component
+@Slf4j
+public class PartitionMaintenanceTask {
+
+    @Autowired
+    private PartitionMaintenanceService partitionMaintenanceService;
+
+    /**
+     * 启动后执行一次，之后定期补齐未来的分区并删除过期预警分区
+     */
+    @Scheduled(initialDelay = 30000, fixedDelayString = "${qweather.partition.interval-ms:21600000}")
+    public void maintainPartitions() {
+        log.info("========== 开始执行定时任务：维护数据表分区 ==========");
+        try {
+            partitionMaintenanceService.maintain();
+            log.info("========== 定时任务执行完成：维护数据表分区 ==========");
+        } catch (Exception e) {
+            log.error("========== 定时任务执行失败：维护数据表分区 ==========", e);
+        }
+    }
+}
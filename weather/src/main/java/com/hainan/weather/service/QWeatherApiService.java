@@ -1,42 +1,57 @@
 package com.hainan.weather.service;
 
-import com.fasterxml.jackson.databind.JsonNode;
-import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.hainan.weather.dto.SyncReport;
 import com.hainan.weather.entity.Location;
+import com.hainan.weather.entity.SyncRun;
 import com.hainan.weather.entity.WeatherData;
+import com.hainan.weather.entity.WeatherForecast;
+import com.hainan.weather.entity.WeatherForecastHourly;
 import com.hainan.weather.entity.WeatherWarning;
 import com.hainan.weather.mapper.LocationMapper;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.http.HttpEntity;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpMethod;
-import org.springframework.http.ResponseEntity;
-import org.springframework.http.client.ClientHttpRequestFactory;
-import org.springframework.http.client.SimpleClientHttpRequestFactory;
+import org.springframework.http.client.ClientHttpRequest;
+import org.springframework.http.client.ClientHttpResponse;
 import org.springframework.stereotype.Service;
+import org.springframework.util.StreamUtils;
+import org.springframework.web.client.HttpStatusCodeException;
+import org.springframework.web.client.ResourceAccessException;
+import org.springframework.web.client.ResponseExtractor;
 import org.springframework.web.client.RestTemplate;
 
-import java.io.ByteArrayInputStream;
-import java.io.InputStreamReader;
-import java.io.Reader;
+import java.io.IOException;
 import java.math.BigDecimal;
-import java.time.LocalDate;
+import java.math.RoundingMode;
 import java.time.LocalDateTime;
-import java.time.format.DateTimeFormatter;
 import java.util.ArrayList;
 import java.util.List;
-import java.util.zip.GZIPInputStream;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.stream.Collectors;
 
 @Service
 @Slf4j
 public class QWeatherApiService {
 
-    // API配置（写死在代码中）
-    private static final String API_BASE_URL = "https://mp52qby2rg.re.qweatherapi.com";
-    private static final String API_KEY = "f8626752a27f4789a1df8e692333435d";
     private static final String API_KEY_HEADER = "X-QW-Api-Key";
 
+    /**
+     * API地址和密钥，压测时可将地址指向本地的模拟服务
+     */
+    @Value("${qweather.base-url:https://mp52qby2rg.re.qweatherapi.com}")
+    private String apiBaseUrl;
+
+    @Value("${qweather.api-key:f8626752a27f4789a1df8e692333435d}")
+    private String apiKey;
+
     @Autowired
     private LocationMapper locationMapper;
 
@@ -46,302 +61,400 @@ public class QWeatherApiService {
     @Autowired
     private WarningService warningService;
 
-    private final RestTemplate restTemplate;
-    private final ObjectMapper objectMapper;
+    @Autowired
+    @Qualifier("qweatherSyncExecutor")
+    private ExecutorService syncExecutor;
 
-    public QWeatherApiService() {
-        ClientHttpRequestFactory factory = new SimpleClientHttpRequestFactory();
-        this.restTemplate = new RestTemplate(factory);
-        this.objectMapper = new ObjectMapper();
-    }
+    @Autowired
+    @Qualifier("qweatherDecodeExecutor")
+    private ExecutorService decodeExecutor;
+
+    @Autowired
+    @Qualifier("qweatherPersistExecutor")
+    private ExecutorService persistExecutor;
+
+    @Autowired
+    @Qualifier("qweatherRestTemplate")
+    private RestTemplate restTemplate;
+
+    @Autowired
+    private QWeatherResponseDecoder responseDecoder;
+
+    @Autowired
+    private QWeatherRateLimiter rateLimiter;
+
+    @Autowired
+    private QWeatherCircuitBreaker circuitBreaker;
+
+    @Autowired
+    private LocationRefreshScheduler refreshScheduler;
+
+    @Autowired
+    private SyncRunService syncRunService;
 
-    // 或者使用@Autowired注入RestTemplate Bean（如果配置了的话）
-    // 当前使用直接创建的方式
+    /**
+     * 每批入库的地点数，每批入库后写一次检查点
+     */
+    @Value("${qweather.sync.chunk-size:50}")
+    private int syncChunkSize;
 
     /**
-     * 处理可能的gzip压缩响应
+     * 入库缓冲中第一条结果的最长等待时间（毫秒），未攒满一批时到期也刷写
      */
-    private String decompressResponse(byte[] body, String contentEncoding) {
-        try {
-            if (contentEncoding != null && contentEncoding.contains("gzip")) {
-                GZIPInputStream gzipInputStream = new GZIPInputStream(new ByteArrayInputStream(body));
-                Reader reader = new InputStreamReader(gzipInputStream, "UTF-8");
-                StringBuilder sb = new StringBuilder();
-                char[] buffer = new char[1024];
-                int len;
-                while ((len = reader.read(buffer)) > 0) {
-                    sb.append(buffer, 0, len);
+    @Value("${qweather.sync.max-flush-latency-ms:5000}")
+    private long syncMaxFlushLatencyMs;
+
+    /**
+     * 拉取阶段并发数，与同步线程池大小一致
+     */
+    @Value("${qweather.sync.concurrency:8}")
+    private int syncConcurrency;
+
+    /**
+     * 解析阶段线程数
+     */
+    @Value("${qweather.sync.decode-threads:2}")
+    private int decodeThreads;
+
+    /**
+     * 流水线阶段之间交接队列的容量
+     */
+    @Value("${qweather.sync.queue-capacity:64}")
+    private int pipelineQueueCapacity;
+
+    /**
+     * 收到429后的最大重试次数，重试前由限流器负责等待
+     */
+    @Value("${qweather.rate-limit.max-retries:2}")
+    private int maxRetries;
+
+    /**
+     * 预警地理网格边长（度），同一网格内的地点共用一次预警请求，0.1度约11公里
+     */
+    @Value("${qweather.alert.bucket-degrees:0.1}")
+    private BigDecimal alertBucketDegrees;
+
+    /**
+     * 预报刷新间隔（小时），上游预报本身数小时才更新一次
+     */
+    @Value("${qweather.forecast.refresh-hours:6}")
+    private long forecastRefreshHours;
+
+    /**
+     * 各地点上次成功写入预报的时间
+     */
+    private final Map<String, LocalDateTime> lastForecastSync = new ConcurrentHashMap<>();
+
+    /**
+     * 设置和风天气鉴权请求头
+     * 响应体由解码器直接从流中读取，gzip由连接池客户端在读取时流式解压
+     */
+    private void applyAuthHeader(ClientHttpRequest request) {
+        request.getHeaders().set(API_KEY_HEADER, apiKey);
+    }
+
+    /**
+     * 经熔断器和限流器发起GET请求：429时限流器降速暂停后重试，5xx时降速后抛出；
+     * 只有超时、连接失败和5xx计入熔断器失败次数，响应解析失败不计入。先判断熔断器，打开期间不占用令牌和每日配额
+     */
+    private <T> T executeGet(String url, ResponseExtractor<T> extractor) throws Exception {
+        for (int attempt = 0; ; attempt++) {
+            if (!circuitBreaker.allowRequest()) {
+                throw new IllegalStateException("和风天气熔断器已打开，跳过请求");
+            }
+            boolean acquired = false;
+            try {
+                acquired = rateLimiter.acquire();
+            } finally {
+                if (!acquired) {
+                    // 没有发出请求，归还半开状态下的探测名额
+                    circuitBreaker.cancelRequest();
                 }
-                reader.close();
-                return sb.toString();
-            } else {
-                return new String(body, "UTF-8");
             }
-        } catch (Exception e) {
-            log.error("解压响应失败", e);
-            return new String(body);
+            if (!acquired) {
+                throw new IllegalStateException("和风天气今日调用配额已用尽");
+            }
+            try {
+                T result = restTemplate.execute(url, HttpMethod.GET, this::applyAuthHeader, extractor);
+                rateLimiter.onSuccess();
+                circuitBreaker.onSuccess();
+                return result;
+            } catch (HttpStatusCodeException e) {
+                if (e.getStatusCode().is5xxServerError()) {
+                    rateLimiter.onServerError();
+                    circuitBreaker.onFailure("HTTP " + e.getStatusCode().value());
+                    throw e;
+                }
+                // 4xx说明上游可达，不计入熔断
+                circuitBreaker.onSuccess();
+                if (e.getStatusCode().value() == 429) {
+                    rateLimiter.onThrottled(retryAfterSeconds(e.getResponseHeaders()));
+                    if (attempt < maxRetries) {
+                        continue;
+                    }
+                }
+                throw e;
+            } catch (ResourceAccessException e) {
+                if (e.getCause() instanceof JsonProcessingException) {
+                    // RestTemplate把响应解析的IOException也包装成ResourceAccessException，响应格式错误说明上游可达
+                    circuitBreaker.onSuccess();
+                } else {
+                    circuitBreaker.onFailure(e.getMessage());
+                }
+                throw e;
+            } catch (RuntimeException e) {
+                // 解析响应等非传输异常同样说明上游可达，不计入熔断，同时结束半开探测
+                circuitBreaker.onSuccess();
+                throw e;
+            }
+        }
+    }
+
+    private Long retryAfterSeconds(HttpHeaders headers) {
+        String retryAfter = headers != null ? headers.getFirst(HttpHeaders.RETRY_AFTER) : null;
+        if (retryAfter == null) {
+            return null;
+        }
+        try {
+            return Long.parseLong(retryAfter.trim());
+        } catch (NumberFormatException e) {
+            return null;
         }
     }
 
     /**
-     * 获取实时天气数据
+     * 以下 fetch*Raw 方法供同步流水线的拉取阶段使用，只读取响应体字节，解析交给解析阶段
      */
-    public WeatherData fetchWeatherData(Long locationId) {
-        try {
-            Location location = locationMapper.findById(locationId);
-            if (location == null) {
-                log.warn("未找到地点信息, locationId: {}", locationId);
-                return null;
-            }
+    byte[] fetchWeatherNowRaw(Location location) throws Exception {
+        String qweatherLocationId = location.getLocationId();
+        if (qweatherLocationId == null || qweatherLocationId.isEmpty()) {
+            log.warn("地点缺少和风天气location_id, locationId: {}, locationCode: {}", location.getId(), location.getLocationCode());
+            return null;
+        }
+        return executeGet(apiBaseUrl + "/v7/weather/now?location=" + qweatherLocationId, this::readBody);
+    }
 
-            // 使用和风天气的location_id字段（数据库中的location_id列）
-            String qweatherLocationId = location.getLocationId();
-            if (qweatherLocationId == null || qweatherLocationId.isEmpty()) {
-                log.warn("地点缺少和风天气location_id, locationId: {}, locationCode: {}", locationId, location.getLocationCode());
-                return null;
-            }
+    byte[] fetchDailyForecastRaw(Location location) throws Exception {
+        return executeGet(apiBaseUrl + "/v7/weather/7d?location=" + location.getLocationId(), this::readBody);
+    }
 
-            String url = API_BASE_URL + "/v7/weather/now?location=" + qweatherLocationId;
-            HttpHeaders headers = new HttpHeaders();
-            headers.set(API_KEY_HEADER, API_KEY);
-            // 明确指定不接受gzip压缩，让服务器返回未压缩的JSON
-            headers.set("Accept-Encoding", "identity");
-            HttpEntity<String> entity = new HttpEntity<>(headers);
-
-            ResponseEntity<byte[]> response = restTemplate.exchange(url, HttpMethod.GET, entity, byte[].class);
-
-            if (response.getStatusCode().is2xxSuccessful() && response.getBody() != null) {
-                String responseBody = decompressResponse(response.getBody(),
-                    response.getHeaders().getFirst("Content-Encoding"));
-
-                JsonNode rootNode = objectMapper.readTree(responseBody);
-
-                if ("200".equals(rootNode.path("code").asText())) {
-                    JsonNode nowNode = rootNode.path("now");
-
-                    WeatherData weatherData = new WeatherData();
-                    weatherData.setLocationCode(location.getLocationCode());
-                    weatherData.setTemperature(new BigDecimal(nowNode.path("temp").asText()));
-                    weatherData.setHumidity(new BigDecimal(nowNode.path("humidity").asText()));
-                    weatherData.setWindSpeed(new BigDecimal(nowNode.path("windSpeed").asText()));
-                    weatherData.setWindDirection(nowNode.path("windDir").asText());
-                    weatherData.setPrecipitation(new BigDecimal(nowNode.path("precip").asText()));
-                    weatherData.setWeatherCondition(nowNode.path("text").asText());
-                    weatherData.setPressure(new BigDecimal(nowNode.path("pressure").asText()));
-                    weatherData.setVisibility(new BigDecimal(nowNode.path("vis").asText()));
-
-                    // 解析更新时间
-                    String updateTimeStr = rootNode.path("updateTime").asText();
-                    if (updateTimeStr != null && !updateTimeStr.isEmpty()) {
-                        try {
-                            weatherData.setUpdateTime(LocalDateTime.parse(updateTimeStr.replace("+08:00", ""),
-                                DateTimeFormatter.ofPattern("yyyy-MM-dd'T'HH:mm")));
-                        } catch (Exception e) {
-                            log.warn("解析更新时间失败，使用当前时间", e);
-                            weatherData.setUpdateTime(LocalDateTime.now());
-                        }
-                    } else {
-                        weatherData.setUpdateTime(LocalDateTime.now());
-                    }
+    byte[] fetchHourlyForecastRaw(Location location) throws Exception {
+        return executeGet(apiBaseUrl + "/v7/weather/24h?location=" + location.getLocationId(), this::readBody);
+    }
 
-                    weatherData.setDataDate(LocalDate.now());
+    private byte[] readBody(ClientHttpResponse response) throws IOException {
+        return StreamUtils.copyToByteArray(response.getBody());
+    }
 
-                    return weatherData;
-                } else {
-                    log.warn("API返回错误, code: {}, message: {}, locationId: {}",
-                        rootNode.path("code").asText(),
-                        rootNode.path("message").asText(),
-                        qweatherLocationId);
-                }
-            } else {
-                log.warn("API请求失败, status: {}, locationId: {}",
-                    response.getStatusCode(), qweatherLocationId);
-            }
+    boolean isForecastDue(Location location, boolean force) {
+        if (location.getLocationId() == null || location.getLocationId().isEmpty()) {
+            return false;
+        }
+        LocalDateTime last = lastForecastSync.get(location.getLocationCode());
+        return force || last == null || last.isBefore(LocalDateTime.now().minusHours(forecastRefreshHours));
+    }
+
+    /**
+     * 地点所在预警网格的中心坐标，格式为 "纬度/经度"，缺少经纬度时返回null
+     */
+    private String alertBucketKey(Location location) {
+        if (location.getLatitude() == null || location.getLongitude() == null) {
+            return null;
+        }
+        return snapToBucket(location.getLatitude()).toPlainString() + "/"
+                + snapToBucket(location.getLongitude()).toPlainString();
+    }
+
+    private BigDecimal snapToBucket(BigDecimal coordinate) {
+        if (alertBucketDegrees == null || alertBucketDegrees.signum() <= 0) {
+            return coordinate.setScale(2, RoundingMode.HALF_UP);
+        }
+        return coordinate.divide(alertBucketDegrees, 0, RoundingMode.HALF_UP)
+                .multiply(alertBucketDegrees)
+                .setScale(2, RoundingMode.HALF_UP);
+    }
+
+    /**
+     * 获取地点所在网格的预警响应体，同一网格只请求一次，其余地点等待并复用同一份响应
+     */
+    byte[] fetchBucketWarningsRaw(Location location, SyncReport report,
+                                  Map<String, CompletableFuture<byte[]>> alertBuckets) throws Exception {
+        String bucketKey = alertBucketKey(location);
+        if (bucketKey == null) {
+            log.warn("地点缺少经纬度, locationId: {}, locationCode: {}", location.getId(), location.getLocationCode());
+            return null;
+        }
+        CompletableFuture<byte[]> bucket = new CompletableFuture<>();
+        CompletableFuture<byte[]> existing = alertBuckets.putIfAbsent(bucketKey, bucket);
+        if (existing != null) {
+            return existing.join();
+        }
+        report.getAlertRequests().incrementAndGet();
+        try {
+            byte[] body = executeGet(apiBaseUrl + "/weatheralert/v1/current/" + bucketKey, this::readBody);
+            bucket.complete(body);
+            return body;
         } catch (Exception e) {
-            log.error("获取天气数据失败, locationId: {}", locationId, e);
+            bucket.completeExceptionally(e);
+            throw e;
         }
-        return null;
     }
 
     /**
-     * 获取天气预警数据
+     * 同步地点数据，进度实时写入传入的报告，便于调用方查询
+     * 各地点在同步线程池中并发拉取，并发上限由 qweather.sync.concurrency 控制，解析和入库由 SyncPipeline 分阶段执行；
+     * 存在未完成的同步运行时先续跑其剩余地点；入库阶段按批写入，每批入库后写检查点。
+     * 只由 SyncCoordinator 调用，由其保证同一时间只有一次同步在执行
+     *
+     * @param force true时同步全部启用地点，false时只同步刷新调度器中已到期的地点
      */
-    public List<WeatherWarning> fetchWeatherWarnings(Long locationId) {
-        List<WeatherWarning> warnings = new ArrayList<>();
+    SyncReport syncAllLocations(SyncReport report, String source, boolean force) {
+        report.setStartTime(LocalDateTime.now());
+        long startNanos = System.nanoTime();
+        List<Location> dueLocations = new ArrayList<>();
+        Set<String> processedCodes = ConcurrentHashMap.newKeySet();
         try {
-            Location location = locationMapper.findById(locationId);
-            if (location == null || location.getLatitude() == null || location.getLongitude() == null) {
-                log.warn("未找到地点信息或缺少经纬度, locationId: {}", locationId);
-                return warnings;
+            List<Location> enabledLocations = new ArrayList<>();
+            for (Location location : locationMapper.findAll()) {
+                // 只同步启用的地点
+                if (location.getStatus() != null && location.getStatus() == 1) {
+                    enabledLocations.add(location);
+                }
             }
 
-            String url = API_BASE_URL + "/weatheralert/v1/current/" +
-                        location.getLatitude() + "/" + location.getLongitude();
-            HttpHeaders headers = new HttpHeaders();
-            headers.set(API_KEY_HEADER, API_KEY);
-            // 明确指定不接受gzip压缩
-            headers.set("Accept-Encoding", "identity");
-            HttpEntity<String> entity = new HttpEntity<>(headers);
-
-            ResponseEntity<byte[]> response = restTemplate.exchange(url, HttpMethod.GET, entity, byte[].class);
-
-            if (response.getStatusCode().is2xxSuccessful() && response.getBody() != null) {
-                String responseBody = decompressResponse(response.getBody(),
-                    response.getHeaders().getFirst("Content-Encoding"));
-                JsonNode rootNode = objectMapper.readTree(responseBody);
-                JsonNode alertsNode = rootNode.path("alerts");
-
-                if (alertsNode.isArray()) {
-                    DateTimeFormatter formatter = DateTimeFormatter.ofPattern("yyyy-MM-dd'T'HH:mm");
-
-                    for (JsonNode alertNode : alertsNode) {
-                        WeatherWarning warning = new WeatherWarning();
-                        warning.setLocationCode(location.getLocationCode());
-
-                        // 预警类型
-                        JsonNode eventTypeNode = alertNode.path("eventType");
-                        if (eventTypeNode.has("name")) {
-                            warning.setWarningType(eventTypeNode.path("name").asText());
-                        }
-
-                        // 预警等级（severity映射到warningLevel）
-                        String severity = alertNode.path("severity").asText();
-                        if (severity != null && !severity.isEmpty()) {
-                            // 将severity映射到中文等级
-                            switch (severity.toLowerCase()) {
-                                case "extreme":
-                                    warning.setWarningLevel("红色");
-                                    break;
-                                case "severe":
-                                    warning.setWarningLevel("橙色");
-                                    break;
-                                case "moderate":
-                                    warning.setWarningLevel("黄色");
-                                    break;
-                                case "minor":
-                                    warning.setWarningLevel("蓝色");
-                                    break;
-                                default:
-                                    warning.setWarningLevel("蓝色");
-                            }
-                        } else {
-                            warning.setWarningLevel("蓝色");
-                        }
-
-                        // 标题
-                        warning.setTitle(alertNode.path("headline").asText());
-
-                        // 内容
-                        String description = alertNode.path("description").asText();
-                        String criteria = alertNode.path("criteria").asText();
-                        String instruction = alertNode.path("instruction").asText();
-                        StringBuilder content = new StringBuilder();
-                        if (description != null && !description.isEmpty()) {
-                            content.append(description);
-                        }
-                        if (criteria != null && !criteria.isEmpty()) {
-                            content.append("\n\n").append("标准：").append(criteria);
-                        }
-                        if (instruction != null && !instruction.isEmpty()) {
-                            content.append("\n\n").append("防御指南：").append(instruction);
-                        }
-                        warning.setContent(content.toString());
-
-                        // 发布时间
-                        String issuedTimeStr = alertNode.path("issuedTime").asText();
-                        if (issuedTimeStr != null && !issuedTimeStr.isEmpty()) {
-                            try {
-                                warning.setIssueTime(LocalDateTime.parse(issuedTimeStr.replace("+08:00", ""), formatter));
-                            } catch (Exception e) {
-                                log.warn("解析发布时间失败", e);
-                                warning.setIssueTime(LocalDateTime.now());
-                            }
-                        } else {
-                            warning.setIssueTime(LocalDateTime.now());
-                        }
-
-                        // 生效时间
-                        String effectiveTimeStr = alertNode.path("effectiveTime").asText();
-                        if (effectiveTimeStr != null && !effectiveTimeStr.isEmpty()) {
-                            try {
-                                warning.setEffectiveTime(LocalDateTime.parse(effectiveTimeStr.replace("+08:00", ""), formatter));
-                            } catch (Exception e) {
-                                warning.setEffectiveTime(warning.getIssueTime());
-                            }
-                        } else {
-                            warning.setEffectiveTime(warning.getIssueTime());
-                        }
-
-                        // 过期时间
-                        String expireTimeStr = alertNode.path("expireTime").asText();
-                        if (expireTimeStr != null && !expireTimeStr.isEmpty()) {
-                            try {
-                                warning.setExpireTime(LocalDateTime.parse(expireTimeStr.replace("+08:00", ""), formatter));
-                            } catch (Exception e) {
-                                // 如果没有过期时间，默认24小时后过期
-                                warning.setExpireTime(warning.getIssueTime().plusHours(24));
-                            }
-                        } else {
-                            warning.setExpireTime(warning.getIssueTime().plusHours(24));
-                        }
-
-                        warning.setStatus("ACTIVE");
-
-                        warnings.add(warning);
-                    }
+            // 熔断打开期间不访问网络，读接口继续返回最后一次成功的观测并标记为过期
+            if (circuitBreaker.isOpen()) {
+                report.addFailure("*", "和风天气熔断器已打开，跳过本次同步");
+                return report;
+            }
+
+            // 定时同步只刷新已到期的地点，手动同步刷新全部地点
+            dueLocations = refreshScheduler.pollDue(enabledLocations, LocalDateTime.now());
+
+            List<Location> locations;
+            SyncRun run = syncRunService.findResumableRun();
+            if (run != null) {
+                // 上次运行中断，只处理仍未完成的地点
+                List<String> pendingCodes = syncRunService.getPendingLocationCodes(run.getId());
+                if (pendingCodes == null) {
+                    report.addFailure("*", "加载同步检查点失败");
+                    return report;
+                }
+                Set<String> pending = Set.copyOf(pendingCodes);
+                locations = enabledLocations.stream()
+                        .filter(location -> pending.contains(location.getLocationCode()))
+                        .collect(Collectors.toList());
+                report.setResumed(true);
+                log.info("继续未完成的同步运行 {}，剩余地点 {} 个", run.getId(), locations.size());
+            } else {
+                locations = force ? enabledLocations : dueLocations;
+                if (locations.isEmpty()) {
+                    return report;
+                }
+                run = syncRunService.startRun(source, force, locationCodes(locations));
+                if (run == null) {
+                    report.addFailure("*", "创建同步运行记录失败");
+                    return report;
                 }
             }
+            report.setRunId(run.getId());
+            report.setTotalLocations(locations.size());
+
+            // 同步开始时加载一次已有生效预警，之后各地点只在内存中判重
+            List<WeatherWarning> activeWarnings = warningService.getActiveWeatherWarnings();
+            AlertFingerprintIndex alertIndex = activeWarnings != null ? AlertFingerprintIndex.of(activeWarnings) : null;
+            if (alertIndex == null) {
+                report.addFailure("*", "加载已有预警失败，本次跳过预警入库");
+            }
+            Set<String> warnedLocationCodes = activeWarnings == null ? Set.of() : activeWarnings.stream()
+                    .map(WeatherWarning::getLocationCode)
+                    .collect(Collectors.toSet());
+
+            // 拉取、解析、入库三个阶段并行推进，每批入库成功后写检查点
+            SyncPipeline pipeline = new SyncPipeline(this, responseDecoder, refreshScheduler, syncRunService,
+                    report, run.getId(), force, alertIndex, warnedLocationCodes,
+                    syncConcurrency, decodeThreads, pipelineQueueCapacity, syncChunkSize, syncMaxFlushLatencyMs);
+            long acquiredBefore = rateLimiter.getAcquiredCount();
+            boolean completed = pipeline.run(locations, syncExecutor, decodeExecutor, persistExecutor);
+            processedCodes.addAll(pipeline.getProcessedCodes());
+            // 按实际发放的许可数修正每次刷新的调用量估计，预算放大系数才能反映预警网格共用和预报刷新
+            refreshScheduler.recordUsage(rateLimiter.getAcquiredCount() - acquiredBefore, pipeline.getProcessedCodes().size());
+            // 各批入库不单独记日志，整次运行只写一条汇总
+            warningService.logSyncedWarnings(pipeline.getSavedWarnings(), null);
+            if (!completed) {
+                // 入库失败时未写检查点的地点保持PENDING，下次同步从这里继续
+                report.addFailure("*", "同步运行 " + run.getId() + " 中断，剩余地点将在下次同步时继续");
+                return report;
+            }
+            syncRunService.finishRun(run.getId(), SyncRunService.RUN_COMPLETED,
+                    "完成地点 " + locations.size() + " 个，失败 " + report.getFailures().size() + " 个");
         } catch (Exception e) {
-            log.error("获取天气预警数据失败, locationId: {}", locationId, e);
+            log.error("同步所有地点数据失败", e);
+            report.addFailure("*", e.getMessage());
+        } finally {
+            // 已取出但未处理的到期地点放回调度队列
+            List<Location> unprocessed = new ArrayList<>();
+            for (Location location : dueLocations) {
+                if (!processedCodes.contains(location.getLocationCode())) {
+                    unprocessed.add(location);
+                }
+            }
+            refreshScheduler.requeue(unprocessed);
+
+            report.setEndTime(LocalDateTime.now());
+            report.setDurationMs((System.nanoTime() - startNanos) / 1_000_000);
+            log.info("同步完成，地点: {}/{}，天气数据: {} 条，预警数据: {} 条，预警请求: {} 次，失败地点: {} 个，耗时: {} ms",
+                    report.getProcessedLocations().get(), report.getTotalLocations(),
+                    report.getWeatherCount().get(), report.getWarningCount().get(), report.getAlertRequests().get(),
+                    report.getFailures().size(), report.getDurationMs());
+            for (Map.Entry<String, String> failure : report.getFailures().entrySet()) {
+                log.warn("同步失败地点: {}，原因: {}", failure.getKey(), failure.getValue());
+            }
         }
-        return warnings;
+        return report;
     }
 
     /**
-     * 同步所有地点的天气和预警数据
+     * 批量写入流水线一批地点的数据，任一类数据入库失败时返回false
      */
-    public void syncAllLocations() {
-        try {
-            List<Location> locations = locationMapper.findAll();
-            int weatherCount = 0;
-            int warningCount = 0;
+    boolean persistBatch(SyncReport report, List<WeatherData> weatherData, List<WeatherWarning> warnings,
+                         List<WeatherForecast> daily, List<WeatherForecastHourly> hourly,
+                         List<String> forecastLocationCodes) {
+        if (!weatherData.isEmpty()) {
+            if (!weatherService.saveWeatherDataBatch(weatherData)) {
+                report.addFailure("*", "批量保存天气数据失败，共 " + weatherData.size() + " 条");
+                return false;
+            }
+            report.getWeatherCount().addAndGet(weatherData.size());
+        }
 
-            for (Location location : locations) {
-                // 只同步启用的地点
-                if (location.getStatus() != null && location.getStatus() == 1) {
-                    // 同步天气数据
-                    WeatherData weatherData = fetchWeatherData(location.getId());
-                    if (weatherData != null) {
-                        weatherService.saveWeatherData(weatherData);
-                        weatherCount++;
-                    }
+        if (!forecastLocationCodes.isEmpty()) {
+            if (!weatherService.saveSyncedForecasts(daily, hourly)) {
+                report.addFailure("*", "批量保存天气预报失败，共 " + (daily.size() + hourly.size()) + " 条");
+                return false;
+            }
+            report.getForecastCount().addAndGet(daily.size() + hourly.size());
+            LocalDateTime now = LocalDateTime.now();
+            for (String locationCode : forecastLocationCodes) {
+                lastForecastSync.put(locationCode, now);
+            }
+        }
 
-                    // 同步预警数据
-                    List<WeatherWarning> warnings = fetchWeatherWarnings(location.getId());
-                    for (WeatherWarning warning : warnings) {
-                        // 检查是否已存在相同的预警（根据标题和发布时间判断）
-                        List<WeatherWarning> existingWarnings = warningService.getActiveWarningsByLocation(location.getLocationCode());
-                        boolean exists = false;
-                        for (WeatherWarning existing : existingWarnings) {
-                            if (existing.getTitle() != null && existing.getTitle().equals(warning.getTitle()) &&
-                                existing.getIssueTime() != null && warning.getIssueTime() != null &&
-                                existing.getIssueTime().equals(warning.getIssueTime())) {
-                                exists = true;
-                                break;
-                            }
-                        }
-
-                        if (!exists) {
-                            warningService.saveWeatherWarning(warning, null);
-                            warningCount++;
-                        }
-                    }
-                }
+        if (!warnings.isEmpty()) {
+            if (!warningService.saveWeatherWarnings(warnings)) {
+                report.addFailure("*", "批量保存预警失败，共 " + warnings.size() + " 条");
+                return false;
             }
+            report.getWarningCount().addAndGet(warnings.size());
+        }
+        return true;
+    }
 
-            log.info("同步完成，天气数据: {} 条，预警数据: {} 条", weatherCount, warningCount);
-        } catch (Exception e) {
-            log.error("同步所有地点数据失败", e);
+    private List<String> locationCodes(List<Location> locations) {
+        List<String> codes = new ArrayList<>(locations.size());
+        for (Location location : locations) {
+            codes.add(location.getLocationCode());
         }
+        return codes;
     }
 }
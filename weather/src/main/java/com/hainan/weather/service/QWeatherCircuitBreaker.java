@@ -0,0 +1,128 @@
+package com.hainan.weather.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 和风天气调用熔断器
+ * 连续失败达到阈值后打开，打开期间不发起请求；
+ * 打开时间到期后进入半开状态，只放行一个探测请求，成功则关闭，失败则重新打开
+ */
+@Component
+@Slf4j
+public class QWeatherCircuitBreaker {
+
+    public enum State {
+        CLOSED, OPEN, HALF_OPEN
+    }
+
+    /**
+     * 触发熔断的连续失败次数
+     */
+    @Value("${qweather.circuit-breaker.failure-threshold:5}")
+    private int failureThreshold;
+
+    /**
+     * 熔断打开的持续时间（毫秒）
+     */
+    @Value("${qweather.circuit-breaker.open-duration-ms:60000}")
+    private long openDurationMs;
+
+    private State state = State.CLOSED;
+    private int consecutiveFailures;
+    private long openedAtNanos;
+    private boolean probeInFlight;
+    private LocalDateTime lastOpenTime;
+    private String lastFailure;
+    private long openCount;
+
+    /**
+     * 是否允许发起请求，半开状态下只放行一个探测请求
+     */
+    public synchronized boolean allowRequest() {
+        switch (state) {
+            case CLOSED:
+                return true;
+            case OPEN:
+                if (System.nanoTime() - openedAtNanos < TimeUnit.MILLISECONDS.toNanos(openDurationMs)) {
+                    return false;
+                }
+                state = State.HALF_OPEN;
+                probeInFlight = true;
+                log.info("和风天气熔断器进入半开状态，发起探测请求");
+                return true;
+            default:
+                if (probeInFlight) {
+                    return false;
+                }
+                probeInFlight = true;
+                return true;
+        }
+    }
+
+    /**
+     * allowRequest 放行后未实际发出请求（如配额用尽），不计成功或失败，只释放半开探测名额
+     */
+    public synchronized void cancelRequest() {
+        probeInFlight = false;
+    }
+
+    public synchronized void onSuccess() {
+        if (state != State.CLOSED) {
+            log.info("和风天气熔断器探测成功，恢复关闭状态");
+        }
+        state = State.CLOSED;
+        consecutiveFailures = 0;
+        probeInFlight = false;
+    }
+
+    /**
+     * 记录一次失败（超时、连接错误、5xx），连续失败达到阈值或半开探测失败时打开熔断
+     */
+    public synchronized void onFailure(String reason) {
+        lastFailure = reason;
+        consecutiveFailures++;
+        probeInFlight = false;
+        if (state == State.HALF_OPEN || (state == State.CLOSED && consecutiveFailures >= failureThreshold)) {
+            state = State.OPEN;
+            openedAtNanos = System.nanoTime();
+            lastOpenTime = LocalDateTime.now();
+            openCount++;
+            log.warn("和风天气熔断器打开，连续失败 {} 次，{} ms 内不再请求，最近原因: {}",
+                    consecutiveFailures, openDurationMs, reason);
+        }
+    }
+
+    /**
+     * 熔断器是否处于打开状态且尚未到探测时间
+     */
+    public synchronized boolean isOpen() {
+        return state == State.OPEN
+                && System.nanoTime() - openedAtNanos < TimeUnit.MILLISECONDS.toNanos(openDurationMs);
+    }
+
+    public synchronized State getState() {
+        return state;
+    }
+
+    /**
+     * 熔断器状态，供管理接口展示
+     */
+    public synchronized Map<String, Object> getStatus() {
+        Map<String, Object> status = new LinkedHashMap<>();
+        status.put("state", state.name());
+        status.put("consecutiveFailures", consecutiveFailures);
+        status.put("failureThreshold", failureThreshold);
+        status.put("openDurationMs", openDurationMs);
+        status.put("openCount", openCount);
+        status.put("lastOpenTime", lastOpenTime);
+        status.put("lastFailure", lastFailure);
+        return status;
+    }
+}
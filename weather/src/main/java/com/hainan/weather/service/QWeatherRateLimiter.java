@@ -0,0 +1,190 @@
+package com.hainan.weather.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDate;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 和风天气调用限流器
+ * 令牌桶按每分钟配额匀速补充，另有每日配额上限；
+ * 出现429或5xx时速率减半并暂停一段时间，之后每次成功调用逐步恢复（AIMD）
+ */
+@Component
+@Slf4j
+public class QWeatherRateLimiter {
+
+    /**
+     * 降速后的最低速率比例
+     */
+    private static final double MIN_RATE_FACTOR = 0.1;
+
+    /**
+     * 每次成功调用恢复的速率比例
+     */
+    private static final double RECOVER_STEP = 0.02;
+
+    @Value("${qweather.rate-limit.per-minute:300}")
+    private int perMinute;
+
+    @Value("${qweather.rate-limit.per-day:50000}")
+    private long perDay;
+
+    /**
+     * 令牌桶容量，即允许的瞬时突发请求数
+     */
+    @Value("${qweather.rate-limit.burst:10}")
+    private int burst;
+
+    /**
+     * 收到429且没有Retry-After时的暂停时间（毫秒）
+     */
+    @Value("${qweather.rate-limit.cooldown-ms:5000}")
+    private long cooldownMs;
+
+    private double tokens = -1;
+    private long lastRefillNanos = System.nanoTime();
+    private double rateFactor = 1.0;
+    private long pausedUntilNanos;
+    private LocalDate budgetDate = LocalDate.now();
+    private long dailyUsed;
+
+    private final AtomicLong acquiredCount = new AtomicLong();
+    private final AtomicLong rejectedCount = new AtomicLong();
+    private final AtomicLong throttledCount = new AtomicLong();
+    private final AtomicLong serverErrorCount = new AtomicLong();
+    private final AtomicLong waitedMillis = new AtomicLong();
+
+    /**
+     * 获取一个调用许可，令牌不足时阻塞等待
+     * 当日配额已用尽时立即返回false
+     */
+    public boolean acquire() throws InterruptedException {
+        long waitStart = System.nanoTime();
+        while (true) {
+            long waitNanos;
+            synchronized (this) {
+                long now = System.nanoTime();
+                resetDailyBudgetIfNeeded();
+                if (dailyUsed >= perDay) {
+                    rejectedCount.incrementAndGet();
+                    return false;
+                }
+                refill(now);
+                if (now >= pausedUntilNanos && tokens >= 1) {
+                    tokens -= 1;
+                    dailyUsed++;
+                    acquiredCount.incrementAndGet();
+                    waitedMillis.addAndGet(TimeUnit.NANOSECONDS.toMillis(now - waitStart));
+                    return true;
+                }
+                long refillWait = (long) ((1 - tokens) / ratePerNano());
+                waitNanos = Math.max(pausedUntilNanos - now, refillWait);
+            }
+            TimeUnit.NANOSECONDS.sleep(Math.max(waitNanos, TimeUnit.MILLISECONDS.toNanos(1)));
+        }
+    }
+
+    /**
+     * 调用成功，速率按固定步长恢复
+     */
+    public synchronized void onSuccess() {
+        if (rateFactor < 1.0) {
+            refill(System.nanoTime());
+            rateFactor = Math.min(1.0, rateFactor + RECOVER_STEP);
+        }
+    }
+
+    /**
+     * 收到429：速率减半，并在Retry-After（或默认冷却时间）内暂停发放令牌
+     */
+    public synchronized void onThrottled(Long retryAfterSeconds) {
+        throttledCount.incrementAndGet();
+        long now = System.nanoTime();
+        refill(now);
+        decrease();
+        long pauseMs = retryAfterSeconds != null && retryAfterSeconds > 0 ? retryAfterSeconds * 1000 : cooldownMs;
+        pausedUntilNanos = Math.max(pausedUntilNanos, now + TimeUnit.MILLISECONDS.toNanos(pauseMs));
+        tokens = 0;
+        log.warn("和风天气返回429，暂停 {} ms，当前速率 {}/分钟", pauseMs, Math.round(perMinute * rateFactor));
+    }
+
+    /**
+     * 收到5xx：速率减半，不暂停
+     */
+    public synchronized void onServerError() {
+        serverErrorCount.incrementAndGet();
+        refill(System.nanoTime());
+        decrease();
+        log.warn("和风天气返回服务端错误，当前速率 {}/分钟", Math.round(perMinute * rateFactor));
+    }
+
+    /**
+     * 限流器状态，供管理接口展示
+     */
+    public synchronized Map<String, Object> getStatus() {
+        refill(System.nanoTime());
+        resetDailyBudgetIfNeeded();
+        Map<String, Object> status = new LinkedHashMap<>();
+        status.put("perMinute", perMinute);
+        status.put("perDay", perDay);
+        status.put("currentRatePerMinute", Math.round(perMinute * rateFactor));
+        status.put("availableTokens", (int) Math.floor(tokens));
+        status.put("dailyUsed", dailyUsed);
+        status.put("dailyRemaining", Math.max(0, perDay - dailyUsed));
+        status.put("pausedMs", Math.max(0, TimeUnit.NANOSECONDS.toMillis(pausedUntilNanos - System.nanoTime())));
+        status.put("acquiredCount", acquiredCount.get());
+        status.put("rejectedCount", rejectedCount.get());
+        status.put("throttledCount", throttledCount.get());
+        status.put("serverErrorCount", serverErrorCount.get());
+        status.put("totalWaitMs", waitedMillis.get());
+        return status;
+    }
+
+    /**
+     * 累计发放的许可数，调用方按前后差值统计一段时间内的实际调用量
+     */
+    public long getAcquiredCount() {
+        return acquiredCount.get();
+    }
+
+    public long getPerDay() {
+        return perDay;
+    }
+
+    public synchronized long getDailyRemaining() {
+        resetDailyBudgetIfNeeded();
+        return Math.max(0, perDay - dailyUsed);
+    }
+
+    private void decrease() {
+        rateFactor = Math.max(MIN_RATE_FACTOR, rateFactor / 2);
+    }
+
+    private double ratePerNano() {
+        return Math.max(1, perMinute) * rateFactor / TimeUnit.MINUTES.toNanos(1);
+    }
+
+    private void refill(long now) {
+        int capacity = Math.max(1, burst);
+        if (tokens < 0) {
+            tokens = capacity;
+        } else {
+            tokens = Math.min(capacity, tokens + (now - lastRefillNanos) * ratePerNano());
+        }
+        lastRefillNanos = now;
+    }
+
+    private void resetDailyBudgetIfNeeded() {
+        LocalDate today = LocalDate.now();
+        if (!today.equals(budgetDate)) {
+            budgetDate = today;
+            dailyUsed = 0;
+        }
+    }
+}
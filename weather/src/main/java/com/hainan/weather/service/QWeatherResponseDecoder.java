@@ -0,0 +1,515 @@
+package com.hainan.weather.service;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.hainan.weather.entity.WeatherData;
+import com.hainan.weather.entity.WeatherForecast;
+import com.hainan.weather.entity.WeatherForecastHourly;
+import com.hainan.weather.entity.WeatherWarning;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * 和风天气响应解码器
+ * 使用Jackson流式JsonParser直接把响应体解析为实体，不构建JsonNode树
+ */
+@Component
+@Slf4j
+public class QWeatherResponseDecoder {
+
+    /**
+     * 和风天气时间格式，如 2020-06-30T22:00+08:00，秒和时区偏移可选
+     */
+    private static final DateTimeFormatter TIME_FORMATTER = DateTimeFormatter.ofPattern("yyyy-MM-dd'T'HH:mm[:ss][XXX]");
+
+    /**
+     * severity 到中文预警等级的映射，未知等级按蓝色处理
+     */
+    private static final Map<String, String> SEVERITY_LEVELS = Map.of(
+            "extreme", "红色",
+            "severe", "橙色",
+            "moderate", "黄色",
+            "minor", "蓝色");
+    private static final String DEFAULT_LEVEL = "蓝色";
+
+    private final JsonFactory jsonFactory = new JsonFactory();
+
+    /**
+     * 解析 /v7/weather/now 响应，code 不为200时返回null
+     */
+    public WeatherData decodeWeatherNow(InputStream body, String locationCode) throws IOException {
+        try (JsonParser parser = jsonFactory.createParser(body)) {
+            return readWeatherNow(parser, locationCode);
+        }
+    }
+
+    public WeatherData decodeWeatherNow(byte[] body, String locationCode) throws IOException {
+        try (JsonParser parser = jsonFactory.createParser(body)) {
+            return readWeatherNow(parser, locationCode);
+        }
+    }
+
+    /**
+     * 解析 /weatheralert/v1/current 响应
+     */
+    public List<WeatherWarning> decodeWarnings(InputStream body, String locationCode) throws IOException {
+        try (JsonParser parser = jsonFactory.createParser(body)) {
+            return readWarnings(parser, locationCode);
+        }
+    }
+
+    public List<WeatherWarning> decodeWarnings(byte[] body, String locationCode) throws IOException {
+        try (JsonParser parser = jsonFactory.createParser(body)) {
+            return readWarnings(parser, locationCode);
+        }
+    }
+
+    /**
+     * 解析 /v7/weather/7d 响应，code 不为200时返回null
+     */
+    public List<WeatherForecast> decodeDailyForecast(InputStream body, String locationCode) throws IOException {
+        try (JsonParser parser = jsonFactory.createParser(body)) {
+            return readForecastArray(parser, "daily", locationCode, this::readDailyObject);
+        }
+    }
+
+    public List<WeatherForecast> decodeDailyForecast(byte[] body, String locationCode) throws IOException {
+        try (JsonParser parser = jsonFactory.createParser(body)) {
+            return readForecastArray(parser, "daily", locationCode, this::readDailyObject);
+        }
+    }
+
+    /**
+     * 解析 /v7/weather/24h 响应，code 不为200时返回null
+     */
+    public List<WeatherForecastHourly> decodeHourlyForecast(InputStream body, String locationCode) throws IOException {
+        try (JsonParser parser = jsonFactory.createParser(body)) {
+            return readForecastArray(parser, "hourly", locationCode, this::readHourlyObject);
+        }
+    }
+
+    public List<WeatherForecastHourly> decodeHourlyForecast(byte[] body, String locationCode) throws IOException {
+        try (JsonParser parser = jsonFactory.createParser(body)) {
+            return readForecastArray(parser, "hourly", locationCode, this::readHourlyObject);
+        }
+    }
+
+    @FunctionalInterface
+    private interface ElementReader<T> {
+        T read(JsonParser parser, String locationCode) throws IOException;
+    }
+
+    private <T> List<T> readForecastArray(JsonParser parser, String arrayField, String locationCode,
+                                          ElementReader<T> reader) throws IOException {
+        if (parser.nextToken() != JsonToken.START_OBJECT) {
+            throw new JsonParseException(parser, "预报响应不是JSON对象");
+        }
+        List<T> items = new ArrayList<>();
+        String code = null;
+        String message = null;
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.getCurrentName();
+            JsonToken token = parser.nextToken();
+            if ("code".equals(field)) {
+                code = parser.getText();
+            } else if ("message".equals(field)) {
+                message = parser.getText();
+            } else if (arrayField.equals(field) && token == JsonToken.START_ARRAY) {
+                while (parser.nextToken() == JsonToken.START_OBJECT) {
+                    T item = reader.read(parser, locationCode);
+                    if (item != null) {
+                        items.add(item);
+                    }
+                }
+            } else {
+                parser.skipChildren();
+            }
+        }
+        if (!"200".equals(code)) {
+            log.warn("API返回错误, code: {}, message: {}, locationCode: {}", code, message, locationCode);
+            return null;
+        }
+        return items;
+    }
+
+    private WeatherForecast readDailyObject(JsonParser parser, String locationCode) throws IOException {
+        WeatherForecast forecast = new WeatherForecast();
+        forecast.setLocationCode(locationCode);
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.getCurrentName();
+            JsonToken token = parser.nextToken();
+            switch (field) {
+                case "fxDate":
+                    forecast.setForecastDate(parseDate(textValue(parser, token)));
+                    break;
+                case "tempMax":
+                    forecast.setHighTemp(decimalValue(parser));
+                    break;
+                case "tempMin":
+                    forecast.setLowTemp(decimalValue(parser));
+                    break;
+                case "textDay":
+                    forecast.setDayCondition(textValue(parser, token));
+                    break;
+                case "textNight":
+                    forecast.setNightCondition(textValue(parser, token));
+                    break;
+                case "windSpeedDay":
+                    forecast.setWindSpeed(decimalValue(parser));
+                    break;
+                case "humidity":
+                    forecast.setHumidity(decimalValue(parser));
+                    break;
+                default:
+                    parser.skipChildren();
+            }
+        }
+        return forecast.getForecastDate() != null ? forecast : null;
+    }
+
+    private WeatherForecastHourly readHourlyObject(JsonParser parser, String locationCode) throws IOException {
+        WeatherForecastHourly forecast = new WeatherForecastHourly();
+        forecast.setLocationCode(locationCode);
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.getCurrentName();
+            JsonToken token = parser.nextToken();
+            switch (field) {
+                case "fxTime":
+                    forecast.setForecastTime(parseTime(textValue(parser, token)));
+                    break;
+                case "temp":
+                    forecast.setTemperature(decimalValue(parser));
+                    break;
+                case "text":
+                    forecast.setWeatherCondition(textValue(parser, token));
+                    break;
+                case "windDir":
+                    forecast.setWindDirection(textValue(parser, token));
+                    break;
+                case "windSpeed":
+                    forecast.setWindSpeed(decimalValue(parser));
+                    break;
+                case "humidity":
+                    forecast.setHumidity(decimalValue(parser));
+                    break;
+                case "precip":
+                    forecast.setPrecipitation(decimalValue(parser));
+                    break;
+                case "pop":
+                    forecast.setPrecipitationProb(decimalValue(parser));
+                    break;
+                case "pressure":
+                    forecast.setPressure(decimalValue(parser));
+                    break;
+                default:
+                    parser.skipChildren();
+            }
+        }
+        return forecast.getForecastTime() != null ? forecast : null;
+    }
+
+    private WeatherData readWeatherNow(JsonParser parser, String locationCode) throws IOException {
+        if (parser.nextToken() != JsonToken.START_OBJECT) {
+            throw new JsonParseException(parser, "实时天气响应不是JSON对象");
+        }
+        WeatherData weatherData = new WeatherData();
+        weatherData.setLocationCode(locationCode);
+        String code = null;
+        String message = null;
+
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.getCurrentName();
+            JsonToken token = parser.nextToken();
+            switch (field) {
+                case "code":
+                    code = parser.getText();
+                    break;
+                case "message":
+                    message = parser.getText();
+                    break;
+                case "updateTime":
+                    weatherData.setUpdateTime(parseTime(parser.getText()));
+                    break;
+                case "now":
+                    if (token == JsonToken.START_OBJECT) {
+                        readNowObject(parser, weatherData);
+                    } else {
+                        parser.skipChildren();
+                    }
+                    break;
+                default:
+                    parser.skipChildren();
+            }
+        }
+
+        if (!"200".equals(code)) {
+            log.warn("API返回错误, code: {}, message: {}, locationCode: {}", code, message, locationCode);
+            return null;
+        }
+        if (weatherData.getUpdateTime() == null) {
+            weatherData.setUpdateTime(LocalDateTime.now());
+        }
+        // 数据日期取上游观测时间所在日期，跨零点重复同步时仍落在同一行
+        weatherData.setDataDate(weatherData.getUpdateTime().toLocalDate());
+        return weatherData;
+    }
+
+    private void readNowObject(JsonParser parser, WeatherData weatherData) throws IOException {
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.getCurrentName();
+            parser.nextToken();
+            switch (field) {
+                case "temp":
+                    weatherData.setTemperature(decimalValue(parser));
+                    break;
+                case "humidity":
+                    weatherData.setHumidity(decimalValue(parser));
+                    break;
+                case "windSpeed":
+                    weatherData.setWindSpeed(decimalValue(parser));
+                    break;
+                case "windDir":
+                    weatherData.setWindDirection(parser.getText());
+                    break;
+                case "precip":
+                    weatherData.setPrecipitation(decimalValue(parser));
+                    break;
+                case "text":
+                    weatherData.setWeatherCondition(parser.getText());
+                    break;
+                case "pressure":
+                    weatherData.setPressure(decimalValue(parser));
+                    break;
+                case "vis":
+                    weatherData.setVisibility(decimalValue(parser));
+                    break;
+                default:
+                    parser.skipChildren();
+            }
+        }
+    }
+
+    private List<WeatherWarning> readWarnings(JsonParser parser, String locationCode) throws IOException {
+        List<WeatherWarning> warnings = new ArrayList<>();
+        if (parser.nextToken() != JsonToken.START_OBJECT) {
+            throw new JsonParseException(parser, "预警响应不是JSON对象");
+        }
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.getCurrentName();
+            JsonToken token = parser.nextToken();
+            if ("alerts".equals(field) && token == JsonToken.START_ARRAY) {
+                while (parser.nextToken() == JsonToken.START_OBJECT) {
+                    warnings.add(readAlertObject(parser, locationCode));
+                }
+            } else {
+                parser.skipChildren();
+            }
+        }
+        return warnings;
+    }
+
+    private WeatherWarning readAlertObject(JsonParser parser, String locationCode) throws IOException {
+        WeatherWarning warning = new WeatherWarning();
+        warning.setLocationCode(locationCode);
+        warning.setWarningLevel(DEFAULT_LEVEL);
+        String description = null;
+        String criteria = null;
+        String instruction = null;
+
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.getCurrentName();
+            JsonToken token = parser.nextToken();
+            switch (field) {
+                case "eventType":
+                    if (token == JsonToken.START_OBJECT) {
+                        warning.setWarningType(readNameField(parser));
+                    } else {
+                        parser.skipChildren();
+                    }
+                    break;
+                case "severity":
+                    warning.setWarningLevel(mapSeverity(token == JsonToken.VALUE_STRING ? parser.getText() : null));
+                    break;
+                case "headline":
+                    warning.setTitle(textValue(parser, token));
+                    break;
+                case "description":
+                    description = textValue(parser, token);
+                    break;
+                case "criteria":
+                    criteria = textValue(parser, token);
+                    break;
+                case "instruction":
+                    instruction = textValue(parser, token);
+                    break;
+                case "issuedTime":
+                    warning.setIssueTime(parseTime(textValue(parser, token)));
+                    break;
+                case "effectiveTime":
+                    warning.setEffectiveTime(parseTime(textValue(parser, token)));
+                    break;
+                case "expireTime":
+                    warning.setExpireTime(parseTime(textValue(parser, token)));
+                    break;
+                default:
+                    parser.skipChildren();
+            }
+        }
+
+        warning.setContent(buildContent(description, criteria, instruction));
+        if (warning.getIssueTime() == null) {
+            warning.setIssueTime(LocalDateTime.now().truncatedTo(ChronoUnit.SECONDS));
+        }
+        if (warning.getEffectiveTime() == null) {
+            warning.setEffectiveTime(warning.getIssueTime());
+        }
+        if (warning.getExpireTime() == null) {
+            // 如果没有过期时间，默认24小时后过期
+            warning.setExpireTime(warning.getIssueTime().plusHours(24));
+        }
+        warning.setStatus("ACTIVE");
+        return warning;
+    }
+
+    /**
+     * 读取 eventType 对象中的 name 字段
+     */
+    private String readNameField(JsonParser parser) throws IOException {
+        String name = null;
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.getCurrentName();
+            JsonToken token = parser.nextToken();
+            if ("name".equals(field)) {
+                name = textValue(parser, token);
+            } else {
+                parser.skipChildren();
+            }
+        }
+        return name;
+    }
+
+    private String buildContent(String description, String criteria, String instruction) {
+        StringBuilder content = new StringBuilder();
+        if (description != null && !description.isEmpty()) {
+            content.append(description);
+        }
+        if (criteria != null && !criteria.isEmpty()) {
+            content.append("\n\n").append("标准：").append(criteria);
+        }
+        if (instruction != null && !instruction.isEmpty()) {
+            content.append("\n\n").append("防御指南：").append(instruction);
+        }
+        return content.toString();
+    }
+
+    static String mapSeverity(String severity) {
+        if (severity == null || severity.isEmpty()) {
+            return DEFAULT_LEVEL;
+        }
+        return SEVERITY_LEVELS.getOrDefault(severity.toLowerCase(Locale.ROOT), DEFAULT_LEVEL);
+    }
+
+    /**
+     * 解析和风天气时间，按本地时间处理并忽略时区偏移
+     * 常见的 yyyy-MM-ddTHH:mm 前缀直接按字符解析，其余格式交给预编译的格式化器，无法解析时返回null
+     */
+    static LocalDateTime parseTime(String text) {
+        if (text == null || text.length() < 16) {
+            return null;
+        }
+        if (text.charAt(4) == '-' && text.charAt(7) == '-' && text.charAt(10) == 'T' && text.charAt(13) == ':') {
+            int year = digits(text, 0, 4);
+            int month = digits(text, 5, 7);
+            int day = digits(text, 8, 10);
+            int hour = digits(text, 11, 13);
+            int minute = digits(text, 14, 16);
+            if (year >= 0 && month >= 0 && day >= 0 && hour >= 0 && minute >= 0
+                    && (text.length() == 16 || text.charAt(16) != ':')) {
+                try {
+                    return LocalDateTime.of(year, month, day, hour, minute);
+                } catch (Exception e) {
+                    return null;
+                }
+            }
+        }
+        try {
+            return LocalDateTime.parse(text, TIME_FORMATTER);
+        } catch (Exception e) {
+            log.warn("解析时间失败: {}", text);
+            return null;
+        }
+    }
+
+    /**
+     * 解析 yyyy-MM-dd 日期，无法解析时返回null
+     */
+    static LocalDate parseDate(String text) {
+        if (text == null || text.length() != 10 || text.charAt(4) != '-' || text.charAt(7) != '-') {
+            return null;
+        }
+        int year = digits(text, 0, 4);
+        int month = digits(text, 5, 7);
+        int day = digits(text, 8, 10);
+        if (year < 0 || month < 0 || day < 0) {
+            return null;
+        }
+        try {
+            return LocalDate.of(year, month, day);
+        } catch (Exception e) {
+            log.warn("解析日期失败: {}", text);
+            return null;
+        }
+    }
+
+    private static int digits(String text, int from, int to) {
+        int value = 0;
+        for (int i = from; i < to; i++) {
+            char c = text.charAt(i);
+            if (c < '0' || c > '9') {
+                return -1;
+            }
+            value = value * 10 + (c - '0');
+        }
+        return value;
+    }
+
+    private static String textValue(JsonParser parser, JsonToken token) throws IOException {
+        if (token == JsonToken.VALUE_NULL) {
+            return null;
+        }
+        if (token.isScalarValue()) {
+            return parser.getText();
+        }
+        parser.skipChildren();
+        return null;
+    }
+
+    /**
+     * 和风天气的数值字段以字符串返回，直接用字符缓冲区构造BigDecimal，避免中间String
+     */
+    private static BigDecimal decimalValue(JsonParser parser) throws IOException {
+        JsonToken token = parser.currentToken();
+        if (token == JsonToken.VALUE_NUMBER_INT || token == JsonToken.VALUE_NUMBER_FLOAT) {
+            return parser.getDecimalValue();
+        }
+        if (token != JsonToken.VALUE_STRING || parser.getTextLength() == 0) {
+            parser.skipChildren();
+            return null;
+        }
+        return new BigDecimal(parser.getTextCharacters(), parser.getTextOffset(), parser.getTextLength());
+    }
+}
@@ -0,0 +1,375 @@
+package com.hainan.weather.service;
+
+import com.hainan.weather.dto.RecentSeries;
+import com.hainan.weather.entity.Location;
+import com.hainan.weather.entity.WeatherData;
+import com.hainan.weather.mapper.LocationMapper;
+import com.hainan.weather.mapper.WeatherDataMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 各地点最近 hours 小时观测的内存环形缓冲区，供趋势类接口直接读取，不访问数据库
+ * 每个地点一组 float/int 列数组，风向和天气状况用全局字典编码为 short，每条观测约32字节；
+ * 观测入库提交后写入，某地点首次被读取时从 weather_data 补齐已有的数据；
+ * 补齐后即使没有近期数据也保留空缓冲区作为已加载标记，未知地点按 locations 表判断，都不会反复查询数据库
+ */
+@Service
+@Slf4j
+public class RecentObservationStore {
+
+    /**
+     * 时间列保存相对该时刻的秒数，int 可用到2088年
+     */
+    private static final long BASE_EPOCH_SECOND = LocalDateTime.of(2020, 1, 1, 0, 0).toEpochSecond(ZoneOffset.UTC);
+
+    private static final int INITIAL_CAPACITY = 16;
+
+    /**
+     * 已知地点编码的最短刷新间隔，遇到未知编码时才刷新
+     */
+    private static final long KNOWN_CODES_REFRESH_MINUTES = 5;
+
+    @Autowired
+    private WeatherDataMapper weatherDataMapper;
+
+    @Autowired
+    private LocationMapper locationMapper;
+
+    /**
+     * 保留的小时数
+     */
+    @Value("${qweather.recent.hours:48}")
+    private int hours;
+
+    /**
+     * 同步间隔（分钟），与 hours 一起决定每个地点最多保存的观测条数
+     */
+    @Value("${qweather.recent.sample-interval-minutes:5}")
+    private int sampleIntervalMinutes;
+
+    private final Map<String, Ring> rings = new ConcurrentHashMap<>();
+
+    private final Map<String, Short> dictionaryCodes = new HashMap<>();
+    private volatile String[] dictionary = new String[0];
+
+    private volatile Set<String> knownCodes = Set.of();
+    private long knownCodesLoadedAt;
+
+    /**
+     * 记录已入库的观测，同一地点按更新时间追加，与最新一条时间相同时覆盖，早于最新一条的忽略
+     */
+    public void record(Collection<WeatherData> observations) {
+        LocalDateTime now = LocalDateTime.now();
+        for (WeatherData weatherData : observations) {
+            if (weatherData.getLocationCode() == null) {
+                continue;
+            }
+            Ring ring = rings.computeIfAbsent(weatherData.getLocationCode(), code -> new Ring(capacity()));
+            LocalDateTime time = weatherData.getUpdateTime() != null ? weatherData.getUpdateTime() : now;
+            synchronized (ring) {
+                append(ring, weatherData, toSeconds(time));
+            }
+        }
+    }
+
+    /**
+     * 读取最近 windowHours 小时（不超过 hours）的观测序列，没有数据时返回 size 为0的序列
+     */
+    public RecentSeries getWindow(String locationCode, int windowHours) {
+        Ring ring = loadedRing(locationCode);
+        int since = toSeconds(LocalDateTime.now().minusHours(Math.max(1, Math.min(windowHours, hours))));
+        String[] names = dictionary;
+        RecentSeries series = new RecentSeries();
+        series.setLocationCode(locationCode);
+        if (ring == null) {
+            series.setOffsetSeconds(new int[0]);
+            return series;
+        }
+        synchronized (ring) {
+            int skip = 0;
+            while (skip < ring.size && ring.time[ring.index(skip)] < since) {
+                skip++;
+            }
+            int size = ring.size - skip;
+            int[] offsets = new int[size];
+            float[][] values = new float[Ring.COLUMNS][size];
+            String[] windDirection = new String[size];
+            String[] weatherCondition = new String[size];
+            int start = size > 0 ? ring.time[ring.index(skip)] : 0;
+            for (int i = 0; i < size; i++) {
+                int slot = ring.index(skip + i);
+                offsets[i] = ring.time[slot] - start;
+                for (int column = 0; column < Ring.COLUMNS; column++) {
+                    values[column][i] = ring.values[column][slot];
+                }
+                windDirection[i] = decode(names, ring.windDirection[slot]);
+                weatherCondition[i] = decode(names, ring.weatherCondition[slot]);
+            }
+            series.setSize(size);
+            series.setStartTime(size > 0 ? toTime(start) : null);
+            series.setOffsetSeconds(offsets);
+            series.setTemperature(values[0]);
+            series.setHumidity(values[1]);
+            series.setWindSpeed(values[2]);
+            series.setPrecipitation(values[3]);
+            series.setPressure(values[4]);
+            series.setVisibility(values[5]);
+            series.setWindDirection(windDirection);
+            series.setWeatherCondition(weatherCondition);
+        }
+        return series;
+    }
+
+    public int getLocationCount() {
+        return rings.size();
+    }
+
+    /**
+     * 取出地点的缓冲区，首次读取时从数据库补齐；未知地点返回null，不为其建缓冲区
+     */
+    private Ring loadedRing(String locationCode) {
+        Ring ring = rings.get(locationCode);
+        if (ring != null && ring.loaded) {
+            return ring;
+        }
+        if (ring == null && !isKnownLocation(locationCode)) {
+            return null;
+        }
+        List<WeatherData> rows;
+        try {
+            LocalDateTime now = LocalDateTime.now();
+            rows = weatherDataMapper.findByLocationBetween(locationCode, now.minusHours(hours), now.plusMinutes(1));
+        } catch (Exception e) {
+            log.error("加载近期天气观测失败, locationCode: {}", locationCode, e);
+            return ring;
+        }
+        if (ring == null) {
+            ring = rings.computeIfAbsent(locationCode, code -> new Ring(capacity()));
+        }
+        synchronized (ring) {
+            if (!ring.loaded) {
+                backfill(ring, rows);
+                ring.loaded = true;
+            }
+        }
+        return ring;
+    }
+
+    /**
+     * 是否为 locations 表中的地点；不在缓存中时最多每 KNOWN_CODES_REFRESH_MINUTES 分钟重新加载一次，
+     * 随意传入的编码不会每次都访问数据库
+     */
+    private synchronized boolean isKnownLocation(String locationCode) {
+        if (locationCode == null) {
+            return false;
+        }
+        if (knownCodes.contains(locationCode)) {
+            return true;
+        }
+        long now = System.nanoTime();
+        if (knownCodesLoadedAt != 0 && now - knownCodesLoadedAt < TimeUnit.MINUTES.toNanos(KNOWN_CODES_REFRESH_MINUTES)) {
+            return false;
+        }
+        knownCodesLoadedAt = now;
+        try {
+            Set<String> codes = new HashSet<>();
+            for (Location location : locationMapper.findAll()) {
+                codes.add(location.getLocationCode());
+            }
+            knownCodes = codes;
+        } catch (Exception e) {
+            log.error("加载地点编码失败", e);
+        }
+        return knownCodes.contains(locationCode);
+    }
+
+    /**
+     * 先按时间顺序写入数据库中的观测，再写回缓冲区中原有的（加载期间新入库的）观测
+     */
+    private void backfill(Ring ring, List<WeatherData> rows) {
+        int existing = ring.size;
+        int[] time = new int[existing];
+        float[][] values = new float[Ring.COLUMNS][existing];
+        short[] windDirection = new short[existing];
+        short[] weatherCondition = new short[existing];
+        for (int i = 0; i < existing; i++) {
+            int slot = ring.index(i);
+            time[i] = ring.time[slot];
+            for (int column = 0; column < Ring.COLUMNS; column++) {
+                values[column][i] = ring.values[column][slot];
+            }
+            windDirection[i] = ring.windDirection[slot];
+            weatherCondition[i] = ring.weatherCondition[slot];
+        }
+        ring.size = 0;
+        ring.head = 0;
+        for (WeatherData row : rows) {
+            append(ring, row, toSeconds(row.getUpdateTime()));
+        }
+        for (int i = 0; i < existing; i++) {
+            int slot = ring.slotFor(time[i]);
+            if (slot < 0) {
+                continue;
+            }
+            ring.time[slot] = time[i];
+            for (int column = 0; column < Ring.COLUMNS; column++) {
+                ring.values[column][slot] = values[column][i];
+            }
+            ring.windDirection[slot] = windDirection[i];
+            ring.weatherCondition[slot] = weatherCondition[i];
+        }
+    }
+
+    private void append(Ring ring, WeatherData weatherData, int time) {
+        int slot = ring.slotFor(time);
+        if (slot < 0) {
+            return;
+        }
+        ring.time[slot] = time;
+        ring.values[0][slot] = toFloat(weatherData.getTemperature());
+        ring.values[1][slot] = toFloat(weatherData.getHumidity());
+        ring.values[2][slot] = toFloat(weatherData.getWindSpeed());
+        ring.values[3][slot] = toFloat(weatherData.getPrecipitation());
+        ring.values[4][slot] = toFloat(weatherData.getPressure());
+        ring.values[5][slot] = toFloat(weatherData.getVisibility());
+        ring.windDirection[slot] = encode(weatherData.getWindDirection());
+        ring.weatherCondition[slot] = encode(weatherData.getWeatherCondition());
+        // 丢弃超出保留时长的旧观测
+        int oldest = time - hours * 3600;
+        while (ring.size > 1 && ring.time[ring.head] < oldest) {
+            ring.head = (ring.head + 1) % ring.time.length;
+            ring.size--;
+        }
+    }
+
+    private int capacity() {
+        return hours * 60 / Math.max(1, sampleIntervalMinutes) + 1;
+    }
+
+    private short encode(String value) {
+        if (value == null) {
+            return -1;
+        }
+        synchronized (dictionaryCodes) {
+            Short code = dictionaryCodes.get(value);
+            if (code == null) {
+                if (dictionaryCodes.size() >= Short.MAX_VALUE) {
+                    return -1;
+                }
+                code = (short) dictionaryCodes.size();
+                dictionaryCodes.put(value, code);
+                String[] grown = Arrays.copyOf(dictionary, code + 1);
+                grown[code] = value;
+                dictionary = grown;
+            }
+            return code;
+        }
+    }
+
+    private static String decode(String[] names, short code) {
+        return code >= 0 && code < names.length ? names[code] : null;
+    }
+
+    private static float toFloat(BigDecimal value) {
+        return value != null ? value.floatValue() : Float.NaN;
+    }
+
+    private static int toSeconds(LocalDateTime time) {
+        return (int) (time.toEpochSecond(ZoneOffset.UTC) - BASE_EPOCH_SECOND);
+    }
+
+    private static LocalDateTime toTime(int seconds) {
+        return LocalDateTime.ofEpochSecond(BASE_EPOCH_SECOND + seconds, 0, ZoneOffset.UTC);
+    }
+
+    /**
+     * 单个地点的环形缓冲区，按需扩容到 capacity，满后覆盖最旧的一条；调用方需持有该对象的锁
+     */
+    private static final class Ring {
+        private static final int COLUMNS = 6;
+
+        private final int capacity;
+        private int[] time;
+        private float[][] values;
+        private short[] windDirection;
+        private short[] weatherCondition;
+        private int head;
+        private int size;
+        private volatile boolean loaded;
+
+        private Ring(int capacity) {
+            this.capacity = capacity;
+            allocate(Math.min(INITIAL_CAPACITY, capacity));
+        }
+
+        private int index(int i) {
+            return (head + i) % time.length;
+        }
+
+        /**
+         * 返回写入该时间观测的位置：晚于最新一条时追加，相同时覆盖最新一条，更早时返回-1
+         */
+        private int slotFor(int seconds) {
+            if (size > 0) {
+                int last = index(size - 1);
+                if (seconds == time[last]) {
+                    return last;
+                }
+                if (seconds < time[last]) {
+                    return -1;
+                }
+            }
+            if (size == time.length) {
+                if (time.length < capacity) {
+                    grow();
+                } else {
+                    head = (head + 1) % time.length;
+                    size--;
+                }
+            }
+            size++;
+            return index(size - 1);
+        }
+
+        private void grow() {
+            int[] oldTime = time;
+            float[][] oldValues = values;
+            short[] oldWindDirection = windDirection;
+            short[] oldWeatherCondition = weatherCondition;
+            allocate(Math.min(capacity, oldTime.length * 2));
+            for (int i = 0; i < size; i++) {
+                int slot = (head + i) % oldTime.length;
+                time[i] = oldTime[slot];
+                for (int column = 0; column < COLUMNS; column++) {
+                    values[column][i] = oldValues[column][slot];
+                }
+                windDirection[i] = oldWindDirection[slot];
+                weatherCondition[i] = oldWeatherCondition[slot];
+            }
+            head = 0;
+        }
+
+        private void allocate(int length) {
+            time = new int[length];
+            values = new float[COLUMNS][length];
+            windDirection = new short[length];
+            weatherCondition = new short[length];
+        }
+    }
+}
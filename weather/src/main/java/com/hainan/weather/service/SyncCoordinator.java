@@ -0,0 +1,201 @@
+package com.hainan.weather.service;
+
+import com.hainan.weather.dto.SyncJob;
+import com.hainan.weather.dto.SyncReport;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * 同步协调器：所有同步触发（定时任务、管理员手动）都经由此处
+ * 同一时刻最多只有一个同步任务在运行，运行期间的新触发合并到当前任务；
+ * 强制触发不会合并到非强制任务中，而是排队在其后执行
+ */
+@Service
+@Slf4j
+public class SyncCoordinator {
+
+    /**
+     * 保留的历史任务数量
+     */
+    private static final int MAX_JOB_HISTORY = 20;
+
+    @Autowired
+    private QWeatherApiService qWeatherApiService;
+
+    @Autowired
+    @Qualifier("qweatherSyncCoordinatorExecutor")
+    private ExecutorService coordinatorExecutor;
+
+    private final AtomicReference<SyncJob> currentJob = new AtomicReference<>();
+
+    /**
+     * 非强制任务运行期间收到的强制触发，当前任务结束后执行
+     */
+    private final AtomicReference<SyncJob> queuedForceJob = new AtomicReference<>();
+
+    private final Map<String, SyncJob> jobHistory = new LinkedHashMap<>() {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, SyncJob> eldest) {
+            return size() > MAX_JOB_HISTORY;
+        }
+    };
+
+    /**
+     * 触发一次同步，立即返回任务
+     * 已有任务在运行时不再新建，直接返回正在运行的任务；运行中的是非强制任务而本次为强制触发时，
+     * 排队一个强制任务在当前任务结束后执行，返回排队的任务
+     *
+     * @param force true时同步全部地点，false时只同步刷新调度器中已到期的地点
+     */
+    public SyncJob trigger(String source, boolean force) {
+        while (true) {
+            SyncJob running = currentJob.get();
+            if (running == null && queuedForceJob.get() != null) {
+                // 上一个任务刚结束，先启动排队的强制任务，本次触发合并进去
+                startQueued();
+                continue;
+            }
+            if (running != null) {
+                if (force && !running.isForce()) {
+                    SyncJob queued = queueForce(source);
+                    if (queued == null) {
+                        continue;
+                    }
+                    return queued;
+                }
+                running.getTriggerCount().incrementAndGet();
+                log.info("同步任务正在运行，{} 的触发合并到任务 {}", source, running.getJobId());
+                return running;
+            }
+
+            SyncJob job = newJob(source, force);
+            if (!currentJob.compareAndSet(null, job)) {
+                continue;
+            }
+            register(job);
+            submit(job);
+            return job;
+        }
+    }
+
+    /**
+     * 触发一次同步并等待其结束，供定时任务使用以保持固定间隔语义
+     */
+    public SyncReport triggerAndWait(String source, boolean force) {
+        return trigger(source, force).getFuture().join();
+    }
+
+    public SyncJob getJob(String jobId) {
+        synchronized (jobHistory) {
+            return jobHistory.get(jobId);
+        }
+    }
+
+    /**
+     * 最近的同步任务，按提交时间倒序
+     */
+    public List<SyncJob> getRecentJobs() {
+        List<SyncJob> jobs;
+        synchronized (jobHistory) {
+            jobs = new ArrayList<>(jobHistory.values());
+        }
+        Collections.reverse(jobs);
+        return jobs;
+    }
+
+    public SyncJob getCurrentJob() {
+        return currentJob.get();
+    }
+
+    /**
+     * 排队一个强制任务，已有排队任务时合并到其中；并发排队失败时返回null由调用方重试
+     */
+    private SyncJob queueForce(String source) {
+        SyncJob queued = queuedForceJob.get();
+        if (queued != null) {
+            queued.getTriggerCount().incrementAndGet();
+            return queued;
+        }
+        SyncJob job = newJob(source, true);
+        job.setQueued(true);
+        if (!queuedForceJob.compareAndSet(null, job)) {
+            return null;
+        }
+        register(job);
+        log.info("非强制同步任务正在运行，{} 的强制同步排队为任务 {}，当前任务结束后执行", source, job.getJobId());
+        // 运行中的任务可能在排队前已经结束
+        if (currentJob.get() == null) {
+            startQueued();
+        }
+        return job;
+    }
+
+    /**
+     * 运行位空闲时启动排队的强制任务
+     */
+    private void startQueued() {
+        SyncJob queued = queuedForceJob.get();
+        if (queued == null || !currentJob.compareAndSet(null, queued)) {
+            return;
+        }
+        queuedForceJob.compareAndSet(queued, null);
+        queued.setQueued(false);
+        submit(queued);
+    }
+
+    private SyncJob newJob(String source, boolean force) {
+        SyncJob job = new SyncJob();
+        job.setJobId(UUID.randomUUID().toString().replace("-", ""));
+        job.setSource(source);
+        job.setForce(force);
+        job.setSubmitTime(LocalDateTime.now());
+        return job;
+    }
+
+    private void register(SyncJob job) {
+        synchronized (jobHistory) {
+            jobHistory.put(job.getJobId(), job);
+        }
+    }
+
+    private void submit(SyncJob job) {
+        try {
+            coordinatorExecutor.execute(() -> run(job));
+        } catch (Exception e) {
+            finish(job, SyncJob.STATUS_FAILED, "提交同步任务失败: " + e.getMessage());
+        }
+    }
+
+    private void run(SyncJob job) {
+        job.setStatus(SyncJob.STATUS_RUNNING);
+        log.info("同步任务 {} 开始执行，触发来源: {}", job.getJobId(), job.getSource());
+        try {
+            qWeatherApiService.syncAllLocations(job.getReport(), job.getSource(), job.isForce());
+            finish(job, SyncJob.STATUS_SUCCESS, null);
+        } catch (Exception e) {
+            log.error("同步任务 {} 执行失败", job.getJobId(), e);
+            finish(job, SyncJob.STATUS_FAILED, e.getMessage());
+        }
+    }
+
+    private void finish(SyncJob job, String status, String errorMessage) {
+        job.setErrorMessage(errorMessage);
+        job.setStatus(status);
+        // 先释放运行位再通知等待方，等待方醒来后可立即发起下一次同步
+        currentJob.compareAndSet(job, null);
+        job.getFuture().complete(job.getReport());
+        startQueued();
+    }
+}
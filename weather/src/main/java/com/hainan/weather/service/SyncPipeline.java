@@ -0,0 +1,462 @@
+package com.hainan.weather.service;
+
+import com.hainan.weather.dto.StageMetrics;
+import com.hainan.weather.dto.SyncReport;
+import com.hainan.weather.entity.Location;
+import com.hainan.weather.entity.WeatherData;
+import com.hainan.weather.entity.WeatherForecast;
+import com.hainan.weather.entity.WeatherForecastHourly;
+import com.hainan.weather.entity.WeatherWarning;
+import lombok.extern.slf4j.Slf4j;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+
+/**
+ * 一次同步运行的分阶段流水线：拉取 → 解析 → 入库
+ * 阶段之间用有界队列交接，下游处理不过来时上游等待放入（背压），下游线程退出后上游不再等待；
+ * 拉取在同步线程池中并发执行，解析由独立线程池执行，入库由单线程按批刷写并在每批后写检查点；
+ * 一批攒满或第一条结果等待超过最长刷写延迟时刷写，避免按调用间隔逐个地点开事务、写检查点
+ */
+@Slf4j
+class SyncPipeline {
+
+    /**
+     * 队列结束标记
+     */
+    private static final Object END = new Object();
+
+    /**
+     * 下游队列满时重试放入的间隔，每次重试前检查下游是否已退出
+     */
+    private static final long OFFER_RETRY_MS = 100;
+
+    private final QWeatherApiService apiService;
+    private final QWeatherResponseDecoder decoder;
+    private final LocationRefreshScheduler refreshScheduler;
+    private final SyncRunService syncRunService;
+    private final SyncReport report;
+    private final Long runId;
+    private final boolean force;
+    private final AlertFingerprintIndex alertIndex;
+    private final Set<String> warnedLocationCodes;
+    private final int batchSize;
+
+    /**
+     * 缓冲中第一条结果的最长等待时间（纳秒），超时后即使未攒满也刷写
+     */
+    private final long maxFlushLatencyNanos;
+
+    private final BlockingQueue<Object> decodeQueue;
+    private final BlockingQueue<Object> persistQueue;
+    private final StageMetrics fetchMetrics;
+    private final StageMetrics decodeMetrics;
+    private final StageMetrics persistMetrics;
+    private final int decodeWorkers;
+
+    private final Map<String, CompletableFuture<byte[]>> alertBuckets = new ConcurrentHashMap<>();
+    private final Set<String> processedCodes = ConcurrentHashMap.newKeySet();
+    private final List<WeatherWarning> savedWarnings = new ArrayList<>();
+    private final AtomicInteger liveDecodeWorkers;
+    private volatile boolean persistStopped;
+    private volatile boolean aborted;
+
+    SyncPipeline(QWeatherApiService apiService, QWeatherResponseDecoder decoder,
+                 LocationRefreshScheduler refreshScheduler, SyncRunService syncRunService,
+                 SyncReport report, Long runId, boolean force,
+                 AlertFingerprintIndex alertIndex, Set<String> warnedLocationCodes,
+                 int fetchWorkers, int decodeWorkers, int queueCapacity, int batchSize,
+                 long maxFlushLatencyMs) {
+        this.apiService = apiService;
+        this.decoder = decoder;
+        this.refreshScheduler = refreshScheduler;
+        this.syncRunService = syncRunService;
+        this.report = report;
+        this.runId = runId;
+        this.force = force;
+        this.alertIndex = alertIndex;
+        this.warnedLocationCodes = warnedLocationCodes;
+        this.batchSize = Math.max(1, batchSize);
+        this.maxFlushLatencyNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(1, maxFlushLatencyMs));
+        this.decodeWorkers = Math.max(1, decodeWorkers);
+        this.liveDecodeWorkers = new AtomicInteger(this.decodeWorkers);
+        this.decodeQueue = new ArrayBlockingQueue<>(Math.max(1, queueCapacity));
+        this.persistQueue = new ArrayBlockingQueue<>(Math.max(1, queueCapacity));
+        this.fetchMetrics = new StageMetrics("fetch", fetchWorkers, null);
+        this.decodeMetrics = new StageMetrics("decode", this.decodeWorkers, decodeQueue);
+        this.persistMetrics = new StageMetrics("persist", 1, persistQueue);
+
+        Map<String, StageMetrics> stages = new LinkedHashMap<>();
+        stages.put(fetchMetrics.getStage(), fetchMetrics);
+        stages.put(decodeMetrics.getStage(), decodeMetrics);
+        stages.put(persistMetrics.getStage(), persistMetrics);
+        report.setStages(stages);
+    }
+
+    /**
+     * 执行流水线直到所有地点处理完毕，入库或写检查点失败时中断并返回false
+     */
+    boolean run(List<Location> locations, ExecutorService fetchExecutor,
+                ExecutorService decodeExecutor, ExecutorService persistExecutor) {
+        CompletableFuture<Void> persistDone = CompletableFuture.runAsync(this::persistLoop, persistExecutor);
+        CompletableFuture<?>[] decodeDone = new CompletableFuture<?>[decodeWorkers];
+        for (int i = 0; i < decodeWorkers; i++) {
+            decodeDone[i] = CompletableFuture.runAsync(this::decodeLoop, decodeExecutor);
+        }
+
+        CompletableFuture<?>[] fetchDone = new CompletableFuture<?>[locations.size()];
+        for (int i = 0; i < locations.size(); i++) {
+            Location location = locations.get(i);
+            fetchDone[i] = CompletableFuture.runAsync(() -> fetch(location), fetchExecutor);
+        }
+
+        try {
+            CompletableFuture.allOf(fetchDone).join();
+            fetchMetrics.finish();
+            for (int i = 0; i < decodeWorkers; i++) {
+                offerToDecode(END);
+            }
+            CompletableFuture.allOf(decodeDone).join();
+            decodeMetrics.finish();
+            offerToPersist(END);
+            persistDone.join();
+            persistMetrics.finish();
+        } catch (Exception e) {
+            aborted = true;
+            log.error("同步流水线执行异常", e);
+            report.addFailure("*", "同步流水线异常: " + e.getMessage());
+        }
+        log.info("同步流水线结束，拉取: {}/s 利用率 {}%，解析: {}/s 利用率 {}%，入库: {}/s 利用率 {}%",
+                fetchMetrics.getThroughputPerSecond(), fetchMetrics.getUtilization(),
+                decodeMetrics.getThroughputPerSecond(), decodeMetrics.getUtilization(),
+                persistMetrics.getThroughputPerSecond(), persistMetrics.getUtilization());
+        return !aborted;
+    }
+
+    /**
+     * 实际完成拉取和解析的地点
+     */
+    Set<String> getProcessedCodes() {
+        return processedCodes;
+    }
+
+    /**
+     * 已成功入库的新预警，运行结束后据此写一条汇总操作日志；只在 run 返回后读取
+     */
+    List<WeatherWarning> getSavedWarnings() {
+        return savedWarnings;
+    }
+
+    // ---------------- 拉取阶段 ----------------
+
+    private void fetch(Location location) {
+        if (aborted) {
+            return;
+        }
+        long start = System.nanoTime();
+        FetchedLocation fetched = new FetchedLocation(location);
+        try {
+            fetched.now = apiService.fetchWeatherNowRaw(location);
+        } catch (Exception e) {
+            fetched.nowError = e.getMessage();
+        }
+        if (alertIndex != null) {
+            try {
+                fetched.alerts = apiService.fetchBucketWarningsRaw(location, report, alertBuckets);
+            } catch (Exception e) {
+                fetched.alertError = e.getMessage();
+            }
+        }
+        if (apiService.isForecastDue(location, force)) {
+            fetched.forecastRequested = true;
+            try {
+                fetched.daily = apiService.fetchDailyForecastRaw(location);
+                fetched.hourly = apiService.fetchHourlyForecastRaw(location);
+            } catch (Exception e) {
+                fetched.forecastError = e.getMessage();
+            }
+        }
+        fetchMetrics.recordWork(System.nanoTime() - start);
+        if (!offerToDecode(fetched)) {
+            aborted = true;
+            return;
+        }
+        decodeMetrics.sampleQueueDepth();
+    }
+
+    // ---------------- 解析阶段 ----------------
+
+    private void decodeLoop() {
+        try {
+            decodeUntilEnd();
+        } finally {
+            liveDecodeWorkers.decrementAndGet();
+        }
+    }
+
+    private void decodeUntilEnd() {
+        while (true) {
+            Object item = takeQuietly(decodeQueue);
+            if (item == END || item == null) {
+                return;
+            }
+            long start = System.nanoTime();
+            FetchedLocation fetched = (FetchedLocation) item;
+            LocationResult result;
+            try {
+                result = decode(fetched);
+            } catch (Exception e) {
+                // 单个地点的意外异常不能让解析线程退出，否则上游会阻塞在队列上
+                log.error("解析地点数据失败, locationCode: {}", fetched.location.getLocationCode(), e);
+                report.addFailure(fetched.location.getLocationCode(), "解析: " + e.getMessage());
+                result = new LocationResult(fetched.location.getLocationCode());
+            }
+            decodeMetrics.recordWork(System.nanoTime() - start);
+            if (!offerToPersist(result)) {
+                // 入库线程已异常退出，丢弃结果继续消费队列，让拉取线程不被阻塞，未入库的地点保持PENDING
+                aborted = true;
+                continue;
+            }
+            persistMetrics.sampleQueueDepth();
+        }
+    }
+
+    private LocationResult decode(FetchedLocation fetched) {
+        Location location = fetched.location;
+        String locationCode = location.getLocationCode();
+        LocationResult result = new LocationResult(locationCode);
+        boolean hasActiveWarning = warnedLocationCodes.contains(locationCode);
+
+        if (fetched.nowError != null) {
+            report.addFailure(locationCode, "实时天气: " + fetched.nowError);
+        } else {
+            try {
+                result.weatherData = fetched.now != null ? decoder.decodeWeatherNow(fetched.now, locationCode) : null;
+                if (result.weatherData == null) {
+                    report.addFailure(locationCode, "未获取到实时天气");
+                }
+            } catch (Exception e) {
+                report.addFailure(locationCode, "实时天气: " + e.getMessage());
+            }
+        }
+
+        if (fetched.alertError != null) {
+            report.addFailure(locationCode, "预警: " + fetched.alertError);
+        } else if (fetched.alerts != null) {
+            try {
+                // 根据地点、标题和发布时间判重
+                List<WeatherWarning> warnings = decoder.decodeWarnings(fetched.alerts, locationCode);
+                hasActiveWarning = hasActiveWarning || !warnings.isEmpty();
+                for (WeatherWarning warning : warnings) {
+                    if (alertIndex.register(warning)) {
+                        result.newWarnings.add(warning);
+                    }
+                }
+            } catch (Exception e) {
+                report.addFailure(locationCode, "预警: " + e.getMessage());
+            }
+        }
+
+        if (fetched.forecastError != null) {
+            report.addFailure(locationCode, "天气预报: " + fetched.forecastError);
+        } else if (fetched.forecastRequested) {
+            try {
+                // 逐日和逐小时预报都解析成功后才写入，避免只写入一半
+                List<WeatherForecast> daily = decoder.decodeDailyForecast(fetched.daily, locationCode);
+                List<WeatherForecastHourly> hourly = decoder.decodeHourlyForecast(fetched.hourly, locationCode);
+                if (daily == null || hourly == null) {
+                    report.addFailure(locationCode, "未获取到天气预报");
+                } else {
+                    result.daily = daily;
+                    result.hourly = hourly;
+                }
+            } catch (Exception e) {
+                report.addFailure(locationCode, "天气预报: " + e.getMessage());
+            }
+        }
+
+        refreshScheduler.reschedule(location, result.weatherData, hasActiveWarning, LocalDateTime.now());
+        processedCodes.add(locationCode);
+        report.getProcessedLocations().incrementAndGet();
+        return result;
+    }
+
+    // ---------------- 入库阶段 ----------------
+
+    /**
+     * 入库线程无论正常结束、被中断还是异常退出都标记停止，解析线程据此不再等待放入入库队列
+     */
+    private void persistLoop() {
+        try {
+            persistUntilEnd();
+        } catch (Exception e) {
+            log.error("同步流水线入库线程异常退出", e);
+            aborted = true;
+        } finally {
+            persistStopped = true;
+        }
+    }
+
+    private void persistUntilEnd() {
+        List<LocationResult> buffer = new ArrayList<>(batchSize);
+        long firstBufferedAt = 0;
+        while (true) {
+            Object item;
+            try {
+                if (buffer.isEmpty()) {
+                    item = persistQueue.take();
+                } else {
+                    long waitNanos = firstBufferedAt + maxFlushLatencyNanos - System.nanoTime();
+                    item = waitNanos > 0 ? persistQueue.poll(waitNanos, TimeUnit.NANOSECONDS) : null;
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                aborted = true;
+                return;
+            }
+            if (item == END) {
+                flush(buffer);
+                return;
+            }
+            if (item != null) {
+                if (buffer.isEmpty()) {
+                    firstBufferedAt = System.nanoTime();
+                }
+                buffer.add((LocationResult) item);
+            }
+            if (buffer.size() >= batchSize
+                    || (!buffer.isEmpty() && System.nanoTime() - firstBufferedAt >= maxFlushLatencyNanos)) {
+                flush(buffer);
+            }
+        }
+    }
+
+    /**
+     * 批量写入缓冲的结果，成功后写检查点；中断后只消费队列不再写库，未写入的地点保持PENDING
+     */
+    private void flush(List<LocationResult> buffer) {
+        if (buffer.isEmpty() || aborted) {
+            buffer.clear();
+            return;
+        }
+        long start = System.nanoTime();
+        List<WeatherData> weatherData = new ArrayList<>();
+        List<WeatherWarning> warnings = new ArrayList<>();
+        List<WeatherForecast> daily = new ArrayList<>();
+        List<WeatherForecastHourly> hourly = new ArrayList<>();
+        List<String> forecastCodes = new ArrayList<>();
+        List<String> locationCodes = new ArrayList<>(buffer.size());
+        for (LocationResult result : buffer) {
+            locationCodes.add(result.locationCode);
+            if (result.weatherData != null) {
+                weatherData.add(result.weatherData);
+            }
+            warnings.addAll(result.newWarnings);
+            if (result.daily != null) {
+                daily.addAll(result.daily);
+                hourly.addAll(result.hourly);
+                forecastCodes.add(result.locationCode);
+            }
+        }
+
+        try {
+            if (!apiService.persistBatch(report, weatherData, warnings, daily, hourly, forecastCodes)) {
+                aborted = true;
+            } else {
+                savedWarnings.addAll(warnings);
+                if (!syncRunService.completeChunk(runId, locationCodes, report.getFailures())) {
+                    aborted = true;
+                }
+            }
+        } catch (Exception e) {
+            log.error("同步流水线入库失败", e);
+            aborted = true;
+        }
+        long elapsed = System.nanoTime() - start;
+        for (int i = 0; i < buffer.size(); i++) {
+            persistMetrics.recordWork(elapsed / buffer.size());
+        }
+        buffer.clear();
+    }
+
+    private boolean offerToDecode(Object item) {
+        return offer(decodeQueue, item, () -> liveDecodeWorkers.get() == 0);
+    }
+
+    private boolean offerToPersist(Object item) {
+        return offer(persistQueue, item, () -> persistStopped);
+    }
+
+    /**
+     * 放入下游队列，队列满时定时重试；下游线程已全部退出或当前线程被中断时放弃并返回false，
+     * 避免上游永久阻塞在满队列上，使同步线程和 SyncCoordinator 的运行名额无法释放
+     */
+    private static boolean offer(BlockingQueue<Object> queue, Object item, BooleanSupplier consumerStopped) {
+        try {
+            while (!queue.offer(item, OFFER_RETRY_MS, TimeUnit.MILLISECONDS)) {
+                if (consumerStopped.getAsBoolean()) {
+                    return false;
+                }
+            }
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    private static Object takeQuietly(BlockingQueue<Object> queue) {
+        try {
+            return queue.take();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return null;
+        }
+    }
+
+    /**
+     * 拉取阶段产出：各接口的原始响应体或失败原因
+     */
+    private static class FetchedLocation {
+        private final Location location;
+        private byte[] now;
+        private String nowError;
+        private byte[] alerts;
+        private String alertError;
+        private boolean forecastRequested;
+        private byte[] daily;
+        private byte[] hourly;
+        private String forecastError;
+
+        FetchedLocation(Location location) {
+            this.location = location;
+        }
+    }
+
+    /**
+     * 解析阶段产出：待入库的实体
+     */
+    private static class LocationResult {
+        private final String locationCode;
+        private WeatherData weatherData;
+        private final List<WeatherWarning> newWarnings = new ArrayList<>();
+        private List<WeatherForecast> daily;
+        private List<WeatherForecastHourly> hourly;
+
+        LocationResult(String locationCode) {
+            this.locationCode = locationCode;
+        }
+    }
+}
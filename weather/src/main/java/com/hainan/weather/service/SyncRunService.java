@@ -0,0 +1,165 @@
+package com.hainan.weather.service;
+
+import com.hainan.weather.entity.SyncCheckpoint;
+import com.hainan.weather.entity.SyncRun;
+import com.hainan.weather.mapper.SyncCheckpointMapper;
+import com.hainan.weather.mapper.SyncRunMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.interceptor.TransactionAspectSupport;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 同步运行记录与检查点
+ * 每次同步写入一条sync_run和每个地点一条sync_checkpoint，
+ * 中断的运行在下次同步时只处理仍为PENDING的地点
+ */
+@Service
+@Slf4j
+public class SyncRunService {
+
+    public static final String RUN_RUNNING = "RUNNING";
+    public static final String RUN_COMPLETED = "COMPLETED";
+    public static final String RUN_ABANDONED = "ABANDONED";
+
+    public static final String CHECKPOINT_DONE = "DONE";
+    public static final String CHECKPOINT_FAILED = "FAILED";
+
+    @Autowired
+    private SyncRunMapper syncRunMapper;
+
+    @Autowired
+    private SyncCheckpointMapper syncCheckpointMapper;
+
+    /**
+     * 未完成的运行超过该小时数不再续跑，直接放弃并重新开始
+     */
+    @Value("${qweather.sync.resume-window-hours:6}")
+    private long resumeWindowHours;
+
+    /**
+     * 查找可续跑的未完成运行，过旧的运行标记为放弃
+     */
+    public SyncRun findResumableRun() {
+        try {
+            SyncRun run = syncRunMapper.findLatestRunning();
+            if (run == null) {
+                return null;
+            }
+            if (run.getStartTime() != null
+                    && run.getStartTime().isBefore(LocalDateTime.now().minusHours(resumeWindowHours))) {
+                syncRunMapper.finish(run.getId(), RUN_ABANDONED, "超过续跑时限，已放弃");
+                log.info("同步运行 {} 超过续跑时限，已放弃", run.getId());
+                return null;
+            }
+            return run;
+        } catch (Exception e) {
+            log.error("查询未完成的同步运行失败", e);
+            return null;
+        }
+    }
+
+    public List<String> getPendingLocationCodes(Long runId) {
+        try {
+            return syncCheckpointMapper.findPendingLocationCodes(runId);
+        } catch (Exception e) {
+            log.error("查询待同步地点失败, runId: {}", runId, e);
+            return null;
+        }
+    }
+
+    /**
+     * 创建运行记录并为每个地点写入PENDING检查点，失败时返回null
+     */
+    @Transactional
+    public SyncRun startRun(String source, boolean forceAll, List<String> locationCodes) {
+        try {
+            SyncRun run = new SyncRun();
+            run.setSource(source);
+            run.setForceAll(forceAll);
+            run.setTotalLocations(locationCodes.size());
+            syncRunMapper.insert(run);
+            for (int from = 0; from < locationCodes.size(); from += WeatherService.BATCH_SIZE) {
+                int to = Math.min(from + WeatherService.BATCH_SIZE, locationCodes.size());
+                syncCheckpointMapper.batchInsertPending(run.getId(), locationCodes.subList(from, to));
+            }
+            return run;
+        } catch (Exception e) {
+            log.error("创建同步运行记录失败", e);
+            TransactionAspectSupport.currentTransactionStatus().setRollbackOnly();
+            return null;
+        }
+    }
+
+    /**
+     * 一批地点的数据入库后更新其检查点：无失败的记为DONE，有失败的记为FAILED并保存原因
+     */
+    @Transactional
+    public boolean completeChunk(Long runId, Collection<String> locationCodes, Map<String, String> failures) {
+        try {
+            List<String> done = new ArrayList<>();
+            List<String> failed = new ArrayList<>();
+            for (String locationCode : locationCodes) {
+                if (failures.containsKey(locationCode)) {
+                    failed.add(locationCode);
+                } else {
+                    done.add(locationCode);
+                }
+            }
+            if (!done.isEmpty()) {
+                syncCheckpointMapper.updateStatus(runId, done, CHECKPOINT_DONE);
+            }
+            if (!failed.isEmpty()) {
+                syncCheckpointMapper.updateStatus(runId, failed, CHECKPOINT_FAILED);
+                for (String locationCode : failed) {
+                    syncCheckpointMapper.updateMessage(runId, locationCode, truncate(failures.get(locationCode)));
+                }
+            }
+            syncRunMapper.refreshProgress(runId);
+            return true;
+        } catch (Exception e) {
+            log.error("更新同步检查点失败, runId: {}", runId, e);
+            TransactionAspectSupport.currentTransactionStatus().setRollbackOnly();
+            return false;
+        }
+    }
+
+    public boolean finishRun(Long runId, String status, String message) {
+        try {
+            return syncRunMapper.finish(runId, status, truncate(message)) > 0;
+        } catch (Exception e) {
+            log.error("结束同步运行失败, runId: {}", runId, e);
+            return false;
+        }
+    }
+
+    public List<SyncRun> getRecentRuns(int limit) {
+        try {
+            return syncRunMapper.findRecent(limit);
+        } catch (Exception e) {
+            log.error("查询同步运行记录失败", e);
+            return null;
+        }
+    }
+
+    public List<SyncCheckpoint> getCheckpoints(Long runId) {
+        try {
+            return syncCheckpointMapper.findByRunId(runId);
+        } catch (Exception e) {
+            log.error("查询同步检查点失败, runId: {}", runId, e);
+            return null;
+        }
+    }
+
+    private String truncate(String message) {
+        return message != null && message.length() > 500 ? message.substring(0, 500) : message;
+    }
+}
@@ -3,8 +3,10 @@ package com.hainan.weather.service;
 import com.hainan.weather.entity.TrafficStatus;
 import com.hainan.weather.mapper.TrafficStatusMapper;
 import com.hainan.weather.dto.TrafficUpdateDTO;
+import com.hainan.weather.event.DataChangeEvent;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -21,6 +23,12 @@ public class TrafficService {
     @Autowired
     private SystemService systemService;
 
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Autowired
+    private DashboardCounters dashboardCounters;
+
     /**
      * 获取航班状态
      */
@@ -119,6 +127,9 @@ public class TrafficService {
             if (result > 0) {
                 systemService.logOperation(operatorId, "CREATE", "TRAFFIC",
                         "添加交通状态: " + dto.getType() + " " + dto.getNumber(), null);
+                TransactionCallbacks.afterCommit(() ->
+                        dashboardCounters.onTrafficChange(status.getType(), null, status.getStatus()));
+                eventPublisher.publishEvent(new DataChangeEvent(DataChangeEvent.Type.TRAFFIC));
                 return true;
             }
             return false;
@@ -139,6 +150,7 @@ public class TrafficService {
                 return false;
             }
 
+            String previousStatus = status.getStatus();
             status.setEstimatedTime(dto.getEstimatedTime());
             status.setStatus(dto.getStatus());
             status.setDelayReason(dto.getDelayReason());
@@ -149,6 +161,9 @@ public class TrafficService {
             if (result > 0) {
                 systemService.logOperation(operatorId, "UPDATE", "TRAFFIC",
                         "更新交通状态: " + status.getType() + " " + status.getNumber(), null);
+                TransactionCallbacks.afterCommit(() ->
+                        dashboardCounters.onTrafficChange(status.getType(), previousStatus, status.getStatus()));
+                eventPublisher.publishEvent(new DataChangeEvent(DataChangeEvent.Type.TRAFFIC));
                 return true;
             }
             return false;
@@ -167,11 +182,14 @@ public class TrafficService {
             for (TrafficUpdateDTO dto : updates) {
                 TrafficStatus existing = trafficStatusMapper.findByNumber("FLIGHT", dto.getNumber());
                 if (existing != null) {
+                    String previousStatus = existing.getStatus();
                     existing.setEstimatedTime(dto.getEstimatedTime());
                     existing.setStatus(dto.getStatus());
                     existing.setDelayReason(dto.getDelayReason());
                     existing.setUpdatedBy(operatorId);
                     trafficStatusMapper.update(existing);
+                    TransactionCallbacks.afterCommit(() ->
+                            dashboardCounters.onTrafficChange("FLIGHT", previousStatus, existing.getStatus()));
                 } else {
                     TrafficStatus status = new TrafficStatus();
                     status.setType("FLIGHT");
@@ -184,10 +202,13 @@ public class TrafficService {
                     status.setDelayReason(dto.getDelayReason());
                     status.setUpdatedBy(operatorId);
                     trafficStatusMapper.insert(status);
+                    TransactionCallbacks.afterCommit(() ->
+                            dashboardCounters.onTrafficChange("FLIGHT", null, status.getStatus()));
                 }
             }
             systemService.logOperation(operatorId, "BATCH_UPDATE", "TRAFFIC",
                     "批量更新航班状态，数量: " + updates.size(), null);
+            eventPublisher.publishEvent(new DataChangeEvent(DataChangeEvent.Type.TRAFFIC));
             return true;
         } catch (Exception e) {
             log.error("批量更新航班状态失败", e);
@@ -211,6 +232,9 @@ public class TrafficService {
             if (result > 0) {
                 systemService.logOperation(operatorId, "DELETE", "TRAFFIC",
                         "删除交通状态: " + status.getType() + " " + status.getNumber(), null);
+                TransactionCallbacks.afterCommit(() ->
+                        dashboardCounters.onTrafficChange(status.getType(), status.getStatus(), null));
+                eventPublisher.publishEvent(new DataChangeEvent(DataChangeEvent.Type.TRAFFIC));
                 return true;
             }
             return false;
@@ -224,13 +248,13 @@ public class TrafficService {
      * 获取异常航班数量
      */
     public int getAbnormalFlightCount() {
-        return trafficStatusMapper.countAbnormalByType("FLIGHT");
+        return dashboardCounters.getAbnormalFlightCount();
     }
 
     /**
      * 获取异常火车数量
      */
     public int getAbnormalTrainCount() {
-        return trafficStatusMapper.countAbnormalByType("TRAIN");
+        return dashboardCounters.getAbnormalTrainCount();
     }
 }
\ No newline at end of file
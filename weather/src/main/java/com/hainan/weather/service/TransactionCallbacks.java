@@ -0,0 +1,27 @@
+package com.hainan.weather.service;
+
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * 在当前事务提交后执行内存状态（缓存、索引、缓冲区）的更新：提交前更新会被并发读取用旧数据覆盖，
+ * 回滚的数据也不应对外可见；没有事务时立即执行
+ */
+final class TransactionCallbacks {
+
+    private TransactionCallbacks() {
+    }
+
+    static void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+}
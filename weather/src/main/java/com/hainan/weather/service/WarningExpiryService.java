@@ -0,0 +1,95 @@
+package com.hainan.weather.service;
+
+import com.hainan.weather.entity.WeatherWarning;
+import com.hainan.weather.event.WarningExpiredEvent;
+import com.hainan.weather.mapper.WeatherWarningMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * 天气预警到期处理：按刻度推进 ActiveWarningIndex 中的时间轮，到期的预警从索引中移除，
+ * 批量置为 EXPIRED 并发布 WarningExpiredEvent；写库失败的ID留到下一个刻度重试。
+ * 定期对账兜底处理绕过服务直接写库等未登记到时间轮的预警
+ */
+@Service
+@Slf4j
+public class WarningExpiryService {
+
+    @Autowired
+    private ActiveWarningIndex activeWarningIndex;
+
+    @Autowired
+    private WeatherWarningMapper weatherWarningMapper;
+
+    @Autowired
+    private WarningService warningService;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    /**
+     * 已从索引中移除、尚未在数据库中置为过期的预警ID
+     */
+    private final Set<Long> pendingIds = new LinkedHashSet<>();
+
+    /**
+     * 处理到期的预警，返回本次到期的条数
+     */
+    public synchronized int expireDue() {
+        LocalDateTime now = LocalDateTime.now();
+        List<WeatherWarning> expired = activeWarningIndex.expireDue(now);
+        if (!expired.isEmpty()) {
+            List<Long> ids = new ArrayList<>(expired.size());
+            Set<String> locationCodes = new LinkedHashSet<>();
+            for (WeatherWarning warning : expired) {
+                ids.add(warning.getId());
+                if (warning.getLocationCode() != null) {
+                    locationCodes.add(warning.getLocationCode());
+                }
+            }
+            pendingIds.addAll(ids);
+            // 读取都走索引，不必等数据库更新成功再通知
+            eventPublisher.publishEvent(new WarningExpiredEvent(ids, locationCodes));
+            log.info("天气预警到期 {} 条, locations: {}", ids.size(), locationCodes);
+        }
+        flushPending(now);
+        return expired.size();
+    }
+
+    /**
+     * 对账：批量置过期兜底，再从数据库重新加载索引和时间轮，返回兜底更新的条数
+     */
+    public int reconcile() {
+        int updated = warningService.updateExpiredWarnings();
+        if (updated > 0) {
+            log.warn("对账时发现 {} 条未按时置为过期的天气预警", updated);
+        }
+        activeWarningIndex.reload();
+        return updated;
+    }
+
+    private void flushPending(LocalDateTime now) {
+        if (pendingIds.isEmpty()) {
+            return;
+        }
+        List<Long> ids = new ArrayList<>(pendingIds);
+        for (int start = 0; start < ids.size(); start += WeatherService.BATCH_SIZE) {
+            List<Long> batch = ids.subList(start, Math.min(start + WeatherService.BATCH_SIZE, ids.size()));
+            try {
+                weatherWarningMapper.expireByIds(batch, now);
+                batch.forEach(pendingIds::remove);
+            } catch (Exception e) {
+                log.error("更新到期预警状态失败，下一个刻度重试, 待更新 {} 条", pendingIds.size(), e);
+                return;
+            }
+        }
+    }
+}
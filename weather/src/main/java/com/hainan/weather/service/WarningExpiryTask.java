@@ -0,0 +1,40 @@
+package com.hainan.weather.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+@Component
+@Slf4j
+public class WarningExpiryTask {
+
+    @Autowired
+    private WarningExpiryService warningExpiryService;
+
+    /**
+     * 按刻度处理到期的天气预警，执行频繁，只在出错时记录日志
+     */
+    @Scheduled(fixedDelayString = "${qweather.warning-expiry.tick-ms:1000}")
+    public void expireWarnings() {
+        try {
+            warningExpiryService.expireDue();
+        } catch (Exception e) {
+            log.error("处理到期天气预警失败", e);
+        }
+    }
+
+    /**
+     * 启动后执行一次，加载索引并登记时间轮，之后定期对账
+     */
+    @Scheduled(initialDelay = 10000, fixedDelayString = "${qweather.warning-expiry.reconcile-ms:600000}")
+    public void reconcileWarnings() {
+        log.info("========== 开始执行定时任务：天气预警过期对账 ==========");
+        try {
+            warningExpiryService.reconcile();
+            log.info("========== 定时任务执行完成：天气预警过期对账 ==========");
+        } catch (Exception e) {
+            log.error("========== 定时任务执行失败：天气预警过期对账 ==========", e);
+        }
+    }
+}
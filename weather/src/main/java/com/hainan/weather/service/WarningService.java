@@ -5,12 +5,16 @@ import com.hainan.weather.entity.ComprehensiveWarning;
 import com.hainan.weather.mapper.WeatherWarningMapper;
 import com.hainan.weather.mapper.ComprehensiveWarningMapper;
 import com.hainan.weather.dto.WarningPublishDTO;
+import com.hainan.weather.event.DataChangeEvent;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.interceptor.TransactionAspectSupport;
 
 import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
 import java.util.List;
 
 @Service
@@ -26,12 +30,21 @@ public class WarningService {
     @Autowired
     private SystemService systemService;
 
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Autowired
+    private ActiveWarningIndex activeWarningIndex;
+
+    @Autowired
+    private DashboardCounters dashboardCounters;
+
     /**
      * 获取所有活跃的天气预警
      */
     public List<WeatherWarning> getActiveWeatherWarnings() {
         try {
-            return weatherWarningMapper.findAllActive();
+            return activeWarningIndex.findAll();
         } catch (Exception e) {
             log.error("获取活跃天气预警失败", e);
             return null;
@@ -43,7 +56,7 @@ public class WarningService {
      */
     public List<WeatherWarning> getActiveWarningsByLocation(String locationCode) {
         try {
-            return weatherWarningMapper.findActiveByLocation(locationCode);
+            return activeWarningIndex.findByLocation(locationCode);
         } catch (Exception e) {
             log.error("获取地点天气预警失败", e);
             return null;
@@ -55,7 +68,7 @@ public class WarningService {
      */
     public List<WeatherWarning> getActiveWarningsByType(String warningType) {
         try {
-            return weatherWarningMapper.findActiveByType(warningType);
+            return activeWarningIndex.findByType(warningType);
         } catch (Exception e) {
             log.error("获取类型天气预警失败", e);
             return null;
@@ -67,7 +80,7 @@ public class WarningService {
      */
     public List<WeatherWarning> getActiveWarningsByLevel(String warningLevel) {
         try {
-            return weatherWarningMapper.findActiveByLevel(warningLevel);
+            return activeWarningIndex.findByLevel(warningLevel);
         } catch (Exception e) {
             log.error("获取等级天气预警失败", e);
             return null;
@@ -80,18 +93,16 @@ public class WarningService {
     @Transactional
     public boolean saveWeatherWarning(WeatherWarning warning, Long operatorId) {
         try {
-            if (warning.getIssueTime() == null) {
-                warning.setIssueTime(LocalDateTime.now());
-            }
-            if (warning.getStatus() == null) {
-                warning.setStatus("ACTIVE");
-            }
+            normalize(warning);
 
             int result = weatherWarningMapper.insert(warning);
 
             if (result > 0) {
                 systemService.logOperation(operatorId, "CREATE", "WARNING",
                         "创建天气预警: " + warning.getTitle(), null);
+                TransactionCallbacks.afterCommit(() -> activeWarningIndex.put(List.of(warning)));
+                eventPublisher.publishEvent(new DataChangeEvent(DataChangeEvent.Type.WEATHER_WARNING,
+                        List.of(warning.getLocationCode())));
                 return true;
             }
             return false;
@@ -101,6 +112,64 @@ public class WarningService {
         }
     }
 
+    /**
+     * 批量保存天气预警（同步任务使用）
+     * 多行INSERT写入，不记录操作日志，同步运行结束后由 logSyncedWarnings 写一条汇总
+     */
+    @Transactional
+    public boolean saveWeatherWarnings(List<WeatherWarning> warnings) {
+        try {
+            if (warnings.isEmpty()) {
+                return true;
+            }
+            for (WeatherWarning warning : warnings) {
+                normalize(warning);
+            }
+            for (int from = 0; from < warnings.size(); from += WeatherService.BATCH_SIZE) {
+                int to = Math.min(from + WeatherService.BATCH_SIZE, warnings.size());
+                weatherWarningMapper.batchInsert(warnings.subList(from, to));
+            }
+
+            TransactionCallbacks.afterCommit(() -> activeWarningIndex.put(warnings));
+            eventPublisher.publishEvent(new DataChangeEvent(DataChangeEvent.Type.WEATHER_WARNING));
+            return true;
+        } catch (Exception e) {
+            log.error("批量保存天气预警失败", e);
+            // 批量写入要么全部成功要么全部回滚，避免下次同步时判重失准
+            TransactionAspectSupport.currentTransactionStatus().setRollbackOnly();
+            return false;
+        }
+    }
+
+    /**
+     * 一次同步运行新增的预警写一条汇总操作日志，没有新增时不记录
+     */
+    public void logSyncedWarnings(List<WeatherWarning> warnings, Long operatorId) {
+        if (warnings.isEmpty()) {
+            return;
+        }
+        systemService.logOperation(operatorId, "BATCH_CREATE", "WARNING",
+                "同步新增天气预警 " + warnings.size() + " 条: " + summarizeTitles(warnings), null);
+    }
+
+    /**
+     * 汇总预警标题用于操作日志，最多列出前20条
+     */
+    private String summarizeTitles(List<WeatherWarning> warnings) {
+        StringBuilder titles = new StringBuilder();
+        int limit = Math.min(20, warnings.size());
+        for (int i = 0; i < limit; i++) {
+            if (i > 0) {
+                titles.append("；");
+            }
+            titles.append(warnings.get(i).getTitle());
+        }
+        if (warnings.size() > limit) {
+            titles.append(" 等");
+        }
+        return titles.toString();
+    }
+
     /**
      * 更新天气预警状态
      */
@@ -112,6 +181,8 @@ public class WarningService {
             if (result > 0) {
                 systemService.logOperation(operatorId, "UPDATE", "WARNING",
                         "更新天气预警状态, ID: " + warningId, null);
+                TransactionCallbacks.afterCommit(() -> refreshIndexedWarning(warningId));
+                eventPublisher.publishEvent(new DataChangeEvent(DataChangeEvent.Type.WEATHER_WARNING));
                 return true;
             }
             return false;
@@ -122,18 +193,56 @@ public class WarningService {
     }
 
     /**
-     * 更新过期的预警状态
+     * 批量将已过期的预警置为过期状态，到期通常由 WarningExpiryService 按时间轮处理，这里只作对账兜底
      */
     @Transactional
     public int updateExpiredWarnings() {
         try {
-            return weatherWarningMapper.updateExpiredWarnings();
+            int updated = weatherWarningMapper.updateExpiredWarnings(LocalDateTime.now());
+            if (updated > 0) {
+                TransactionCallbacks.afterCommit(activeWarningIndex::removeExpired);
+                eventPublisher.publishEvent(new DataChangeEvent(DataChangeEvent.Type.WEATHER_WARNING));
+            }
+            return updated;
         } catch (Exception e) {
             log.error("更新过期预警失败", e);
             return 0;
         }
     }
 
+    /**
+     * 补齐发布时间和状态；时间截断到整秒，与 DATETIME 列一致，避免MySQL舍入后库中的失效时间晚于时间轮中登记的时间
+     */
+    private static void normalize(WeatherWarning warning) {
+        if (warning.getIssueTime() == null) {
+            warning.setIssueTime(LocalDateTime.now());
+        }
+        warning.setIssueTime(warning.getIssueTime().truncatedTo(ChronoUnit.SECONDS));
+        if (warning.getExpireTime() != null) {
+            warning.setExpireTime(warning.getExpireTime().truncatedTo(ChronoUnit.SECONDS));
+        }
+        if (warning.getStatus() == null) {
+            warning.setStatus("ACTIVE");
+        }
+    }
+
+    /**
+     * 状态变更后按数据库中的最新状态更新索引，读取失败时丢弃索引等待重新加载
+     */
+    private void refreshIndexedWarning(Long warningId) {
+        try {
+            WeatherWarning warning = weatherWarningMapper.findById(warningId);
+            if (warning != null) {
+                activeWarningIndex.put(List.of(warning));
+            } else {
+                activeWarningIndex.remove(List.of(warningId));
+            }
+        } catch (Exception e) {
+            log.error("刷新预警索引失败, warningId: {}", warningId, e);
+            activeWarningIndex.invalidate();
+        }
+    }
+
     /**
      * 获取已发布的综合预警
      */
@@ -198,11 +307,16 @@ public class WarningService {
     @Transactional
     public boolean publishComprehensiveWarning(Long warningId, Long operatorId) {
         try {
+            ComprehensiveWarning existing = comprehensiveWarningMapper.findById(warningId);
             int result = comprehensiveWarningMapper.publishWarning(warningId, operatorId);
 
             if (result > 0) {
                 systemService.logOperation(operatorId, "PUBLISH", "COMPREHENSIVE_WARNING",
                         "发布综合预警, ID: " + warningId, null);
+                String previousStatus = existing != null ? existing.getStatus() : null;
+                TransactionCallbacks.afterCommit(() ->
+                        dashboardCounters.onComprehensiveWarningChange(previousStatus, "PUBLISHED"));
+                eventPublisher.publishEvent(new DataChangeEvent(DataChangeEvent.Type.COMPREHENSIVE_WARNING));
                 return true;
             }
             return false;
@@ -218,11 +332,16 @@ public class WarningService {
     @Transactional
     public boolean unpublishComprehensiveWarning(Long warningId, Long operatorId) {
         try {
+            ComprehensiveWarning existing = comprehensiveWarningMapper.findById(warningId);
             int result = comprehensiveWarningMapper.unpublishWarning(warningId);
 
             if (result > 0) {
                 systemService.logOperation(operatorId, "UNPUBLISH", "COMPREHENSIVE_WARNING",
                         "撤回综合预警, ID: " + warningId, null);
+                String previousStatus = existing != null ? existing.getStatus() : null;
+                TransactionCallbacks.afterCommit(() ->
+                        dashboardCounters.onComprehensiveWarningChange(previousStatus, "DRAFT"));
+                eventPublisher.publishEvent(new DataChangeEvent(DataChangeEvent.Type.COMPREHENSIVE_WARNING));
                 return true;
             }
             return false;
@@ -236,13 +355,13 @@ public class WarningService {
      * 获取活跃预警数量
      */
     public int getActiveWarningCount() {
-        return weatherWarningMapper.countActive();
+        return activeWarningIndex.count();
     }
 
     /**
      * 获取已发布综合预警数量
      */
     public int getPublishedComprehensiveWarningCount() {
-        return comprehensiveWarningMapper.countPublished();
+        return dashboardCounters.getPublishedWarningCount();
     }
 }
\ No newline at end of file
@@ -0,0 +1,130 @@
+package com.hainan.weather.service;
+
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.caffeine.CaffeineCache;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 实时天气和天气预报的读穿缓存，缓存容量和过期时间见 spring.cache.caffeine.spec
+ * 同步写入提交后只失效涉及的地点，其余地点的缓存不受影响
+ */
+@Service
+public class WeatherCacheService {
+
+    public static final String LATEST_WEATHER = "latestWeather";
+    public static final String WEEK_FORECAST = "weekForecast";
+    public static final String FORECAST_BY_DATE = "forecastByDate";
+
+    @Autowired
+    private CacheManager cacheManager;
+
+    /**
+     * 因数据写入主动失效的条目数，Caffeine 的淘汰统计只包含容量和过期淘汰
+     */
+    private final AtomicLong invalidations = new AtomicLong();
+
+    /**
+     * 读取缓存，未命中时调用 loader 加载并写入，loader 返回的null也会缓存，避免反复查询不存在的地点
+     */
+    public <T> T get(String cacheName, Object key, Callable<T> loader) {
+        return cache(cacheName).get(key, loader);
+    }
+
+    public static String forecastByDateKey(String locationCode, LocalDate date) {
+        return locationCode + "|" + date;
+    }
+
+    /**
+     * 失效指定地点的实时天气缓存
+     */
+    public void evictLatest(Collection<String> locationCodes) {
+        Cache cache = cache(LATEST_WEATHER);
+        for (String locationCode : locationCodes) {
+            if (cache.evictIfPresent(locationCode)) {
+                invalidations.incrementAndGet();
+            }
+        }
+    }
+
+    /**
+     * 失效指定地点的一周预报和按日期预报缓存
+     */
+    public void evictForecasts(Collection<String> locationCodes) {
+        Cache weekCache = cache(WEEK_FORECAST);
+        for (String locationCode : locationCodes) {
+            if (weekCache.evictIfPresent(locationCode)) {
+                invalidations.incrementAndGet();
+            }
+        }
+        Cache dateCache = cache(FORECAST_BY_DATE);
+        if (!(dateCache instanceof CaffeineCache)) {
+            dateCache.clear();
+            return;
+        }
+        // 按日期的键为 "地点|日期"，遍历一次删除所有涉及地点的条目
+        Set<String> codes = new HashSet<>(locationCodes);
+        ((CaffeineCache) dateCache).getNativeCache().asMap().keySet().removeIf(key -> {
+            String text = key.toString();
+            int separator = text.indexOf('|');
+            boolean matched = separator > 0 && codes.contains(text.substring(0, separator));
+            if (matched) {
+                invalidations.incrementAndGet();
+            }
+            return matched;
+        });
+    }
+
+    /**
+     * 清空所有预报缓存，批量删除预报等无法确定地点的写入时使用
+     */
+    public void clearForecasts() {
+        cache(WEEK_FORECAST).clear();
+        cache(FORECAST_BY_DATE).clear();
+    }
+
+    /**
+     * 各缓存的条目数、命中、未命中、淘汰统计，以及主动失效次数
+     */
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        for (String cacheName : List.of(LATEST_WEATHER, WEEK_FORECAST, FORECAST_BY_DATE)) {
+            Cache cache = cache(cacheName);
+            if (!(cache instanceof CaffeineCache)) {
+                continue;
+            }
+            com.github.benmanes.caffeine.cache.Cache<Object, Object> nativeCache = ((CaffeineCache) cache).getNativeCache();
+            CacheStats cacheStats = nativeCache.stats();
+            Map<String, Object> item = new LinkedHashMap<>();
+            item.put("size", nativeCache.estimatedSize());
+            item.put("hitCount", cacheStats.hitCount());
+            item.put("missCount", cacheStats.missCount());
+            item.put("hitRate", cacheStats.hitRate());
+            item.put("evictionCount", cacheStats.evictionCount());
+            item.put("averageLoadMs", cacheStats.averageLoadPenalty() / 1_000_000.0);
+            stats.put(cacheName, item);
+        }
+        stats.put("invalidations", invalidations.get());
+        return stats;
+    }
+
+    private Cache cache(String cacheName) {
+        Cache cache = cacheManager.getCache(cacheName);
+        if (cache == null) {
+            throw new IllegalStateException("缓存未配置: " + cacheName);
+        }
+        return cache;
+    }
+}
@@ -0,0 +1,168 @@
+package com.hainan.weather.service;
+
+import com.hainan.weather.entity.WeatherData;
+import com.hainan.weather.entity.WeatherRollup;
+import com.hainan.weather.mapper.WeatherRollupMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.interceptor.TransactionAspectSupport;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 天气观测的逐小时和逐日汇总
+ * 观测入库时记录受影响的 (地点, 整点) 时段，由 WeatherRollupTask 定期只重算这些时段及其所在的日期；
+ * 历史查询按时间跨度选择逐小时或逐日汇总，不再扫描原始观测
+ */
+@Service
+@Slf4j
+public class WeatherRollupService {
+
+    @Autowired
+    private WeatherRollupMapper weatherRollupMapper;
+
+    /**
+     * 查询跨度不超过该天数时返回逐小时汇总，否则返回逐日汇总
+     */
+    @Value("${qweather.rollup.hourly-max-days:2}")
+    private int hourlyMaxDays;
+
+    /**
+     * 待重算的 (地点, 整点) 时段
+     */
+    private final Set<DirtyBucket> dirtyBuckets = ConcurrentHashMap.newKeySet();
+
+    /**
+     * 记录新写入观测所在的时段，等待后台重算
+     */
+    public void markDirty(Collection<WeatherData> observations) {
+        LocalDateTime now = LocalDateTime.now();
+        for (WeatherData weatherData : observations) {
+            LocalDateTime time = weatherData.getUpdateTime() != null ? weatherData.getUpdateTime() : now;
+            markDirty(weatherData.getLocationCode(), time);
+        }
+    }
+
+    public void markDirty(String locationCode, LocalDateTime time) {
+        if (locationCode != null && time != null) {
+            dirtyBuckets.add(new DirtyBucket(locationCode, time.truncatedTo(ChronoUnit.HOURS)));
+        }
+    }
+
+    public int getDirtyBucketCount() {
+        return dirtyBuckets.size();
+    }
+
+    /**
+     * 取出当前所有待重算时段，按整点分组
+     */
+    public Map<LocalDateTime, List<String>> drainDirty() {
+        Map<LocalDateTime, List<String>> byHour = new TreeMap<>();
+        for (DirtyBucket bucket : new ArrayList<>(dirtyBuckets)) {
+            dirtyBuckets.remove(bucket);
+            byHour.computeIfAbsent(bucket.hour, hour -> new ArrayList<>()).add(bucket.locationCode);
+        }
+        return byHour;
+    }
+
+    /**
+     * 重算指定地点在 [from, to) 内的逐小时汇总，以及这些小时所在日期的逐日汇总，失败时返回false
+     */
+    @Transactional
+    public boolean recompute(List<String> locationCodes, LocalDateTime from, LocalDateTime to) {
+        try {
+            LocalDateTime hourFrom = from.truncatedTo(ChronoUnit.HOURS);
+            weatherRollupMapper.deleteHourly(locationCodes, hourFrom, to);
+            weatherRollupMapper.insertHourly(locationCodes, hourFrom, to);
+
+            LocalDateTime dayFrom = from.toLocalDate().atStartOfDay();
+            LocalDateTime dayTo = to.minusNanos(1).toLocalDate().plusDays(1).atStartOfDay();
+            weatherRollupMapper.deleteDaily(locationCodes, dayFrom, dayTo);
+            weatherRollupMapper.insertDaily(locationCodes, dayFrom, dayTo);
+            return true;
+        } catch (Exception e) {
+            log.error("重算天气汇总失败, 时段: {} ~ {}", from, to, e);
+            TransactionAspectSupport.currentTransactionStatus().setRollbackOnly();
+            return false;
+        }
+    }
+
+    /**
+     * 查询 [startDate, endDate] 的历史天气，跨度不超过 hourly-max-days 时返回逐小时汇总，否则返回逐日汇总
+     */
+    public List<WeatherRollup> getHistory(String locationCode, LocalDate startDate, LocalDate endDate) {
+        try {
+            LocalDateTime from = startDate.atStartOfDay();
+            LocalDateTime to = endDate.plusDays(1).atStartOfDay();
+            boolean hourly = ChronoUnit.DAYS.between(startDate, endDate) + 1 <= hourlyMaxDays;
+            List<WeatherRollup> rollups = hourly
+                    ? weatherRollupMapper.findHourly(locationCode, from, to)
+                    : weatherRollupMapper.findDaily(locationCode, from, to);
+            for (WeatherRollup rollup : rollups) {
+                rollup.setResolution(hourly ? WeatherRollup.HOURLY : WeatherRollup.DAILY);
+            }
+            return rollups;
+        } catch (Exception e) {
+            log.error("查询历史天气汇总失败, locationCode: {}", locationCode, e);
+            return null;
+        }
+    }
+
+    /**
+     * 查询某一天的逐日汇总
+     */
+    public WeatherRollup getDaily(String locationCode, LocalDate date) {
+        try {
+            List<WeatherRollup> rollups = weatherRollupMapper.findDaily(locationCode,
+                    date.atStartOfDay(), date.plusDays(1).atStartOfDay());
+            if (rollups.isEmpty()) {
+                return null;
+            }
+            WeatherRollup rollup = rollups.get(0);
+            rollup.setResolution(WeatherRollup.DAILY);
+            return rollup;
+        } catch (Exception e) {
+            log.error("查询逐日天气汇总失败, locationCode: {}, date: {}", locationCode, date, e);
+            return null;
+        }
+    }
+
+    private static final class DirtyBucket {
+        private final String locationCode;
+        private final LocalDateTime hour;
+
+        private DirtyBucket(String locationCode, LocalDateTime hour) {
+            this.locationCode = locationCode;
+            this.hour = hour;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof DirtyBucket)) {
+                return false;
+            }
+            DirtyBucket other = (DirtyBucket) o;
+            return locationCode.equals(other.locationCode) && hour.equals(other.hour);
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * locationCode.hashCode() + hour.hashCode();
+        }
+    }
+}
@@ -0,0 +1,83 @@
+package com.hainan.weather.service;
+
+import com.hainan.weather.entity.Location;
+import com.hainan.weather.mapper.LocationMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+@Component
+@Slf4j
+public class WeatherRollupTask {
+
+    @Autowired
+    private WeatherRollupService weatherRollupService;
+
+    @Autowired
+    private LocationMapper locationMapper;
+
+    /**
+     * 启动后首次执行时重算最近多少小时的汇总，补上重启前未来得及重算的时段
+     */
+    @Value("${qweather.rollup.catch-up-hours:48}")
+    private long catchUpHours;
+
+    private volatile boolean caughtUp;
+
+    /**
+     * 每分钟重算一次新观测涉及的时段
+     */
+    @Scheduled(initialDelayString = "${qweather.rollup.interval-ms:60000}",
+            fixedDelayString = "${qweather.rollup.interval-ms:60000}")
+    public void rollup() {
+        try {
+            if (!caughtUp) {
+                caughtUp = catchUp();
+            }
+            int recomputed = 0;
+            for (Map.Entry<LocalDateTime, List<String>> entry : weatherRollupService.drainDirty().entrySet()) {
+                LocalDateTime hour = entry.getKey();
+                if (recompute(entry.getValue(), hour, hour.plusHours(1))) {
+                    recomputed += entry.getValue().size();
+                } else {
+                    // 失败的时段放回，下次重试
+                    for (String locationCode : entry.getValue()) {
+                        weatherRollupService.markDirty(locationCode, hour);
+                    }
+                }
+            }
+            if (recomputed > 0) {
+                log.info("天气汇总已更新，重算时段 {} 个", recomputed);
+            }
+        } catch (Exception e) {
+            log.error("天气汇总任务执行失败", e);
+        }
+    }
+
+    private boolean catchUp() {
+        List<String> locationCodes = new ArrayList<>();
+        for (Location location : locationMapper.findAll()) {
+            locationCodes.add(location.getLocationCode());
+        }
+        LocalDateTime to = LocalDateTime.now().truncatedTo(ChronoUnit.HOURS).plusHours(1);
+        return locationCodes.isEmpty() || recompute(locationCodes, to.minusHours(catchUpHours), to);
+    }
+
+    private boolean recompute(List<String> locationCodes, LocalDateTime from, LocalDateTime to) {
+        for (int start = 0; start < locationCodes.size(); start += WeatherService.BATCH_SIZE) {
+            int end = Math.min(start + WeatherService.BATCH_SIZE, locationCodes.size());
+            if (!weatherRollupService.recompute(locationCodes.subList(start, end), from, to)) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -2,47 +2,119 @@ package com.hainan.weather.service;
 
 import com.hainan.weather.entity.WeatherData;
 import com.hainan.weather.entity.WeatherForecast;
+import com.hainan.weather.entity.WeatherForecastHourly;
+import com.hainan.weather.entity.WeatherRollup;
 import com.hainan.weather.mapper.WeatherDataMapper;
+import com.hainan.weather.mapper.WeatherForecastHourlyMapper;
 import com.hainan.weather.mapper.WeatherForecastMapper;
+import com.hainan.weather.mapper.WeatherLatestMapper;
+import com.hainan.weather.event.DataChangeEvent;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.BeanUtils;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.interceptor.TransactionAspectSupport;
 
 import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Set;
 
 @Service
 @Slf4j
 public class WeatherService {
 
+    /**
+     * 多行INSERT每条语句的最大行数
+     */
+    static final int BATCH_SIZE = 500;
+
     @Autowired
     private WeatherDataMapper weatherDataMapper;
 
+    @Autowired
+    private WeatherLatestMapper weatherLatestMapper;
+
     @Autowired
     private WeatherForecastMapper weatherForecastMapper;
 
+    @Autowired
+    private WeatherForecastHourlyMapper weatherForecastHourlyMapper;
+
+    @Autowired
+    private QWeatherCircuitBreaker circuitBreaker;
+
+    @Autowired
+    private WeatherRollupService weatherRollupService;
+
+    @Autowired
+    private ObservationArchiveService observationArchiveService;
+
+    @Autowired
+    private RecentObservationStore recentObservationStore;
+
+    @Autowired
+    private WeatherCacheService weatherCacheService;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    /**
+     * 观测时间超过该分钟数的数据视为过期
+     */
+    @Value("${qweather.stale-after-minutes:120}")
+    private long staleAfterMinutes;
+
     /**
      * 获取指定地点的最新天气数据
+     * 经缓存读取 weather_latest，上游熔断或数据过旧时仍返回最后一次成功的观测，并标记stale；
+     * stale 每次按当前时间计算，因此返回缓存对象的副本
      */
     public WeatherData getLatestWeather(String locationCode) {
         try {
-            return weatherDataMapper.findLatestByLocationCode(locationCode);
+            WeatherData cached = weatherCacheService.get(WeatherCacheService.LATEST_WEATHER, locationCode,
+                    () -> weatherLatestMapper.findByLocationCode(locationCode));
+            if (cached == null) {
+                return null;
+            }
+            WeatherData weatherData = new WeatherData();
+            BeanUtils.copyProperties(cached, weatherData);
+            markStale(weatherData);
+            return weatherData;
         } catch (Exception e) {
             log.error("获取实时天气数据失败, locationCode: {}", locationCode, e);
             return null;
         }
     }
 
+    private void markStale(WeatherData weatherData) {
+        if (weatherData == null) {
+            return;
+        }
+        LocalDateTime updateTime = weatherData.getUpdateTime();
+        boolean outdated = updateTime == null || updateTime.isBefore(LocalDateTime.now().minusMinutes(staleAfterMinutes));
+        weatherData.setStale(outdated || circuitBreaker.getState() != QWeatherCircuitBreaker.State.CLOSED);
+    }
+
     /**
-     * 获取指定地点的历史天气数据
+     * 获取指定地点最近若干天（含今天）的历史天气汇总，跨度较短时为逐小时汇总，否则为逐日汇总
      */
-    public List<WeatherData> getHistoricalWeather(String locationCode, int days) {
-        try {
-            return weatherDataMapper.findRecentByLocation(locationCode, days);
-        } catch (Exception e) {
-            log.error("获取历史天气数据失败, locationCode: {}", locationCode, e);
-            return null;
-        }
+    public List<WeatherRollup> getHistoricalWeather(String locationCode, int days) {
+        LocalDate today = LocalDate.now();
+        return weatherRollupService.getHistory(locationCode, today.minusDays(Math.max(1, days) - 1), today);
+    }
+
+    /**
+     * 获取指定日期的全部原始观测，已归档的日期从归档文件中读取
+     */
+    public List<WeatherData> getObservationsByDate(String locationCode, LocalDate date) {
+        return observationArchiveService.findObservations(locationCode,
+                date.atStartOfDay(), date.plusDays(1).atStartOfDay());
     }
 
     /**
@@ -50,7 +122,7 @@ public class WeatherService {
      */
     public WeatherData getWeatherByDate(String locationCode, LocalDate date) {
         try {
-            return weatherDataMapper.findByLocationAndDate(locationCode, date);
+            return weatherDataMapper.findLatestBetween(locationCode, date.atStartOfDay(), date.plusDays(1).atStartOfDay());
         } catch (Exception e) {
             log.error("按日期查询天气数据失败", e);
             return null;
@@ -62,7 +134,8 @@ public class WeatherService {
      */
     public List<WeatherForecast> getWeekForecast(String locationCode) {
         try {
-            return weatherForecastMapper.findWeekForecast(locationCode);
+            return weatherCacheService.get(WeatherCacheService.WEEK_FORECAST, locationCode,
+                    () -> List.copyOf(weatherForecastMapper.findWeekForecast(locationCode)));
         } catch (Exception e) {
             log.error("获取一周天气预报失败, locationCode: {}", locationCode, e);
             return null;
@@ -88,7 +161,9 @@ public class WeatherService {
      */
     public WeatherForecast getForecastByDate(String locationCode, LocalDate date) {
         try {
-            return weatherForecastMapper.findByLocationAndDate(locationCode, date);
+            return weatherCacheService.get(WeatherCacheService.FORECAST_BY_DATE,
+                    WeatherCacheService.forecastByDateKey(locationCode, date),
+                    () -> weatherForecastMapper.findByLocationAndDate(locationCode, date));
         } catch (Exception e) {
             log.error("获取指定日期天气预报失败", e);
             return null;
@@ -96,27 +171,106 @@ public class WeatherService {
     }
 
     /**
-     * 保存天气数据
+     * 保存天气数据，同一事务内刷新该地点的 weather_latest
      */
+    @Transactional
     public boolean saveWeatherData(WeatherData weatherData) {
         try {
             int result = weatherDataMapper.insert(weatherData);
+            weatherLatestMapper.refreshFromHistory(List.of(weatherData.getLocationCode()), weatherData.getUpdateTime());
+            weatherRollupService.markDirty(List.of(weatherData));
+            TransactionCallbacks.afterCommit(() -> {
+                weatherCacheService.evictLatest(List.of(weatherData.getLocationCode()));
+                recentObservationStore.record(List.of(weatherData));
+            });
+            eventPublisher.publishEvent(new DataChangeEvent(DataChangeEvent.Type.WEATHER,
+                    List.of(weatherData.getLocationCode())));
             return result > 0;
         } catch (Exception e) {
             log.error("保存天气数据失败", e);
+            TransactionAspectSupport.currentTransactionStatus().setRollbackOnly();
+            return false;
+        }
+    }
+
+    /**
+     * 批量保存天气数据（同步任务使用），按 BATCH_SIZE 拆分为多行INSERT，
+     * 同一事务内刷新涉及地点的 weather_latest
+     */
+    @Transactional
+    public boolean saveWeatherDataBatch(List<WeatherData> weatherDataList) {
+        try {
+            Set<String> locationCodes = new LinkedHashSet<>();
+            for (int from = 0; from < weatherDataList.size(); from += BATCH_SIZE) {
+                int to = Math.min(from + BATCH_SIZE, weatherDataList.size());
+                List<WeatherData> batch = weatherDataList.subList(from, to);
+                weatherDataMapper.batchInsert(batch);
+                for (WeatherData weatherData : batch) {
+                    locationCodes.add(weatherData.getLocationCode());
+                }
+            }
+            refreshLatest(new ArrayList<>(locationCodes), earliestUpdateTime(weatherDataList));
+            weatherRollupService.markDirty(weatherDataList);
+            TransactionCallbacks.afterCommit(() -> {
+                weatherCacheService.evictLatest(locationCodes);
+                recentObservationStore.record(weatherDataList);
+            });
+            eventPublisher.publishEvent(new DataChangeEvent(DataChangeEvent.Type.WEATHER, locationCodes));
+            return true;
+        } catch (Exception e) {
+            log.error("批量保存天气数据失败", e);
+            TransactionAspectSupport.currentTransactionStatus().setRollbackOnly();
             return false;
         }
     }
 
+    private void refreshLatest(List<String> locationCodes, LocalDateTime since) {
+        for (int from = 0; from < locationCodes.size(); from += BATCH_SIZE) {
+            int to = Math.min(from + BATCH_SIZE, locationCodes.size());
+            weatherLatestMapper.refreshFromHistory(locationCodes.subList(from, to), since);
+        }
+    }
+
+    /**
+     * 本批观测中最早的更新时间，有观测未带更新时间（入库时取数据库当前时间）时返回null，不限定扫描范围
+     */
+    private static LocalDateTime earliestUpdateTime(List<WeatherData> weatherDataList) {
+        LocalDateTime earliest = null;
+        for (WeatherData weatherData : weatherDataList) {
+            if (weatherData.getUpdateTime() == null) {
+                return null;
+            }
+            if (earliest == null || weatherData.getUpdateTime().isBefore(earliest)) {
+                earliest = weatherData.getUpdateTime();
+            }
+        }
+        return earliest;
+    }
+
     /**
-     * 更新天气数据
+     * 更新天气数据的读数，update_time 是上游观测时间且属于唯一键和分区键，保持不变；
+     * 修改的可能是最新一条观测，因此同时刷新该地点的 weather_latest
      */
+    @Transactional
     public boolean updateWeatherData(WeatherData weatherData) {
         try {
             int result = weatherDataMapper.update(weatherData);
+            WeatherData updated = weatherDataMapper.findById(weatherData.getId());
+            if (updated != null) {
+                weatherLatestMapper.refreshFromHistory(List.of(updated.getLocationCode()), updated.getUpdateTime());
+                // 读数变化，所在时段的汇总要重算
+                weatherRollupService.markDirty(updated.getLocationCode(), updated.getUpdateTime());
+                TransactionCallbacks.afterCommit(() -> {
+                    weatherCacheService.evictLatest(List.of(updated.getLocationCode()));
+                    recentObservationStore.record(List.of(updated));
+                });
+                eventPublisher.publishEvent(new DataChangeEvent(DataChangeEvent.Type.WEATHER,
+                        List.of(updated.getLocationCode())));
+            }
             return result > 0;
         } catch (Exception e) {
             log.error("更新天气数据失败", e);
+            TransactionAspectSupport.currentTransactionStatus().setRollbackOnly();
             return false;
         }
     }
@@ -127,6 +281,7 @@ public class WeatherService {
     public boolean saveWeatherForecast(WeatherForecast forecast) {
         try {
             int result = weatherForecastMapper.insert(forecast);
+            weatherCacheService.evictForecasts(List.of(forecast.getLocationCode()));
             return result > 0;
         } catch (Exception e) {
             log.error("保存天气预报失败", e);
@@ -135,26 +290,83 @@ public class WeatherService {
     }
 
     /**
-     * 批量保存天气预报
+     * 批量保存天气预报，按 (location_code, forecast_date) 覆盖已有预报
      */
+    @Transactional
     public boolean batchSaveForecasts(List<WeatherForecast> forecasts) {
         try {
-            for (WeatherForecast forecast : forecasts) {
-                weatherForecastMapper.insert(forecast);
+            for (int from = 0; from < forecasts.size(); from += BATCH_SIZE) {
+                int to = Math.min(from + BATCH_SIZE, forecasts.size());
+                weatherForecastMapper.batchUpsert(forecasts.subList(from, to));
             }
+            Set<String> locationCodes = forecastLocations(forecasts);
+            TransactionCallbacks.afterCommit(() -> weatherCacheService.evictForecasts(locationCodes));
             return true;
         } catch (Exception e) {
             log.error("批量保存天气预报失败", e);
+            TransactionAspectSupport.currentTransactionStatus().setRollbackOnly();
             return false;
         }
     }
 
+    /**
+     * 同步时写入逐日和逐小时预报，并清理已过去的预报，整体在一个事务内完成
+     */
+    @Transactional
+    public boolean saveSyncedForecasts(List<WeatherForecast> dailyForecasts,
+                                       List<WeatherForecastHourly> hourlyForecasts) {
+        try {
+            for (int from = 0; from < dailyForecasts.size(); from += BATCH_SIZE) {
+                int to = Math.min(from + BATCH_SIZE, dailyForecasts.size());
+                weatherForecastMapper.batchUpsert(dailyForecasts.subList(from, to));
+            }
+            for (int from = 0; from < hourlyForecasts.size(); from += BATCH_SIZE) {
+                int to = Math.min(from + BATCH_SIZE, hourlyForecasts.size());
+                weatherForecastHourlyMapper.batchUpsert(hourlyForecasts.subList(from, to));
+            }
+            weatherForecastMapper.deleteExpired(LocalDate.now());
+            weatherForecastHourlyMapper.deleteBefore(LocalDateTime.now().minusHours(1));
+            Set<String> locationCodes = forecastLocations(dailyForecasts);
+            TransactionCallbacks.afterCommit(() -> weatherCacheService.evictForecasts(locationCodes));
+            return true;
+        } catch (Exception e) {
+            log.error("保存同步的天气预报失败", e);
+            TransactionAspectSupport.currentTransactionStatus().setRollbackOnly();
+            return false;
+        }
+    }
+
+    private static Set<String> forecastLocations(List<WeatherForecast> forecasts) {
+        Set<String> locationCodes = new LinkedHashSet<>();
+        for (WeatherForecast forecast : forecasts) {
+            locationCodes.add(forecast.getLocationCode());
+        }
+        return locationCodes;
+    }
+
+    /**
+     * 获取指定地点未来的逐小时预报
+     */
+    public List<WeatherForecastHourly> getHourlyForecast(String locationCode, int hours) {
+        try {
+            LocalDateTime from = LocalDateTime.now().withMinute(0).withSecond(0).withNano(0);
+            return weatherForecastHourlyMapper.findUpcoming(locationCode, from, hours);
+        } catch (Exception e) {
+            log.error("获取逐小时天气预报失败, locationCode: {}", locationCode, e);
+            return null;
+        }
+    }
+
     /**
      * 删除过期的天气预报
      */
     public int deleteExpiredForecasts(LocalDate date) {
         try {
-            return weatherForecastMapper.deleteExpired(date);
+            int deleted = weatherForecastMapper.deleteExpired(date);
+            if (deleted > 0) {
+                weatherCacheService.clearForecasts();
+            }
+            return deleted;
         } catch (Exception e) {
             log.error("删除过期天气预报失败", e);
             return 0;
@@ -166,8 +378,7 @@ public class WeatherService {
      */
     public List<WeatherData> getAllLatestWeather() {
         try {
-            // 这里需要扩展Mapper或使用其他方式获取所有地点最新数据
-            return weatherDataMapper.findAll();
+            return weatherLatestMapper.findAll();
         } catch (Exception e) {
             log.error("获取所有地点天气数据失败", e);
             return null;
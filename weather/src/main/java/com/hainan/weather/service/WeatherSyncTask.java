@@ -10,10 +10,10 @@ import org.springframework.stereotype.Component;
 public class WeatherSyncTask {
 
     @Autowired
-    private QWeatherApiService qWeatherApiService;
+    private SyncCoordinator syncCoordinator;
 
     /**
-     * 每小时00分执行一次天气和预警数据同步
+     * 每小时00分执行一次天气和预警数据同步，只刷新刷新调度器中已到期的地点
      * cron表达式：0 0 * * * ? 表示每小时的第0分钟执行
      * 秒 分 时 日 月 周
      */
@@ -21,7 +21,7 @@ public class WeatherSyncTask {
     public void syncWeatherData() {
         log.info("========== 开始执行定时任务：同步天气和预警数据 ==========");
         try {
-            qWeatherApiService.syncAllLocations();
+            syncCoordinator.triggerAndWait("SCHEDULE", false);
             log.info("========== 定时任务执行完成：同步天气和预警数据 ==========");
         } catch (Exception e) {
             log.error("========== 定时任务执行失败：同步天气和预警数据 ==========", e);
@@ -29,7 +29,8 @@ public class WeatherSyncTask {
     }
 
     /**
-     * 应用启动后立即执行一次，然后每5分钟执行一次（用于测试和验证）
+     * 应用启动后立即执行一次，然后每5分钟执行一次，只刷新已到期的地点
+     * 各地点的实际刷新间隔由 LocationRefreshScheduler 决定，本任务只是检查到期的节拍
      * 可以通过这个任务验证定时任务是否正常工作
      * 注意：这个任务会在启动后10秒执行，然后每5分钟执行一次
      * 如果需要禁用测试任务，可以注释掉@Scheduled注解
@@ -38,7 +39,7 @@ public class WeatherSyncTask {
     public void syncWeatherDataTest() {
         log.info("========== [测试定时任务] 开始执行：同步天气和预警数据 ==========");
         try {
-            qWeatherApiService.syncAllLocations();
+            syncCoordinator.triggerAndWait("SCHEDULE_TEST", false);
             log.info("========== [测试定时任务] 执行完成：同步天气和预警数据 ==========");
         } catch (Exception e) {
             log.error("========== [测试定时任务] 执行失败：同步天气和预警数据 ==========", e);
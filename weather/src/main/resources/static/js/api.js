@@ -70,6 +70,11 @@ const weatherApi = {
         return api.get('/api/weather/forecast', { location });
     },
 
+    // 获取逐小时天气预报
+    getHourlyForecast: (location = 'SANYA') => {
+        return api.get('/api/weather/forecast/hourly', { location });
+    },
+
     // 获取历史天气
     getHistory: (location = 'SANYA', date = '') => {
         return api.get('/api/weather/history', { location, date });
@@ -309,6 +314,11 @@ const adminApi = {
         return api.post('/api/admin/weather/sync', {});
     },
 
+    // 查询同步任务状态
+    getSyncJobStatus: (jobId) => {
+        return api.get(`/api/admin/weather/sync/${jobId}`);
+    },
+
     // 模拟发布天气预警
     simulateWeatherWarning: (warningData) => {
         return api.post('/api/admin/warnings/simulate', warningData);
@@ -0,0 +1,294 @@
+package com.hainan.weather.benchmark;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.temporal.ChronoUnit;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * 本地模拟的和风天气服务，用于同步压测和联调，不依赖真实API和配额
+ * 回放模式：按接口返回录制的响应（默认取测试资源 /qweather/*.json），
+ * 响应中的 {{now}}、{{date+N}}、{{hour+N}} 在返回时替换为当前时间，使重复同步产生新的观测
+ * 录制模式：转发到真实API并把响应保存到录制目录，之后可离线回放
+ * 可注入延迟、429（带Retry-After）、5xx和截断的响应体
+ * 独立运行：以测试classpath执行main方法，参数为端口（默认18090，避开应用自身的18080；传0时随机选择空闲端口），再将 qweather.base-url 指向输出的地址
+ */
+public class FakeQWeatherServer {
+
+    private static final String API_KEY_HEADER = "X-QW-Api-Key";
+    private static final DateTimeFormatter TIME_FORMATTER = DateTimeFormatter.ofPattern("yyyy-MM-dd'T'HH:mm'+08:00'");
+    private static final Pattern PLACEHOLDER = Pattern.compile("\\{\\{(now|date|hour)(?:\\+(\\d+))?}}");
+
+    /**
+     * 接口路径前缀 -> 录制文件名
+     */
+    private static final Map<String, String> ENDPOINTS = Map.of(
+            "/v7/weather/now", "now",
+            "/v7/weather/7d", "daily",
+            "/v7/weather/24h", "hourly",
+            "/weatheralert/v1/current/", "alerts"
+    );
+
+    private final Map<String, String> recordings = new ConcurrentHashMap<>();
+    private final AtomicLong requests = new AtomicLong();
+    private final AtomicLong throttled = new AtomicLong();
+    private final AtomicLong serverErrors = new AtomicLong();
+    private final AtomicLong malformed = new AtomicLong();
+
+    private volatile long latencyMs;         // 固定延迟
+    private volatile long latencyJitterMs;   // 随机附加延迟上限
+    private volatile double throttleRate;    // 返回429的比例
+    private volatile long retryAfterSeconds = 1;
+    private volatile double serverErrorRate; // 返回500的比例
+    private volatile double malformedRate;   // 返回截断响应体的比例
+
+    private volatile String upstreamBaseUrl;
+    private volatile String upstreamApiKey;
+    private volatile Path recordDir;
+    private HttpClient upstreamClient;
+
+    private HttpServer server;
+    private ExecutorService executor;
+
+    /**
+     * 从测试资源加载默认录制响应
+     */
+    public FakeQWeatherServer() {
+        for (String name : ENDPOINTS.values()) {
+            try (InputStream in = FakeQWeatherServer.class.getResourceAsStream("/qweather/" + name + ".json")) {
+                if (in != null) {
+                    recordings.put(name, new String(in.readAllBytes(), StandardCharsets.UTF_8));
+                }
+            } catch (IOException e) {
+                throw new IllegalStateException("加载录制响应失败: " + name, e);
+            }
+        }
+    }
+
+    /**
+     * 从目录加载录制响应（目录中的 now.json、daily.json、hourly.json、alerts.json），覆盖默认响应
+     */
+    public FakeQWeatherServer loadRecordings(Path dir) throws IOException {
+        for (String name : ENDPOINTS.values()) {
+            Path file = dir.resolve(name + ".json");
+            if (Files.exists(file)) {
+                recordings.put(name, Files.readString(file, StandardCharsets.UTF_8));
+            }
+        }
+        return this;
+    }
+
+    /**
+     * 进入录制模式：请求转发到真实API，响应原样返回并写入录制目录
+     */
+    public FakeQWeatherServer recordFrom(String baseUrl, String apiKey, Path dir) throws IOException {
+        Files.createDirectories(dir);
+        this.upstreamClient = HttpClient.newBuilder().connectTimeout(Duration.ofSeconds(5)).build();
+        this.upstreamBaseUrl = baseUrl;
+        this.upstreamApiKey = apiKey;
+        this.recordDir = dir;
+        return this;
+    }
+
+    public FakeQWeatherServer latency(long fixedMs, long jitterMs) {
+        this.latencyMs = fixedMs;
+        this.latencyJitterMs = jitterMs;
+        return this;
+    }
+
+    public FakeQWeatherServer throttle(double rate, long retryAfterSeconds) {
+        this.throttleRate = rate;
+        this.retryAfterSeconds = retryAfterSeconds;
+        return this;
+    }
+
+    public FakeQWeatherServer serverErrors(double rate) {
+        this.serverErrorRate = rate;
+        return this;
+    }
+
+    public FakeQWeatherServer malformed(double rate) {
+        this.malformedRate = rate;
+        return this;
+    }
+
+    /**
+     * 启动服务，port为0时随机选择端口，返回可直接用作 qweather.base-url 的地址
+     */
+    public String start(int port) throws IOException {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", port), 1024);
+        // 延迟在处理线程中sleep模拟，线程数不设上限，避免模拟服务自身成为瓶颈
+        executor = Executors.newCachedThreadPool(runnable -> {
+            Thread thread = new Thread(runnable, "fake-qweather");
+            thread.setDaemon(true);
+            return thread;
+        });
+        server.setExecutor(executor);
+        server.createContext("/", this::handle);
+        server.start();
+        return getBaseUrl();
+    }
+
+    public void stop() {
+        if (server != null) {
+            server.stop(0);
+            executor.shutdownNow();
+        }
+    }
+
+    public String getBaseUrl() {
+        return "http://127.0.0.1:" + server.getAddress().getPort();
+    }
+
+    public String getStats() {
+        return String.format("请求 %d 次，429 %d 次，5xx %d 次，截断响应 %d 次",
+                requests.get(), throttled.get(), serverErrors.get(), malformed.get());
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        try (exchange) {
+            requests.incrementAndGet();
+            String name = endpointName(exchange.getRequestURI().getPath());
+            if (name == null) {
+                send(exchange, 404, "{\"code\":\"404\"}");
+                return;
+            }
+            if (exchange.getRequestHeaders().getFirst(API_KEY_HEADER) == null) {
+                send(exchange, 401, "{\"code\":\"401\"}");
+                return;
+            }
+            sleepLatency();
+
+            ThreadLocalRandom random = ThreadLocalRandom.current();
+            if (random.nextDouble() < throttleRate) {
+                throttled.incrementAndGet();
+                exchange.getResponseHeaders().set("Retry-After", String.valueOf(retryAfterSeconds));
+                send(exchange, 429, "{\"code\":\"429\"}");
+                return;
+            }
+            if (random.nextDouble() < serverErrorRate) {
+                serverErrors.incrementAndGet();
+                send(exchange, 500, "{\"code\":\"500\"}");
+                return;
+            }
+
+            String body = upstreamBaseUrl != null ? record(exchange, name) : recordings.get(name);
+            if (body == null) {
+                send(exchange, 404, "{\"code\":\"404\"}");
+                return;
+            }
+            body = render(body);
+            if (random.nextDouble() < malformedRate) {
+                malformed.incrementAndGet();
+                body = body.substring(0, body.length() / 2);
+            }
+            send(exchange, 200, body);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private String record(HttpExchange exchange, String name) throws IOException, InterruptedException {
+        URI uri = URI.create(upstreamBaseUrl + exchange.getRequestURI());
+        HttpResponse<String> response = upstreamClient.send(
+                HttpRequest.newBuilder(uri).header(API_KEY_HEADER, upstreamApiKey).GET().build(),
+                HttpResponse.BodyHandlers.ofString(StandardCharsets.UTF_8));
+        if (response.statusCode() == 200) {
+            recordings.put(name, response.body());
+            Files.writeString(recordDir.resolve(name + ".json"), response.body(), StandardCharsets.UTF_8);
+        }
+        return response.body();
+    }
+
+    private void sleepLatency() throws InterruptedException {
+        long delay = latencyMs + (latencyJitterMs > 0 ? ThreadLocalRandom.current().nextLong(latencyJitterMs + 1) : 0);
+        if (delay > 0) {
+            Thread.sleep(delay);
+        }
+    }
+
+    private static String endpointName(String path) {
+        for (Map.Entry<String, String> endpoint : ENDPOINTS.entrySet()) {
+            if (path.startsWith(endpoint.getKey())) {
+                return endpoint.getValue();
+            }
+        }
+        return null;
+    }
+
+    /**
+     * 替换时间占位符：{{now}}为当前分钟，{{date+N}}为N天后的日期，{{hour+N}}为N小时后的整点
+     */
+    private static String render(String template) {
+        if (template.indexOf("{{") < 0) {
+            return template;
+        }
+        LocalDateTime now = LocalDateTime.now().truncatedTo(ChronoUnit.MINUTES);
+        Matcher matcher = PLACEHOLDER.matcher(template);
+        StringBuilder rendered = new StringBuilder(template.length());
+        while (matcher.find()) {
+            long offset = matcher.group(2) != null ? Long.parseLong(matcher.group(2)) : 0;
+            String value;
+            switch (matcher.group(1)) {
+                case "date":
+                    value = LocalDate.now().plusDays(offset).toString();
+                    break;
+                case "hour":
+                    value = now.truncatedTo(ChronoUnit.HOURS).plusHours(offset).format(TIME_FORMATTER);
+                    break;
+                default:
+                    value = now.format(TIME_FORMATTER);
+            }
+            matcher.appendReplacement(rendered, value);
+        }
+        matcher.appendTail(rendered);
+        return rendered.toString();
+    }
+
+    private static void send(HttpExchange exchange, int status, String body) throws IOException {
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+        exchange.sendResponseHeaders(status, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+
+    public static void main(String[] args) throws IOException {
+        int port = args.length > 0 ? Integer.parseInt(args[0]) : 18090;
+        FakeQWeatherServer server = new FakeQWeatherServer()
+                .latency(Long.getLong("fake.latency-ms", 0), Long.getLong("fake.jitter-ms", 0))
+                .throttle(Double.parseDouble(System.getProperty("fake.throttle-rate", "0")), 1)
+                .serverErrors(Double.parseDouble(System.getProperty("fake.error-rate", "0")))
+                .malformed(Double.parseDouble(System.getProperty("fake.malformed-rate", "0")));
+        String recordTo = System.getProperty("fake.record-dir");
+        if (recordTo != null) {
+            server.recordFrom(System.getProperty("fake.upstream", "https://mp52qby2rg.re.qweatherapi.com"),
+                    System.getProperty("fake.api-key"), Path.of(recordTo));
+        }
+        System.out.println("模拟和风天气服务已启动: " + server.start(port));
+    }
+}
@@ -0,0 +1,142 @@
+package com.hainan.weather.benchmark;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.hainan.weather.entity.WeatherData;
+import com.hainan.weather.entity.WeatherWarning;
+import com.hainan.weather.service.QWeatherResponseDecoder;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 和风天气响应解析基准：原JsonNode树解析 vs 流式解码器
+ * 运行方式：mvn test-compile 后以测试classpath执行本类的main方法，
+ * 加 -prof gc 参数可同时比较每次解析的分配量
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class QWeatherDecoderBenchmark {
+
+    private static final String NOW_JSON = "{\"code\":\"200\",\"updateTime\":\"2020-06-30T22:00+08:00\","
+            + "\"fxLink\":\"http://hfx.link/2ax1\",\"now\":{\"obsTime\":\"2020-06-30T21:40+08:00\",\"temp\":\"24\","
+            + "\"feelsLike\":\"26\",\"icon\":\"101\",\"text\":\"多云\",\"wind360\":\"123\",\"windDir\":\"东南风\","
+            + "\"windScale\":\"1\",\"windSpeed\":\"3\",\"humidity\":\"72\",\"precip\":\"0.0\",\"pressure\":\"1003\","
+            + "\"vis\":\"16\",\"cloud\":\"10\",\"dew\":\"21\"},\"refer\":{\"sources\":[\"QWeather\",\"NMC\",\"ECMWF\"],"
+            + "\"license\":[\"QWeather Developers License\"]}}";
+
+    private static final String ALERT_JSON = "{\"id\":\"202510241119105837988676\",\"senderName\":\"临桂区气象台\","
+            + "\"issuedTime\":\"2025-10-24T11:19+08:00\",\"messageType\":{\"code\":\"update\","
+            + "\"supersedes\":[\"202510181140100706230391\"]},\"eventType\":{\"name\":\"大风\",\"code\":\"1006\"},"
+            + "\"urgency\":null,\"severity\":\"minor\",\"certainty\":null,\"icon\":\"1006\","
+            + "\"color\":{\"code\":\"blue\",\"red\":30,\"green\":50,\"blue\":205,\"alpha\":1},"
+            + "\"effectiveTime\":\"2025-10-24T11:19+08:00\",\"onsetTime\":\"2025-10-24T11:19+08:00\","
+            + "\"expireTime\":\"2025-10-25T11:19+08:00\",\"headline\":\"临桂区气象台更新大风蓝色预警信号\","
+            + "\"description\":\"预计未来24小时内临桂将出现6级（或阵风7级）以上大风，请做好防范。\","
+            + "\"criteria\":\"24小时内可能受大风影响，平均风力可达6级以上。\",\"responseTypes\":[],"
+            + "\"instruction\":\"1. 政府及有关部门按照职责做好防大风工作。\\n2. 关好门窗。\"}";
+
+    private static final String ALERTS_JSON = "{\"metadata\":{\"tag\":\"ec71f87d\",\"zeroResult\":false,"
+            + "\"attributions\":[\"https://developer.qweather.com/attribution.html\"]},\"alerts\":["
+            + ALERT_JSON + "," + ALERT_JSON + "," + ALERT_JSON + "]}";
+
+    private final byte[] nowBody = NOW_JSON.getBytes(StandardCharsets.UTF_8);
+    private final byte[] alertsBody = ALERTS_JSON.getBytes(StandardCharsets.UTF_8);
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final QWeatherResponseDecoder decoder = new QWeatherResponseDecoder();
+
+    @Benchmark
+    public WeatherData weatherNowTree() throws IOException {
+        String responseBody = new String(nowBody, StandardCharsets.UTF_8);
+        JsonNode rootNode = objectMapper.readTree(responseBody);
+        JsonNode nowNode = rootNode.path("now");
+        WeatherData weatherData = new WeatherData();
+        weatherData.setLocationCode("SANYA");
+        weatherData.setTemperature(new BigDecimal(nowNode.path("temp").asText()));
+        weatherData.setHumidity(new BigDecimal(nowNode.path("humidity").asText()));
+        weatherData.setWindSpeed(new BigDecimal(nowNode.path("windSpeed").asText()));
+        weatherData.setWindDirection(nowNode.path("windDir").asText());
+        weatherData.setPrecipitation(new BigDecimal(nowNode.path("precip").asText()));
+        weatherData.setWeatherCondition(nowNode.path("text").asText());
+        weatherData.setPressure(new BigDecimal(nowNode.path("pressure").asText()));
+        weatherData.setVisibility(new BigDecimal(nowNode.path("vis").asText()));
+        weatherData.setUpdateTime(LocalDateTime.parse(rootNode.path("updateTime").asText().replace("+08:00", ""),
+                DateTimeFormatter.ofPattern("yyyy-MM-dd'T'HH:mm")));
+        weatherData.setDataDate(LocalDate.now());
+        return weatherData;
+    }
+
+    @Benchmark
+    public WeatherData weatherNowStreaming() throws IOException {
+        return decoder.decodeWeatherNow(nowBody, "SANYA");
+    }
+
+    @Benchmark
+    public List<WeatherWarning> warningsTree() throws IOException {
+        List<WeatherWarning> warnings = new ArrayList<>();
+        JsonNode rootNode = objectMapper.readTree(new String(alertsBody, StandardCharsets.UTF_8));
+        DateTimeFormatter formatter = DateTimeFormatter.ofPattern("yyyy-MM-dd'T'HH:mm");
+        for (JsonNode alertNode : rootNode.path("alerts")) {
+            WeatherWarning warning = new WeatherWarning();
+            warning.setLocationCode("SANYA");
+            warning.setWarningType(alertNode.path("eventType").path("name").asText());
+            switch (alertNode.path("severity").asText().toLowerCase()) {
+                case "extreme":
+                    warning.setWarningLevel("红色");
+                    break;
+                case "severe":
+                    warning.setWarningLevel("橙色");
+                    break;
+                case "moderate":
+                    warning.setWarningLevel("黄色");
+                    break;
+                default:
+                    warning.setWarningLevel("蓝色");
+            }
+            warning.setTitle(alertNode.path("headline").asText());
+            warning.setContent(alertNode.path("description").asText()
+                    + "\n\n标准：" + alertNode.path("criteria").asText()
+                    + "\n\n防御指南：" + alertNode.path("instruction").asText());
+            warning.setIssueTime(LocalDateTime.parse(alertNode.path("issuedTime").asText().replace("+08:00", ""), formatter));
+            warning.setEffectiveTime(LocalDateTime.parse(alertNode.path("effectiveTime").asText().replace("+08:00", ""), formatter));
+            warning.setExpireTime(LocalDateTime.parse(alertNode.path("expireTime").asText().replace("+08:00", ""), formatter));
+            warning.setStatus("ACTIVE");
+            warnings.add(warning);
+        }
+        return warnings;
+    }
+
+    @Benchmark
+    public List<WeatherWarning> warningsStreaming() throws IOException {
+        return decoder.decodeWarnings(alertsBody, "SANYA");
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(QWeatherDecoderBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
@@ -0,0 +1,143 @@
+package com.hainan.weather.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.hainan.weather.WeatherApplication;
+import com.hainan.weather.dto.SyncReport;
+import com.hainan.weather.service.SyncCoordinator;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * 同步压测驱动：启动模拟和风天气服务，向压测数据库写入合成地点，再执行一次全量同步并输出报告
+ * 必须用 load.datasource-url 显式指定压测专用库（库名需包含 load，如 weather_load_test），不会使用 application.yml 中的数据源；
+ * 合成地点编码以 LOAD 开头，压测结束后删除这些地点及同步产生的观测、预报、预警、汇总和检查点
+ * 参数（系统属性）：load.datasource-url / load.datasource-username / load.datasource-password 压测数据源，
+ * load.locations 地点数（默认10000）、load.concurrency 拉取并发数（默认64），
+ * fake.latency-ms / fake.jitter-ms / fake.throttle-rate / fake.error-rate / fake.malformed-rate 故障注入
+ */
+public class SyncLoadDriver {
+
+    private static final String CODE_PREFIX = "LOAD";
+    private static final String SOURCE = "LOAD_TEST";
+
+    /**
+     * 以地点编码关联的表，按外键依赖先删子表
+     */
+    private static final List<String> LOCATION_TABLES = List.of(
+            "sync_checkpoint", "weather_data", "weather_latest", "weather_forecast", "weather_forecast_hourly",
+            "weather_rollup_hourly", "weather_rollup_daily", "weather_warnings"
+    );
+
+    public static void main(String[] args) throws Exception {
+        int locationCount = Integer.getInteger("load.locations", 10000);
+        int concurrency = Integer.getInteger("load.concurrency", 64);
+        String datasourceUrl = System.getProperty("load.datasource-url");
+        if (datasourceUrl == null || datasourceUrl.isBlank()) {
+            throw new IllegalStateException("请用 -Dload.datasource-url 指定压测专用数据库，"
+                    + "例如 jdbc:mysql://localhost:3306/weather_load_test，压测会写入大量合成数据");
+        }
+
+        FakeQWeatherServer fakeServer = new FakeQWeatherServer()
+                .latency(Long.getLong("fake.latency-ms", 50), Long.getLong("fake.jitter-ms", 50))
+                .throttle(Double.parseDouble(System.getProperty("fake.throttle-rate", "0")), 1)
+                .serverErrors(Double.parseDouble(System.getProperty("fake.error-rate", "0")))
+                .malformed(Double.parseDouble(System.getProperty("fake.malformed-rate", "0")));
+        String baseUrl = fakeServer.start(0);
+
+        Map<String, Object> properties = new LinkedHashMap<>();
+        properties.put("spring.datasource.url", datasourceUrl);
+        putIfPresent(properties, "spring.datasource.username", System.getProperty("load.datasource-username"));
+        putIfPresent(properties, "spring.datasource.password", System.getProperty("load.datasource-password"));
+        properties.put("qweather.base-url", baseUrl);
+        properties.put("qweather.api-key", "load-test");
+        properties.put("qweather.sync.concurrency", concurrency);
+        // 压测衡量的是本服务的吞吐，配额放开，由模拟服务注入的429验证限流行为
+        properties.put("qweather.rate-limit.per-minute", 10_000_000);
+        properties.put("qweather.rate-limit.per-day", 100_000_000);
+        properties.put("qweather.rate-limit.burst", concurrency * 4);
+        // 故障注入时避免熔断器打开后跳过整轮同步
+        properties.put("qweather.circuit-breaker.failure-threshold", Integer.MAX_VALUE);
+
+        SpringApplication application = new SpringApplication(WeatherApplication.class);
+        application.setWebApplicationType(WebApplicationType.NONE);
+        // 以命令行参数传入，优先级高于 application.yml，确保不会连到其中配置的数据源
+        try (ConfigurableApplicationContext context = application.run(toArgs(properties))) {
+            JdbcTemplate jdbcTemplate = context.getBean(JdbcTemplate.class);
+            String schema = jdbcTemplate.queryForObject("SELECT DATABASE()", String.class);
+            if (schema == null || !schema.toLowerCase(Locale.ROOT).contains("load")) {
+                throw new IllegalStateException("压测只能在专用库中运行（库名需包含 load），当前库: " + schema);
+            }
+            prepareLocations(jdbcTemplate, locationCount);
+            try {
+                SyncReport report = context.getBean(SyncCoordinator.class).triggerAndWait(SOURCE, true);
+                ObjectMapper objectMapper = new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT);
+                System.out.println(objectMapper.writeValueAsString(report.getStages()));
+                System.out.printf("地点 %d 个，耗时 %d ms，吞吐 %.1f 地点/秒，失败 %d 个%n",
+                        report.getProcessedLocations().get(), report.getDurationMs(),
+                        report.getProcessedLocations().get() * 1000.0 / Math.max(1, report.getDurationMs()),
+                        report.getFailures().size());
+                System.out.println("模拟服务: " + fakeServer.getStats());
+            } finally {
+                cleanUp(jdbcTemplate);
+            }
+        } finally {
+            fakeServer.stop();
+        }
+    }
+
+    /**
+     * 删除合成地点及同步写入的数据；先禁用地点，避免定时同步在删除过程中继续写入
+     */
+    private static void cleanUp(JdbcTemplate jdbcTemplate) {
+        String pattern = CODE_PREFIX + "%";
+        jdbcTemplate.update("UPDATE locations SET status = 0 WHERE location_code LIKE ?", pattern);
+        for (String table : LOCATION_TABLES) {
+            int deleted = jdbcTemplate.update("DELETE FROM " + table + " WHERE location_code LIKE ?", pattern);
+            System.out.printf("清理 %s: %d 行%n", table, deleted);
+        }
+        jdbcTemplate.update("DELETE FROM sync_run WHERE source = ?", SOURCE);
+        jdbcTemplate.update("DELETE FROM locations WHERE location_code LIKE ?", pattern);
+    }
+
+    private static void putIfPresent(Map<String, Object> properties, String key, String value) {
+        if (value != null) {
+            properties.put(key, value);
+        }
+    }
+
+    private static String[] toArgs(Map<String, Object> properties) {
+        List<String> args = new ArrayList<>(properties.size());
+        for (Map.Entry<String, Object> entry : properties.entrySet()) {
+            args.add("--" + entry.getKey() + "=" + entry.getValue());
+        }
+        return args.toArray(new String[0]);
+    }
+
+    /**
+     * 在海南岛范围内随机生成合成地点，已存在的编码只重新启用
+     */
+    private static void prepareLocations(JdbcTemplate jdbcTemplate, int count) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        List<Object[]> rows = new ArrayList<>(count);
+        for (int i = 1; i <= count; i++) {
+            BigDecimal latitude = BigDecimal.valueOf(18.15 + random.nextDouble() * 1.95).setScale(6, RoundingMode.HALF_UP);
+            BigDecimal longitude = BigDecimal.valueOf(108.6 + random.nextDouble() * 2.45).setScale(6, RoundingMode.HALF_UP);
+            rows.add(new Object[]{"压测", "合成地点" + i, String.format("%s%05d", CODE_PREFIX, i),
+                    latitude, longitude, 101310201});
+        }
+        jdbcTemplate.batchUpdate("INSERT INTO locations(city_name, district_name, location_code, latitude, longitude, "
+                + "location_id, status) VALUES(?, ?, ?, ?, ?, ?, 1) ON DUPLICATE KEY UPDATE status = 1", rows);
+    }
+}
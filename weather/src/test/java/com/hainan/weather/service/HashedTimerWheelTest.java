@@ -0,0 +1,79 @@
+package com.hainan.weather.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class HashedTimerWheelTest {
+
+    private static final long TICK = 1000;
+    private static final int SIZE = 16;
+    private static final long START = 1_000_000;
+
+    @Test
+    void expiresAtDeadlineTick() {
+        HashedTimerWheel<Long> wheel = new HashedTimerWheel<>(TICK, SIZE, START);
+        wheel.schedule(1L, START + 3000);
+
+        assertTrue(wheel.advance(START + 2999).isEmpty());
+        assertEquals(List.of(1L), wheel.advance(START + 3000));
+        assertEquals(0, wheel.size());
+    }
+
+    @Test
+    void deadlineBetweenTicksDoesNotWaitAFullRevolution() {
+        HashedTimerWheel<Long> wheel = new HashedTimerWheel<>(TICK, SIZE, START);
+        wheel.schedule(1L, START + 2500);
+
+        assertTrue(wheel.advance(START + 2000).isEmpty());
+        assertEquals(List.of(1L), wheel.advance(START + 3000));
+    }
+
+    @Test
+    void keepsEntriesForLaterRevolutions() {
+        HashedTimerWheel<Long> wheel = new HashedTimerWheel<>(TICK, SIZE, START);
+        long deadline = START + (SIZE + 2) * TICK;
+        wheel.schedule(1L, deadline);
+
+        for (long now = START + TICK; now < deadline; now += TICK) {
+            assertTrue(wheel.advance(now).isEmpty(), "expired early at " + now);
+        }
+        assertEquals(List.of(1L), wheel.advance(deadline));
+    }
+
+    @Test
+    void overdueEntriesExpireOnNextTick() {
+        HashedTimerWheel<Long> wheel = new HashedTimerWheel<>(TICK, SIZE, START);
+        wheel.schedule(1L, START - 60_000);
+
+        assertEquals(List.of(1L), wheel.advance(START + TICK));
+    }
+
+    @Test
+    void catchesUpAfterFallingBehindMoreThanOneRevolution() {
+        HashedTimerWheel<Long> wheel = new HashedTimerWheel<>(TICK, SIZE, START);
+        for (long i = 1; i <= SIZE; i++) {
+            wheel.schedule(i, START + i * TICK + 300);
+        }
+
+        List<Long> expired = wheel.advance(START + 10 * SIZE * TICK);
+
+        assertEquals(SIZE, expired.size());
+        assertEquals(0, wheel.size());
+    }
+
+    @Test
+    void rescheduleAndCancelReplacePreviousEntry() {
+        HashedTimerWheel<Long> wheel = new HashedTimerWheel<>(TICK, SIZE, START);
+        wheel.schedule(1L, START + 2000);
+        wheel.schedule(1L, START + 5000);
+        wheel.schedule(2L, START + 2000);
+        wheel.cancel(2L);
+
+        assertTrue(wheel.advance(START + 4000).isEmpty());
+        assertEquals(List.of(1L), wheel.advance(START + 5000));
+    }
+}
@@ -0,0 +1,115 @@
+package com.hainan.weather.service;
+
+import com.hainan.weather.entity.WeatherData;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.GZIPOutputStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ObservationArchiveCodecTest {
+
+    private static final String LOCATION = "101310201";
+
+    @Test
+    void roundTripsAllColumns() throws IOException {
+        List<WeatherData> rows = new ArrayList<>();
+        LocalDateTime time = LocalDateTime.of(2025, 11, 30, 23, 40, 15);
+        String[] directions = {"东南风", "东风", "东南风", "北风"};
+        String[] conditions = {"多云", "多云", "阵雨", "多云"};
+        for (int i = 0; i < directions.length; i++) {
+            rows.add(row(1000L + i * 3, time.plusMinutes(i * 10L), directions[i], conditions[i]));
+        }
+
+        List<WeatherData> decoded = roundTrip(rows);
+
+        assertEquals(rows, decoded);
+        // 跨零点的观测保留各自的数据日期
+        assertEquals(LocalDate.of(2025, 11, 30), decoded.get(0).getDataDate());
+        assertEquals(LocalDate.of(2025, 12, 1), decoded.get(3).getDataDate());
+    }
+
+    @Test
+    void preservesNullValues() throws IOException {
+        WeatherData first = row(1L, LocalDateTime.of(2025, 12, 1, 8, 0), null, "晴");
+        first.setHumidity(null);
+        first.setVisibility(null);
+        WeatherData second = row(2L, LocalDateTime.of(2025, 12, 1, 8, 10), "西风", null);
+        second.setTemperature(null);
+        second.setPrecipitation(null);
+
+        List<WeatherData> decoded = roundTrip(List.of(first, second));
+
+        assertEquals(List.of(first, second), decoded);
+        assertNull(decoded.get(0).getWindDirection());
+        assertNull(decoded.get(1).getWeatherCondition());
+        assertNull(decoded.get(1).getTemperature());
+    }
+
+    @Test
+    void roundsDecimalsToTwoPlaces() throws IOException {
+        WeatherData row = row(1L, LocalDateTime.of(2025, 12, 1, 8, 0), "东风", "晴");
+        row.setTemperature(new BigDecimal("-3.456"));
+        row.setPressure(new BigDecimal("1006"));
+        row.setDataDate(null);
+
+        WeatherData decoded = roundTrip(List.of(row)).get(0);
+
+        assertEquals(0, new BigDecimal("-3.46").compareTo(decoded.getTemperature()));
+        assertEquals(0, new BigDecimal("1006").compareTo(decoded.getPressure()));
+        assertEquals(LocalDate.of(2025, 12, 1), decoded.getDataDate());
+    }
+
+    @Test
+    void roundTripsEmptyMonth() throws IOException {
+        assertTrue(roundTrip(List.of()).isEmpty());
+    }
+
+    @Test
+    void rejectsForeignFile() throws IOException {
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+        try (GZIPOutputStream out = new GZIPOutputStream(buffer)) {
+            out.write(new byte[]{1, 2, 3, 4, 0, 0, 0, 0});
+        }
+
+        assertThrows(IOException.class,
+                () -> ObservationArchiveCodec.read(new ByteArrayInputStream(buffer.toByteArray()), LOCATION));
+    }
+
+    private static List<WeatherData> roundTrip(List<WeatherData> rows) throws IOException {
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+        ObservationArchiveCodec.write(rows, buffer);
+        return ObservationArchiveCodec.read(new ByteArrayInputStream(buffer.toByteArray()), LOCATION);
+    }
+
+    /**
+     * 数值统一取两位小数，与解码结果的标度一致，便于整行比较
+     */
+    private static WeatherData row(Long id, LocalDateTime updateTime, String windDirection, String condition) {
+        WeatherData row = new WeatherData();
+        row.setId(id);
+        row.setLocationCode(LOCATION);
+        row.setTemperature(new BigDecimal("28.50"));
+        row.setHumidity(new BigDecimal("78.00"));
+        row.setWindSpeed(new BigDecimal("15.00"));
+        row.setWindDirection(windDirection);
+        row.setPrecipitation(new BigDecimal("0.20"));
+        row.setWeatherCondition(condition);
+        row.setPressure(new BigDecimal("1006.00"));
+        row.setVisibility(new BigDecimal("20.00"));
+        row.setUpdateTime(updateTime);
+        row.setDataDate(updateTime.toLocalDate());
+        return row;
+    }
+}
@@ -0,0 +1,83 @@
+package com.hainan.weather.service;
+
+import com.fasterxml.jackson.core.JsonParseException;
+import com.hainan.weather.entity.Location;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpMethod;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.client.RequestCallback;
+import org.springframework.web.client.ResourceAccessException;
+import org.springframework.web.client.ResponseExtractor;
+import org.springframework.web.client.RestTemplate;
+
+import java.net.SocketTimeoutException;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class QWeatherApiServiceTest {
+
+    private final RestTemplate restTemplate = mock(RestTemplate.class);
+    private final QWeatherCircuitBreaker circuitBreaker = new QWeatherCircuitBreaker();
+    private final QWeatherApiService apiService = new QWeatherApiService();
+    private final Location location = new Location();
+
+    @BeforeEach
+    void setUp() {
+        // 一次失败即打开熔断，便于判断是否计入失败
+        ReflectionTestUtils.setField(circuitBreaker, "failureThreshold", 1);
+        ReflectionTestUtils.setField(circuitBreaker, "openDurationMs", 60000L);
+
+        QWeatherRateLimiter rateLimiter = new QWeatherRateLimiter();
+        ReflectionTestUtils.setField(rateLimiter, "perMinute", 600);
+        ReflectionTestUtils.setField(rateLimiter, "perDay", 1000L);
+        ReflectionTestUtils.setField(rateLimiter, "burst", 10);
+
+        ReflectionTestUtils.setField(apiService, "apiBaseUrl", "http://localhost");
+        ReflectionTestUtils.setField(apiService, "restTemplate", restTemplate);
+        ReflectionTestUtils.setField(apiService, "rateLimiter", rateLimiter);
+        ReflectionTestUtils.setField(apiService, "circuitBreaker", circuitBreaker);
+
+        location.setLocationCode("SANYA");
+        location.setLocationId("101310201");
+    }
+
+    @Test
+    void transportFailureOpensBreaker() {
+        stubExecute(new ResourceAccessException("Read timed out", new SocketTimeoutException("Read timed out")));
+
+        assertThrows(ResourceAccessException.class, () -> apiService.fetchWeatherNowRaw(location));
+
+        assertEquals(QWeatherCircuitBreaker.State.OPEN, circuitBreaker.getState());
+    }
+
+    @Test
+    void malformedResponseDoesNotCountAsFailure() {
+        stubExecute(new ResourceAccessException("I/O error", new JsonParseException(null, "Unexpected end-of-input")));
+
+        assertThrows(ResourceAccessException.class, () -> apiService.fetchWeatherNowRaw(location));
+
+        assertEquals(QWeatherCircuitBreaker.State.CLOSED, circuitBreaker.getState());
+    }
+
+    @Test
+    void decodeRuntimeErrorDoesNotCountAsFailure() {
+        stubExecute(new NumberFormatException("Character N is neither a decimal digit number"));
+
+        assertThrows(NumberFormatException.class, () -> apiService.fetchWeatherNowRaw(location));
+
+        assertEquals(QWeatherCircuitBreaker.State.CLOSED, circuitBreaker.getState());
+    }
+
+    @SuppressWarnings("unchecked")
+    private void stubExecute(RuntimeException failure) {
+        when(restTemplate.execute(anyString(), eq(HttpMethod.GET), any(RequestCallback.class), any(ResponseExtractor.class)))
+                .thenThrow(failure);
+    }
+}
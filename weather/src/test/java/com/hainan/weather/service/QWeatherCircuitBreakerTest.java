@@ -0,0 +1,101 @@
+package com.hainan.weather.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class QWeatherCircuitBreakerTest {
+
+    private static final long OPEN_DURATION_MS = 50;
+
+    private final QWeatherCircuitBreaker breaker = new QWeatherCircuitBreaker();
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(breaker, "failureThreshold", 3);
+        ReflectionTestUtils.setField(breaker, "openDurationMs", OPEN_DURATION_MS);
+    }
+
+    @Test
+    void opensAfterConsecutiveFailures() {
+        breaker.onFailure("timeout");
+        breaker.onFailure("timeout");
+        assertEquals(QWeatherCircuitBreaker.State.CLOSED, breaker.getState());
+        assertTrue(breaker.allowRequest());
+
+        breaker.onFailure("timeout");
+
+        assertEquals(QWeatherCircuitBreaker.State.OPEN, breaker.getState());
+        assertTrue(breaker.isOpen());
+        assertFalse(breaker.allowRequest());
+        assertEquals(1L, breaker.getStatus().get("openCount"));
+    }
+
+    @Test
+    void successResetsFailureCount() {
+        breaker.onFailure("timeout");
+        breaker.onFailure("timeout");
+        breaker.onSuccess();
+        breaker.onFailure("timeout");
+        breaker.onFailure("timeout");
+
+        assertEquals(QWeatherCircuitBreaker.State.CLOSED, breaker.getState());
+    }
+
+    @Test
+    void halfOpenAllowsSingleProbeAndClosesOnSuccess() throws InterruptedException {
+        open();
+        Thread.sleep(OPEN_DURATION_MS + 30);
+
+        assertFalse(breaker.isOpen());
+        assertTrue(breaker.allowRequest());
+        assertEquals(QWeatherCircuitBreaker.State.HALF_OPEN, breaker.getState());
+        assertFalse(breaker.allowRequest());
+
+        breaker.onSuccess();
+
+        assertEquals(QWeatherCircuitBreaker.State.CLOSED, breaker.getState());
+        assertTrue(breaker.allowRequest());
+        assertTrue(breaker.allowRequest());
+    }
+
+    @Test
+    void failedProbeReopens() throws InterruptedException {
+        open();
+        Thread.sleep(OPEN_DURATION_MS + 30);
+        assertTrue(breaker.allowRequest());
+
+        breaker.onFailure("HTTP 503");
+
+        assertEquals(QWeatherCircuitBreaker.State.OPEN, breaker.getState());
+        assertFalse(breaker.allowRequest());
+        assertEquals(2L, breaker.getStatus().get("openCount"));
+        assertEquals("HTTP 503", breaker.getStatus().get("lastFailure"));
+    }
+
+    @Test
+    void cancelledProbeFreesSlot() throws InterruptedException {
+        open();
+        Thread.sleep(OPEN_DURATION_MS + 30);
+        assertTrue(breaker.allowRequest());
+        assertFalse(breaker.allowRequest());
+
+        // 探测请求因配额用尽未发出
+        breaker.cancelRequest();
+
+        assertEquals(QWeatherCircuitBreaker.State.HALF_OPEN, breaker.getState());
+        assertTrue(breaker.allowRequest());
+        assertFalse(breaker.allowRequest());
+    }
+
+    private void open() {
+        for (int i = 0; i < 3; i++) {
+            breaker.onFailure("timeout");
+        }
+        assertEquals(QWeatherCircuitBreaker.State.OPEN, breaker.getState());
+    }
+}
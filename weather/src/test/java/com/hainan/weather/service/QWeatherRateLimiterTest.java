@@ -0,0 +1,114 @@
+package com.hainan.weather.service;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class QWeatherRateLimiterTest {
+
+    private static QWeatherRateLimiter limiter(int perMinute, long perDay, int burst, long cooldownMs) {
+        QWeatherRateLimiter limiter = new QWeatherRateLimiter();
+        ReflectionTestUtils.setField(limiter, "perMinute", perMinute);
+        ReflectionTestUtils.setField(limiter, "perDay", perDay);
+        ReflectionTestUtils.setField(limiter, "burst", burst);
+        ReflectionTestUtils.setField(limiter, "cooldownMs", cooldownMs);
+        return limiter;
+    }
+
+    @Test
+    void burstIsServedImmediatelyThenWaitsForRefill() throws InterruptedException {
+        // 每秒10个令牌，桶容量2
+        QWeatherRateLimiter limiter = limiter(600, 1000, 2, 5000);
+
+        long start = System.nanoTime();
+        assertTrue(limiter.acquire());
+        assertTrue(limiter.acquire());
+        long burstMs = (System.nanoTime() - start) / 1_000_000;
+        assertTrue(burstMs < 50, "burst took " + burstMs + " ms");
+
+        start = System.nanoTime();
+        assertTrue(limiter.acquire());
+        long waitedMs = (System.nanoTime() - start) / 1_000_000;
+        assertTrue(waitedMs >= 50, "third permit waited only " + waitedMs + " ms");
+        assertEquals(3L, limiter.getAcquiredCount());
+    }
+
+    @Test
+    void dailyQuotaRejectsWithoutBlocking() throws InterruptedException {
+        QWeatherRateLimiter limiter = limiter(600, 2, 10, 5000);
+
+        assertTrue(limiter.acquire());
+        assertTrue(limiter.acquire());
+        assertFalse(limiter.acquire());
+
+        Map<String, Object> status = limiter.getStatus();
+        assertEquals(0L, limiter.getDailyRemaining());
+        assertEquals(2L, status.get("dailyUsed"));
+        assertEquals(1L, status.get("rejectedCount"));
+    }
+
+    @Test
+    void throttleHalvesRateAndPausesForCooldown() throws InterruptedException {
+        QWeatherRateLimiter limiter = limiter(300, 1000, 10, 200);
+        assertTrue(limiter.acquire());
+
+        limiter.onThrottled(null);
+
+        Map<String, Object> status = limiter.getStatus();
+        assertEquals(150L, status.get("currentRatePerMinute"));
+        assertEquals(0, status.get("availableTokens"));
+        assertTrue((Long) status.get("pausedMs") > 0);
+        assertEquals(1L, status.get("throttledCount"));
+
+        long start = System.nanoTime();
+        assertTrue(limiter.acquire());
+        long waitedMs = (System.nanoTime() - start) / 1_000_000;
+        assertTrue(waitedMs >= 150, "acquired after only " + waitedMs + " ms of a 200 ms pause");
+    }
+
+    @Test
+    void throttlePrefersRetryAfter() {
+        QWeatherRateLimiter limiter = limiter(300, 1000, 10, 200);
+
+        limiter.onThrottled(2L);
+
+        assertTrue((Long) limiter.getStatus().get("pausedMs") > 1000);
+    }
+
+    @Test
+    void serverErrorsHalveRateDownToFloorWithoutPausing() {
+        QWeatherRateLimiter limiter = limiter(300, 1000, 10, 5000);
+
+        limiter.onServerError();
+        assertEquals(150L, limiter.getStatus().get("currentRatePerMinute"));
+
+        for (int i = 0; i < 10; i++) {
+            limiter.onServerError();
+        }
+        Map<String, Object> status = limiter.getStatus();
+        assertEquals(30L, status.get("currentRatePerMinute"));
+        assertEquals(0L, status.get("pausedMs"));
+        assertEquals(11L, status.get("serverErrorCount"));
+    }
+
+    @Test
+    void successRecoversRateAdditively() {
+        QWeatherRateLimiter limiter = limiter(300, 1000, 10, 5000);
+        limiter.onServerError();
+
+        for (int i = 0; i < 5; i++) {
+            limiter.onSuccess();
+        }
+        assertEquals(180L, limiter.getStatus().get("currentRatePerMinute"));
+
+        for (int i = 0; i < 100; i++) {
+            limiter.onSuccess();
+        }
+        assertEquals(300L, limiter.getStatus().get("currentRatePerMinute"));
+    }
+}
@@ -0,0 +1,243 @@
+package com.hainan.weather.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.hainan.weather.entity.WeatherData;
+import com.hainan.weather.entity.WeatherForecast;
+import com.hainan.weather.entity.WeatherForecastHourly;
+import com.hainan.weather.entity.WeatherWarning;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+/**
+ * 流式解码与基于 readTree 的原实现在录制的和风天气响应上逐字段比对
+ */
+class QWeatherResponseDecoderTest {
+
+    private static final String LOCATION = "101310201";
+    private static final LocalDateTime NOW = LocalDateTime.of(2025, 12, 7, 10, 5);
+    private static final DateTimeFormatter TIME_FORMATTER = DateTimeFormatter.ofPattern("yyyy-MM-dd'T'HH:mm'+08:00'");
+    private static final DateTimeFormatter TREE_TIME_FORMATTER = DateTimeFormatter.ofPattern("yyyy-MM-dd'T'HH:mm");
+    private static final Pattern PLACEHOLDER = Pattern.compile("\\{\\{(now|date|hour)(?:\\+(\\d+))?}}");
+
+    private final QWeatherResponseDecoder decoder = new QWeatherResponseDecoder();
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Test
+    void weatherNowMatchesTreeDecoding() throws IOException {
+        byte[] body = fixture("now");
+
+        WeatherData streamed = decoder.decodeWeatherNow(body, LOCATION);
+
+        assertEquals(weatherNowTree(body), streamed);
+        assertEquals(NOW.toLocalDate(), streamed.getDataDate());
+        assertEquals(streamed, decoder.decodeWeatherNow(new ByteArrayInputStream(body), LOCATION));
+    }
+
+    @Test
+    void warningsMatchTreeDecoding() throws IOException {
+        byte[] body = fixture("alerts");
+
+        List<WeatherWarning> streamed = decoder.decodeWarnings(body, LOCATION);
+
+        assertFalse(streamed.isEmpty());
+        assertEquals(warningsTree(body), streamed);
+        assertEquals("蓝色", streamed.get(0).getWarningLevel());
+    }
+
+    @Test
+    void dailyForecastMatchesTreeDecoding() throws IOException {
+        byte[] body = fixture("daily");
+
+        List<WeatherForecast> streamed = decoder.decodeDailyForecast(body, LOCATION);
+
+        assertFalse(streamed.isEmpty());
+        assertEquals(dailyTree(body), streamed);
+        assertEquals(NOW.toLocalDate(), streamed.get(0).getForecastDate());
+    }
+
+    @Test
+    void hourlyForecastMatchesTreeDecoding() throws IOException {
+        byte[] body = fixture("hourly");
+
+        List<WeatherForecastHourly> streamed = decoder.decodeHourlyForecast(body, LOCATION);
+
+        assertEquals(24, streamed.size());
+        assertEquals(hourlyTree(body), streamed);
+        assertEquals(NOW.truncatedTo(ChronoUnit.HOURS).plusHours(1), streamed.get(0).getForecastTime());
+    }
+
+    @Test
+    void errorCodeReturnsNull() throws IOException {
+        byte[] body = "{\"code\":\"402\",\"message\":\"quota exceeded\"}".getBytes(StandardCharsets.UTF_8);
+
+        assertNull(decoder.decodeWeatherNow(body, LOCATION));
+        assertNull(decoder.decodeDailyForecast(body, LOCATION));
+        assertNull(decoder.decodeHourlyForecast(body, LOCATION));
+    }
+
+    @Test
+    void missingAlertFieldsFallBackToDefaults() throws IOException {
+        String alert = "{\"alerts\":[{\"eventType\":{\"name\":\"暴雨\"},\"severity\":\"Severe\","
+                + "\"headline\":\"暴雨橙色预警\",\"issuedTime\":\"2025-12-07T08:30+08:00\"}]}";
+
+        List<WeatherWarning> warnings = decoder.decodeWarnings(alert.getBytes(StandardCharsets.UTF_8), LOCATION);
+
+        assertEquals(1, warnings.size());
+        WeatherWarning warning = warnings.get(0);
+        assertEquals("橙色", warning.getWarningLevel());
+        assertEquals(LocalDateTime.of(2025, 12, 7, 8, 30), warning.getEffectiveTime());
+        assertEquals(LocalDateTime.of(2025, 12, 8, 8, 30), warning.getExpireTime());
+        assertEquals("ACTIVE", warning.getStatus());
+    }
+
+    @Test
+    void parsesNumericValuesAndSecondsPrecisionTimes() throws IOException {
+        String now = "{\"code\":\"200\",\"updateTime\":\"2025-12-07T10:05:30+08:00\","
+                + "\"now\":{\"temp\":28.5,\"humidity\":\"\",\"windDir\":\"东风\",\"extra\":{\"a\":[1,2]}}}";
+
+        WeatherData data = decoder.decodeWeatherNow(now.getBytes(StandardCharsets.UTF_8), LOCATION);
+
+        assertEquals(new BigDecimal("28.5"), data.getTemperature());
+        assertNull(data.getHumidity());
+        assertEquals("东风", data.getWindDirection());
+        assertEquals(LocalDateTime.of(2025, 12, 7, 10, 5, 30), data.getUpdateTime());
+        assertNull(QWeatherResponseDecoder.parseDate("2025-13-01"));
+    }
+
+    private WeatherData weatherNowTree(byte[] body) throws IOException {
+        JsonNode rootNode = objectMapper.readTree(body);
+        JsonNode nowNode = rootNode.path("now");
+        WeatherData weatherData = new WeatherData();
+        weatherData.setLocationCode(LOCATION);
+        weatherData.setTemperature(new BigDecimal(nowNode.path("temp").asText()));
+        weatherData.setHumidity(new BigDecimal(nowNode.path("humidity").asText()));
+        weatherData.setWindSpeed(new BigDecimal(nowNode.path("windSpeed").asText()));
+        weatherData.setWindDirection(nowNode.path("windDir").asText());
+        weatherData.setPrecipitation(new BigDecimal(nowNode.path("precip").asText()));
+        weatherData.setWeatherCondition(nowNode.path("text").asText());
+        weatherData.setPressure(new BigDecimal(nowNode.path("pressure").asText()));
+        weatherData.setVisibility(new BigDecimal(nowNode.path("vis").asText()));
+        weatherData.setUpdateTime(treeTime(rootNode.path("updateTime")));
+        weatherData.setDataDate(weatherData.getUpdateTime().toLocalDate());
+        return weatherData;
+    }
+
+    private List<WeatherWarning> warningsTree(byte[] body) throws IOException {
+        List<WeatherWarning> warnings = new ArrayList<>();
+        for (JsonNode alertNode : objectMapper.readTree(body).path("alerts")) {
+            WeatherWarning warning = new WeatherWarning();
+            warning.setLocationCode(LOCATION);
+            warning.setWarningType(alertNode.path("eventType").path("name").asText());
+            switch (alertNode.path("severity").asText().toLowerCase()) {
+                case "extreme":
+                    warning.setWarningLevel("红色");
+                    break;
+                case "severe":
+                    warning.setWarningLevel("橙色");
+                    break;
+                case "moderate":
+                    warning.setWarningLevel("黄色");
+                    break;
+                default:
+                    warning.setWarningLevel("蓝色");
+            }
+            warning.setTitle(alertNode.path("headline").asText());
+            warning.setContent(alertNode.path("description").asText()
+                    + "\n\n标准：" + alertNode.path("criteria").asText()
+                    + "\n\n防御指南：" + alertNode.path("instruction").asText());
+            warning.setIssueTime(treeTime(alertNode.path("issuedTime")));
+            warning.setEffectiveTime(treeTime(alertNode.path("effectiveTime")));
+            warning.setExpireTime(treeTime(alertNode.path("expireTime")));
+            warning.setStatus("ACTIVE");
+            warnings.add(warning);
+        }
+        return warnings;
+    }
+
+    private List<WeatherForecast> dailyTree(byte[] body) throws IOException {
+        List<WeatherForecast> forecasts = new ArrayList<>();
+        for (JsonNode dayNode : objectMapper.readTree(body).path("daily")) {
+            WeatherForecast forecast = new WeatherForecast();
+            forecast.setLocationCode(LOCATION);
+            forecast.setForecastDate(LocalDate.parse(dayNode.path("fxDate").asText()));
+            forecast.setHighTemp(new BigDecimal(dayNode.path("tempMax").asText()));
+            forecast.setLowTemp(new BigDecimal(dayNode.path("tempMin").asText()));
+            forecast.setDayCondition(dayNode.path("textDay").asText());
+            forecast.setNightCondition(dayNode.path("textNight").asText());
+            forecast.setWindSpeed(new BigDecimal(dayNode.path("windSpeedDay").asText()));
+            forecast.setHumidity(new BigDecimal(dayNode.path("humidity").asText()));
+            forecasts.add(forecast);
+        }
+        return forecasts;
+    }
+
+    private List<WeatherForecastHourly> hourlyTree(byte[] body) throws IOException {
+        List<WeatherForecastHourly> forecasts = new ArrayList<>();
+        for (JsonNode hourNode : objectMapper.readTree(body).path("hourly")) {
+            WeatherForecastHourly forecast = new WeatherForecastHourly();
+            forecast.setLocationCode(LOCATION);
+            forecast.setForecastTime(treeTime(hourNode.path("fxTime")));
+            forecast.setTemperature(new BigDecimal(hourNode.path("temp").asText()));
+            forecast.setWeatherCondition(hourNode.path("text").asText());
+            forecast.setWindDirection(hourNode.path("windDir").asText());
+            forecast.setWindSpeed(new BigDecimal(hourNode.path("windSpeed").asText()));
+            forecast.setHumidity(new BigDecimal(hourNode.path("humidity").asText()));
+            forecast.setPrecipitation(new BigDecimal(hourNode.path("precip").asText()));
+            forecast.setPrecipitationProb(new BigDecimal(hourNode.path("pop").asText()));
+            forecast.setPressure(new BigDecimal(hourNode.path("pressure").asText()));
+            forecasts.add(forecast);
+        }
+        return forecasts;
+    }
+
+    private static LocalDateTime treeTime(JsonNode node) {
+        return LocalDateTime.parse(node.asText().replace("+08:00", ""), TREE_TIME_FORMATTER);
+    }
+
+    /**
+     * 读取录制文件并按固定时间填充占位符，规则与 FakeQWeatherServer 一致
+     */
+    private byte[] fixture(String name) throws IOException {
+        String template;
+        try (InputStream in = getClass().getResourceAsStream("/qweather/" + name + ".json")) {
+            template = new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        }
+        Matcher matcher = PLACEHOLDER.matcher(template);
+        StringBuilder rendered = new StringBuilder(template.length());
+        while (matcher.find()) {
+            long offset = matcher.group(2) != null ? Long.parseLong(matcher.group(2)) : 0;
+            String value;
+            switch (matcher.group(1)) {
+                case "date":
+                    value = NOW.toLocalDate().plusDays(offset).toString();
+                    break;
+                case "hour":
+                    value = NOW.truncatedTo(ChronoUnit.HOURS).plusHours(offset).format(TIME_FORMATTER);
+                    break;
+                default:
+                    value = NOW.format(TIME_FORMATTER);
+            }
+            matcher.appendReplacement(rendered, value);
+        }
+        matcher.appendTail(rendered);
+        return rendered.toString().getBytes(StandardCharsets.UTF_8);
+    }
+}
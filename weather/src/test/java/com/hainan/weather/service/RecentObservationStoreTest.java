@@ -0,0 +1,146 @@
+package com.hainan.weather.service;
+
+import com.hainan.weather.dto.RecentSeries;
+import com.hainan.weather.entity.Location;
+import com.hainan.weather.entity.WeatherData;
+import com.hainan.weather.mapper.LocationMapper;
+import com.hainan.weather.mapper.WeatherDataMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class RecentObservationStoreTest {
+
+    private static final String CODE = "SANYA";
+
+    private final WeatherDataMapper weatherDataMapper = mock(WeatherDataMapper.class);
+    private final LocationMapper locationMapper = mock(LocationMapper.class);
+    private final LocalDateTime now = LocalDateTime.now().truncatedTo(ChronoUnit.MINUTES);
+
+    @BeforeEach
+    void setUp() {
+        Location location = new Location();
+        location.setLocationCode(CODE);
+        when(locationMapper.findAll()).thenReturn(List.of(location));
+        when(weatherDataMapper.findByLocationBetween(anyString(), any(), any())).thenReturn(List.of());
+    }
+
+    @Test
+    void growsAndKeepsTimeOrder() {
+        RecentObservationStore store = store(2, 1);
+        List<WeatherData> rows = new ArrayList<>();
+        for (int i = 49; i >= 0; i--) {
+            rows.add(observation(now.minusMinutes(i), 49 - i));
+        }
+        store.record(rows);
+
+        RecentSeries series = store.getWindow(CODE, 2);
+
+        assertEquals(50, series.getSize());
+        for (int i = 0; i < 50; i++) {
+            assertEquals(i, series.getTemperature()[i]);
+            assertEquals(i * 60, series.getOffsetSeconds()[i]);
+        }
+    }
+
+    @Test
+    void wrapsAroundAtCapacity() {
+        // 1小时、5分钟间隔，最多保存13条
+        RecentObservationStore store = store(1, 5);
+        for (int i = 19; i >= 0; i--) {
+            store.record(List.of(observation(now.minusMinutes(i), 19 - i)));
+        }
+
+        RecentSeries series = store.getWindow(CODE, 1);
+
+        assertEquals(13, series.getSize());
+        assertEquals(7, series.getTemperature()[0]);
+        assertEquals(19, series.getTemperature()[12]);
+    }
+
+    @Test
+    void ignoresOlderAndReplacesSameTimestamp() {
+        RecentObservationStore store = store(1, 5);
+        store.record(List.of(observation(now.minusMinutes(10), 1), observation(now, 2)));
+        store.record(List.of(observation(now.minusMinutes(5), 3), observation(now, 4)));
+
+        RecentSeries series = store.getWindow(CODE, 1);
+
+        assertEquals(2, series.getSize());
+        assertEquals(1, series.getTemperature()[0]);
+        assertEquals(4, series.getTemperature()[1]);
+    }
+
+    @Test
+    void backfillMergesDatabaseRowsBeforeRecordedOnes() {
+        when(weatherDataMapper.findByLocationBetween(eq(CODE), any(), any())).thenReturn(
+                List.of(observation(now.minusMinutes(30), 1), observation(now.minusMinutes(20), 2)));
+        RecentObservationStore store = store(1, 5);
+        store.record(List.of(observation(now.minusMinutes(10), 3)));
+
+        RecentSeries series = store.getWindow(CODE, 1);
+
+        assertEquals(3, series.getSize());
+        assertEquals(1, series.getTemperature()[0]);
+        assertEquals(2, series.getTemperature()[1]);
+        assertEquals(3, series.getTemperature()[2]);
+        assertTrue(Float.isNaN(series.getHumidity()[0]));
+    }
+
+    @Test
+    void quietLocationQueriesDatabaseOnce() {
+        RecentObservationStore store = store(1, 5);
+
+        assertEquals(0, store.getWindow(CODE, 1).getSize());
+        assertEquals(0, store.getWindow(CODE, 1).getSize());
+
+        verify(weatherDataMapper, times(1)).findByLocationBetween(eq(CODE), any(), any());
+    }
+
+    @Test
+    void unknownLocationNeverQueriesObservations() {
+        RecentObservationStore store = store(1, 5);
+
+        assertEquals(0, store.getWindow("NOWHERE", 1).getSize());
+        assertEquals(0, store.getWindow("ELSEWHERE", 1).getSize());
+
+        verify(weatherDataMapper, never()).findByLocationBetween(anyString(), any(), any());
+        verify(locationMapper, times(1)).findAll();
+        assertEquals(0, store.getLocationCount());
+    }
+
+    private RecentObservationStore store(int hours, int sampleIntervalMinutes) {
+        RecentObservationStore store = new RecentObservationStore();
+        ReflectionTestUtils.setField(store, "weatherDataMapper", weatherDataMapper);
+        ReflectionTestUtils.setField(store, "locationMapper", locationMapper);
+        ReflectionTestUtils.setField(store, "hours", hours);
+        ReflectionTestUtils.setField(store, "sampleIntervalMinutes", sampleIntervalMinutes);
+        return store;
+    }
+
+    private static WeatherData observation(LocalDateTime time, int temperature) {
+        WeatherData weatherData = new WeatherData();
+        weatherData.setLocationCode(CODE);
+        weatherData.setUpdateTime(time);
+        weatherData.setTemperature(BigDecimal.valueOf(temperature));
+        weatherData.setWeatherCondition("晴");
+        return weatherData;
+    }
+}
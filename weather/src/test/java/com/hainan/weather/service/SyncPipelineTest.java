@@ -0,0 +1,187 @@
+package com.hainan.weather.service;
+
+import com.hainan.weather.dto.SyncReport;
+import com.hainan.weather.entity.Location;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.InputStream;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTimeoutPreemptively;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyMap;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class SyncPipelineTest {
+
+    private final QWeatherApiService apiService = mock(QWeatherApiService.class);
+    private final LocationRefreshScheduler refreshScheduler = mock(LocationRefreshScheduler.class);
+    private final SyncRunService syncRunService = mock(SyncRunService.class);
+    private final QWeatherResponseDecoder decoder = new QWeatherResponseDecoder();
+
+    private ExecutorService fetchExecutor;
+    private ExecutorService decodeExecutor;
+    private ExecutorService persistExecutor;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        fetchExecutor = Executors.newFixedThreadPool(4);
+        decodeExecutor = Executors.newFixedThreadPool(2);
+        persistExecutor = Executors.newSingleThreadExecutor();
+        byte[] now;
+        try (InputStream in = getClass().getResourceAsStream("/qweather/now.json")) {
+            now = in.readAllBytes();
+        }
+        when(apiService.fetchWeatherNowRaw(any())).thenReturn(now);
+        when(apiService.isForecastDue(any(), anyBoolean())).thenReturn(false);
+    }
+
+    @AfterEach
+    void tearDown() {
+        fetchExecutor.shutdownNow();
+        decodeExecutor.shutdownNow();
+        persistExecutor.shutdownNow();
+    }
+
+    @Test
+    void flushesRemainderAtEndOfStreamAndCheckpointsEveryLocation() {
+        when(apiService.persistBatch(any(), anyList(), anyList(), anyList(), anyList(), anyList())).thenReturn(true);
+        List<String> checkpointed = new ArrayList<>();
+        when(syncRunService.completeChunk(eq(1L), any(), anyMap())).thenAnswer(invocation -> {
+            checkpointed.addAll(invocation.<Collection<String>>getArgument(1));
+            return true;
+        });
+        SyncReport report = new SyncReport();
+        SyncPipeline pipeline = pipeline(report, 4);
+
+        long start = System.nanoTime();
+        boolean completed = pipeline.run(locations(10), fetchExecutor, decodeExecutor, persistExecutor);
+        long elapsedMs = (System.nanoTime() - start) / 1_000_000;
+
+        assertTrue(completed);
+        assertEquals(10, report.getProcessedLocations().get());
+        assertEquals(Set.copyOf(codes(10)), new HashSet<>(checkpointed));
+        assertEquals(10, checkpointed.size());
+        // 结束标记到达后立即刷写剩余结果，不等待最长延迟
+        assertTrue(elapsedMs < 4000, "pipeline took " + elapsedMs + " ms");
+    }
+
+    @Test
+    void batchesUpToBatchSize() {
+        when(apiService.persistBatch(any(), anyList(), anyList(), anyList(), anyList(), anyList())).thenReturn(true);
+        when(syncRunService.completeChunk(eq(1L), any(), anyMap())).thenReturn(true);
+
+        assertTrue(pipeline(new SyncReport(), 50).run(locations(20), fetchExecutor, decodeExecutor, persistExecutor));
+
+        verify(syncRunService, times(1)).completeChunk(eq(1L), any(), anyMap());
+    }
+
+    @Test
+    void flushesPartialBatchAfterMaxLatency() throws Exception {
+        byte[] now = apiService.fetchWeatherNowRaw(null);
+        when(apiService.fetchWeatherNowRaw(any())).thenAnswer(invocation -> {
+            if ("LOC1".equals(invocation.<Location>getArgument(0).getLocationCode())) {
+                Thread.sleep(500);
+            }
+            return now;
+        });
+        when(apiService.persistBatch(any(), anyList(), anyList(), anyList(), anyList(), anyList())).thenReturn(true);
+        when(syncRunService.completeChunk(eq(1L), any(), anyMap())).thenReturn(true);
+
+        assertTrue(pipeline(new SyncReport(), 50, 100).run(locations(2), fetchExecutor, decodeExecutor, persistExecutor));
+
+        // 慢地点到达前，先到的结果已按最长延迟单独刷写
+        verify(syncRunService, times(2)).completeChunk(eq(1L), any(), anyMap());
+    }
+
+    @Test
+    void stopsWritingAfterPersistFailure() {
+        when(apiService.persistBatch(any(), anyList(), anyList(), anyList(), anyList(), anyList())).thenReturn(false);
+        SyncReport report = new SyncReport();
+        SyncPipeline pipeline = pipeline(report, 2);
+
+        boolean completed = pipeline.run(locations(6), fetchExecutor, decodeExecutor, persistExecutor);
+
+        assertFalse(completed);
+        verify(apiService, times(1)).persistBatch(any(), anyList(), anyList(), anyList(), anyList(), anyList());
+        verify(syncRunService, never()).completeChunk(any(), any(), anyMap());
+        assertTrue(pipeline.getSavedWarnings().isEmpty());
+    }
+
+    @Test
+    void persistThreadExitDoesNotBlockUpstream() {
+        // 第一批入库时入库线程被中断（如线程池关闭），之后的结果无人消费
+        when(apiService.persistBatch(any(), anyList(), anyList(), anyList(), anyList(), anyList())).thenAnswer(invocation -> {
+            Thread.currentThread().interrupt();
+            return true;
+        });
+        when(syncRunService.completeChunk(eq(1L), any(), anyMap())).thenReturn(true);
+        SyncPipeline pipeline = pipeline(new SyncReport(), 1);
+
+        boolean completed = assertTimeoutPreemptively(Duration.ofSeconds(10),
+                () -> pipeline.run(locations(30), fetchExecutor, decodeExecutor, persistExecutor));
+
+        assertFalse(completed);
+        verify(apiService, times(1)).persistBatch(any(), anyList(), anyList(), anyList(), anyList(), anyList());
+    }
+
+    @Test
+    void fetchFailureIsReportedWithoutBlockingPipeline() throws Exception {
+        when(apiService.fetchWeatherNowRaw(any())).thenThrow(new IllegalStateException("timeout"));
+        when(apiService.persistBatch(any(), anyList(), anyList(), anyList(), anyList(), anyList())).thenReturn(true);
+        when(syncRunService.completeChunk(eq(1L), any(), anyMap())).thenReturn(true);
+        SyncReport report = new SyncReport();
+        SyncPipeline pipeline = pipeline(report, 4);
+
+        assertTrue(pipeline.run(locations(3), fetchExecutor, decodeExecutor, persistExecutor));
+
+        assertEquals(3, report.getFailures().size());
+        assertEquals(Set.copyOf(codes(3)), pipeline.getProcessedCodes());
+    }
+
+    private SyncPipeline pipeline(SyncReport report, int batchSize) {
+        return pipeline(report, batchSize, 5000);
+    }
+
+    private SyncPipeline pipeline(SyncReport report, int batchSize, long maxFlushLatencyMs) {
+        return new SyncPipeline(apiService, decoder, refreshScheduler, syncRunService, report, 1L, false,
+                null, Set.of(), 4, 2, 4, batchSize, maxFlushLatencyMs);
+    }
+
+    private static List<Location> locations(int count) {
+        List<Location> locations = new ArrayList<>();
+        for (String code : codes(count)) {
+            Location location = new Location();
+            location.setLocationCode(code);
+            locations.add(location);
+        }
+        return locations;
+    }
+
+    private static List<String> codes(int count) {
+        List<String> codes = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            codes.add("LOC" + i);
+        }
+        return codes;
+    }
+}